@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+# Mede o tempo entre subir a aplicação e o primeiro POST /orders respondido com 200.
+#
+# Uso:
+#   ./scripts/time-to-first-order.sh [tag da imagem] [repetições]
+#   ./scripts/time-to-first-order.sh --java [repetições] -- <argumentos do java>
+#
+# Exemplos:
+#   ./scripts/time-to-first-order.sh 0.0.1-SNAPSHOT-fast-startup 5
+#   ./scripts/time-to-first-order.sh --java 5 -- -jar target/iglu-soft-test-0.0.1-SNAPSHOT.jar
+#
+# Com --java, a aplicação é iniciada pela JVM local com os argumentos informados, sem o Docker.
+
+set -euo pipefail
+
+URL="${IGLU_SOFT_TEST_URL:-http://localhost:8080}/orders"
+ORDER='[{"dishId":1,"ingredients":[{"ingredientId":2,"quantity":1}]}]'
+
+MODE=docker
+if [ "${1:-}" = "--java" ]; then
+    MODE=java
+    shift
+    RUNS=5
+    if [ $# -gt 0 ] && [ "$1" != "--" ]; then
+        RUNS="$1"
+        shift
+    fi
+    if [ "${1:-}" != "--" ] || [ $# -lt 2 ]; then
+        echo "Uso: $0 --java [repetições] -- <argumentos do java>" >&2
+        exit 2
+    fi
+    shift
+    JAVA_ARGS=("$@")
+    LABEL="java ${JAVA_ARGS[*]}"
+else
+    TAG="${1:-0.0.1-SNAPSHOT-fast-startup}"
+    RUNS="${2:-5}"
+    LABEL="$TAG"
+    cd "$(dirname "$0")/.."
+fi
+
+# O date +%s%3N só existe no GNU date; o EPOCHREALTIME existe a partir do bash 5 e o perl, no macOS e na maioria
+# dos Linux
+now_millis() {
+    if [ -n "${EPOCHREALTIME:-}" ]; then
+        local seconds="${EPOCHREALTIME%[.,]*}"
+        local fraction="${EPOCHREALTIME#*[.,]}"
+        echo $(( seconds * 1000 + 10#${fraction:0:3} ))
+    else
+        perl -MTime::HiRes=time -e 'printf("%d\n", time() * 1000)'
+    fi
+}
+
+wait_for_first_order() {
+    until [ "$(curl --silent --output /dev/null --write-out '%{http_code}' \
+            --header 'Content-Type: application/json' --data "$ORDER" "$URL")" = "200" ]; do
+        sleep 0.05
+    done
+}
+
+stop_java() {
+    if [ -n "${pid:-}" ]; then
+        kill "$pid" 2> /dev/null || true
+        wait "$pid" 2> /dev/null || true
+        pid=
+    fi
+}
+
+total=0
+for (( run = 1; run <= RUNS; run++ )); do
+    if [ "$MODE" = docker ]; then
+        IGLU_SOFT_TEST_TAG="$TAG" docker compose down --timeout 5 > /dev/null 2>&1
+        start=$(now_millis)
+        IGLU_SOFT_TEST_TAG="$TAG" docker compose up --detach > /dev/null 2>&1
+    else
+        trap stop_java EXIT
+        start=$(now_millis)
+        java "${JAVA_ARGS[@]}" > /dev/null 2>&1 &
+        pid=$!
+    fi
+
+    wait_for_first_order
+    elapsed=$(( $(now_millis) - start ))
+    total=$(( total + elapsed ))
+    echo "$LABEL run $run: $elapsed ms"
+
+    if [ "$MODE" = java ]; then
+        stop_java
+    fi
+done
+
+if [ "$MODE" = docker ]; then
+    IGLU_SOFT_TEST_TAG="$TAG" docker compose down --timeout 5 > /dev/null 2>&1
+fi
+echo "$LABEL average: $(( total / RUNS )) ms"
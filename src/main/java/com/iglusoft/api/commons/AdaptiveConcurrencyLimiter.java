@@ -0,0 +1,162 @@
+package com.iglusoft.api.commons;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A classe {@code AdaptiveConcurrencyLimiter} limita a quantidade de requisições processadas simultaneamente,
+ * ajustando o limite de acordo com a latência medida (AIMD - <i>additive increase, multiplicative decrease</i>).
+ *
+ * <p>
+ * Enquanto as requisições terminam com sucesso e abaixo da latência tolerada, o limite cresce em uma unidade
+ * sempre que pelo menos metade dele estiver em uso. Quando uma requisição falha ou ultrapassa a latência tolerada,
+ * o limite é multiplicado por {@code backoffRatio}, no máximo uma vez por janela de latência. Requisições que não conseguem uma vaga imediatamente aguardam
+ * em uma fila limitada por no máximo {@code maxWait}; com a fila cheia, ou esgotado o tempo, a requisição é rejeitada.
+ * </p>
+ *
+ * <p>
+ * A janela de latência de uma redução são as requisições que já estavam em andamento quando ela aconteceu: um pico de
+ * latência deixa todas elas lentas, e reduzir o limite uma vez para cada uma multiplicaria o limite por
+ * {@code backoffRatio} elevado à quantidade de requisições, derrubando-o até o mínimo. Depois de uma redução, as
+ * requisições lentas ou com erro não reduzem o limite de novo até que tantas requisições quantas estavam em andamento
+ * tenham terminado.
+ * </p>
+ *
+ * <p>
+ * A seção crítica é curta (apenas contadores), então um {@link ReentrantLock} é suficiente e permite que as
+ * threads em espera sejam acordadas assim que uma vaga for liberada.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    // Quantidade de requisições que ainda precisam terminar para a janela da última redução acabar
+    private int releasesUntilNextDecrease;
+
+    public AdaptiveConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int queueCapacity,
+            long maxWaitMillis,
+            long latencyThresholdMillis,
+            double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException(String.format("Invalid limits for limiter '%s'.", name));
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException(String.format("Invalid backoff ratio for limiter '%s'.", name));
+
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Tenta obter uma vaga, aguardando na fila se necessário.
+     *
+     * @return {@code true} se a vaga foi obtida e {@link #release(long, boolean)} deve ser chamado ao final,
+     *         {@code false} se a requisição deve ser rejeitada.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= queueCapacity)
+                return false;
+
+            waiting++;
+            try {
+                var remainingNanos = maxWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remainingNanos <= 0L)
+                        return false;
+                    remainingNanos = permitReleased.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera uma vaga obtida por {@link #tryAcquire()} e ajusta o limite com base no resultado da requisição.
+     *
+     * @param latencyNanos A latência medida da requisição, em nanossegundos.
+     * @param succeeded    {@code false} se a requisição terminou com erro do servidor.
+     */
+    public void release(long latencyNanos, boolean succeeded) {
+        lock.lock();
+        try {
+            if (!succeeded || latencyNanos > latencyThresholdNanos) {
+                if (releasesUntilNextDecrease == 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    // As demais requisições em andamento pertencem à mesma janela
+                    releasesUntilNextDecrease = inFlight - 1;
+                } else {
+                    releasesUntilNextDecrease--;
+                }
+            } else {
+                if (inFlight * 2 >= currentLimit())
+                    limit = Math.min(maxLimit, limit + 1);
+                if (releasesUntilNextDecrease > 0)
+                    releasesUntilNextDecrease--;
+            }
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+}
@@ -0,0 +1,55 @@
+package com.iglusoft.api.commons;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * A classe {@code ConstraintViolations} identifica qual restrição do banco de dados causou uma
+ * {@link DataIntegrityViolationException}.
+ *
+ * <p>
+ * Uma {@link DataIntegrityViolationException} é lançada para qualquer restrição violada: unique, chave estrangeira,
+ * not null ou check. Para transformar somente a violação de uma restrição conhecida em um erro de negócio, o nome da
+ * restrição informado pelo Hibernate é comparado com o nome dado a ela na entidade.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * try {
+ *     ingredientRepository.saveAndFlush(ingredient);
+ * } catch (DataIntegrityViolationException e) {
+ *     if (!ConstraintViolations.isViolationOf(e, Ingredient.NAME_CONSTRAINT))
+ *         throw e;
+ *     throw new BusinessException("Ingredient name already exists.");
+ * }
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>O H2 informa o nome da restrição junto com o esquema e o índice criado para ela (por exemplo
+ *     {@code PUBLIC.UK_INGREDIENT_TENANT_NAME_INDEX_1}), então a comparação procura o nome dentro do texto, sem
+ *     diferenciar maiúsculas de minúsculas.</li>
+ * </ul>
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    /**
+     * Verifica se a exceção foi causada pela violação da restrição com o nome informado.
+     *
+     * @param exception A exceção lançada pelo repositório.
+     * @param constraintName O nome da restrição, como declarado na entidade.
+     * @return {@code true} se a restrição violada é a informada, {@code false} se é outra ou se não é possível saber.
+     */
+    public static boolean isViolationOf(DataIntegrityViolationException exception, String constraintName) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                var violated = violation.getConstraintName();
+                return violated != null && violated.toLowerCase().contains(constraintName.toLowerCase());
+            }
+        }
+        return false;
+    }
+}
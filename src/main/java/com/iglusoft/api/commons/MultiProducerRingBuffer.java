@@ -0,0 +1,199 @@
+package com.iglusoft.api.commons;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A classe {@code MultiProducerRingBuffer} é uma fila circular pré-alocada, sem locks, em que várias threads publicam
+ * eventos e um número fixo de consumidores lê todos os eventos, cada um no seu ritmo.
+ *
+ * <p>
+ * Os eventos são objetos mutáveis criados uma única vez na construção e reaproveitados a cada volta. Para publicar, o
+ * produtor reserva uma faixa de sequências com {@link #claim(int, long)}, preenche os eventos obtidos por
+ * {@link #get(long)} e os libera com {@link #publish(long, long)}. Cada consumidor lê, com
+ * {@link #drain(int, int, BatchHandler)}, todos os eventos publicados desde a sua última leitura, em lotes.
+ * </p>
+ *
+ * <p>
+ * Um produtor só reserva uma posição depois que todos os consumidores já leram o evento anterior dela; com a fila
+ * cheia, ele espera o consumidor mais lento por no máximo o tempo informado.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var ring = new MultiProducerRingBuffer<>(1024, Ticket::new, 2);
+ *
+ * var sequence = ring.claim(1, TimeUnit.MILLISECONDS.toNanos(50));
+ * if (sequence >= 0) {
+ *     ring.get(sequence).set(order);
+ *     ring.publish(sequence, sequence);
+ * }
+ *
+ * // Na thread do consumidor 0
+ * ring.drain(0, 64, (ticket, sequence, endOfBatch) -> screen.show(ticket));
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>A reserva é um único compare-and-set no cursor, então produtores concorrentes não esperam uns pelos outros
+ *     enquanto houver espaço.</li>
+ *     <li>Como os produtores podem terminar de preencher fora de ordem, cada posição guarda a sequência que foi
+ *     publicada nela. O consumidor para no primeiro evento ainda não publicado, então nunca lê um evento pela metade
+ *     nem pula um evento.</li>
+ *     <li>As sequências dos consumidores ficam espaçadas por uma linha de cache, para que o avanço de um consumidor
+ *     não invalide a linha de cache dos outros.</li>
+ * </ul>
+ *
+ * @param <E> O tipo dos eventos.
+ */
+public class MultiProducerRingBuffer<E> {
+    // 8 longs ocupam uma linha de cache de 64 bytes
+    private static final int PADDING = 8;
+
+    /**
+     * Recebe os eventos lidos por um consumidor.
+     */
+    @FunctionalInterface
+    public interface BatchHandler<E> {
+        /**
+         * @param event      O evento. Ele só é válido durante a chamada; depois, a posição pode ser reaproveitada.
+         * @param sequence   A sequência do evento.
+         * @param endOfBatch Indica o último evento do lote.
+         */
+        void onEvent(E event, long sequence, boolean endOfBatch);
+    }
+
+    private final Object[] events;
+    private final AtomicLongArray published;
+    private final AtomicLongArray consumerSequences;
+    private final int consumers;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    // Cópia da menor sequência dos consumidores, atualizada somente quando a fila parece cheia
+    private volatile long cachedGatingSequence = -1;
+
+    /**
+     * @param size      A quantidade de posições; deve ser uma potência de 2.
+     * @param factory   Cria os eventos pré-alocados.
+     * @param consumers A quantidade de consumidores.
+     */
+    public MultiProducerRingBuffer(int size, Supplier<E> factory, int consumers) {
+        if (size < 1 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("The ring buffer size must be a power of 2.");
+        if (consumers < 1)
+            throw new IllegalArgumentException("A ring buffer needs at least one consumer.");
+
+        this.mask = size - 1;
+        this.consumers = consumers;
+        this.events = new Object[size];
+        this.published = new AtomicLongArray(size);
+        for (var i = 0; i < size; i++) {
+            events[i] = factory.get();
+            published.set(i, -1);
+        }
+        this.consumerSequences = new AtomicLongArray((consumers + 1) * PADDING);
+        for (var consumer = 0; consumer < consumers; consumer++)
+            consumerSequences.set(consumerIndex(consumer), -1);
+    }
+
+    public int size() {
+        return mask + 1;
+    }
+
+    /**
+     * Reserva {@code count} sequências consecutivas, esperando até {@code timeoutNanos} se a fila estiver cheia.
+     *
+     * @return A primeira sequência reservada, ou {@code -1} se não houve espaço dentro do tempo informado.
+     */
+    public long claim(int count, long timeoutNanos) {
+        if (count < 1 || count > size())
+            throw new IllegalArgumentException("Cannot claim more positions than the ring buffer size.");
+
+        long deadline = 0;
+        var idleNanos = 1_000L;
+        while (true) {
+            var current = cursor.get();
+            var next = current + count;
+            var wrapPoint = next - size();
+
+            if (wrapPoint > cachedGatingSequence) {
+                var gatingSequence = minimumConsumerSequence();
+                cachedGatingSequence = gatingSequence;
+                if (wrapPoint > gatingSequence) {
+                    var now = System.nanoTime();
+                    if (deadline == 0)
+                        deadline = now + timeoutNanos;
+                    else if (now - deadline >= 0)
+                        return -1;
+                    LockSupport.parkNanos(idleNanos);
+                    idleNanos = Math.min(idleNanos * 2, 100_000L);
+                    continue;
+                }
+            }
+
+            if (cursor.compareAndSet(current, next))
+                return current + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) events[(int) sequence & mask];
+    }
+
+    /**
+     * Libera para os consumidores os eventos de {@code first} a {@code last}, já preenchidos.
+     */
+    public void publish(long first, long last) {
+        for (var sequence = first; sequence <= last; sequence++)
+            published.set((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Entrega ao {@code handler} até {@code maxBatch} eventos publicados que o consumidor ainda não leu e avança a
+     * sequência do consumidor. Deve ser chamado sempre pela mesma thread para cada consumidor.
+     *
+     * @return A quantidade de eventos entregues.
+     */
+    public int drain(int consumer, int maxBatch, BatchHandler<E> handler) {
+        var index = consumerIndex(consumer);
+        var sequence = consumerSequences.get(index);
+        var limit = Math.min(cursor.get(), sequence + maxBatch);
+
+        var last = sequence;
+        while (last < limit && published.get((int) (last + 1) & mask) == last + 1)
+            last++;
+        if (last == sequence)
+            return 0;
+
+        try {
+            for (var current = sequence + 1; current <= last; current++)
+                handler.onEvent(get(current), current, current == last);
+        } finally {
+            // As posições são liberadas mesmo se o handler falhar, para que os produtores não fiquem parados
+            consumerSequences.set(index, last);
+        }
+        return (int) (last - sequence);
+    }
+
+    /**
+     * Retorna a quantidade de eventos reservados que o consumidor mais lento ainda não leu.
+     */
+    public long backlog() {
+        return Math.max(0, cursor.get() - minimumConsumerSequence());
+    }
+
+    private long minimumConsumerSequence() {
+        var minimum = Long.MAX_VALUE;
+        for (var consumer = 0; consumer < consumers; consumer++)
+            minimum = Math.min(minimum, consumerSequences.get(consumerIndex(consumer)));
+        return minimum;
+    }
+
+    private static int consumerIndex(int consumer) {
+        return (consumer + 1) * PADDING;
+    }
+}
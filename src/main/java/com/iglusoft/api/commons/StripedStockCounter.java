@@ -0,0 +1,141 @@
+package com.iglusoft.api.commons;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A classe {@code StripedStockCounter} é um contador de estoque sem locks, dividido em faixas, em que várias threads
+ * podem retirar e devolver unidades ao mesmo tempo sem disputar a mesma posição de memória.
+ *
+ * <p>
+ * O saldo total é a soma das faixas. Cada thread começa pela sua própria faixa e retira as unidades com um
+ * compare-and-set; se a sua faixa não tem saldo suficiente, tenta as outras. Quando nenhuma faixa sozinha cobre a
+ * retirada, o saldo das faixas é juntado na faixa da thread e a retirada é feita de uma vez. O saldo nunca fica
+ * negativo: uma retirada que o total não cobre é recusada sem alterar o contador.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var counter = new StripedStockCounter(16);
+ * counter.add(100);
+ * if (!counter.tryTake(3))
+ *     throw new BusinessException("Out of stock");
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>As faixas ficam em um único {@link AtomicLongArray}, espaçadas por uma linha de cache (64 bytes), para que
+ *     a escrita em uma faixa não invalide a linha de cache das outras (falso compartilhamento).</li>
+ *     <li>Um {@link java.util.concurrent.atomic.LongAdder} também é dividido em faixas, mas não permite uma retirada
+ *     condicional ao saldo; aqui cada faixa é um saldo próprio, e a retirada só acontece se a faixa cobre tudo.</li>
+ *     <li>Com o estoque perto do fim, duas threads que juntam as faixas ao mesmo tempo podem dividir o saldo entre
+ *     elas e nenhuma alcançar a quantidade pedida. A retirada é tentada de novo enquanto o total cobrir a quantidade,
+ *     até {@link #MAX_ATTEMPTS} vezes, então uma recusa com saldo suficiente só acontece sob disputa extrema.</li>
+ * </ul>
+ */
+public class StripedStockCounter {
+    private static final int MAX_ATTEMPTS = 4;
+
+    // 8 longs ocupam uma linha de cache de 64 bytes
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * @param stripes A quantidade de faixas, arredondada para a próxima potência de 2.
+     */
+    public StripedStockCounter(int stripes) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("A stock counter needs at least one stripe.");
+        var size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+            size <<= 1;
+        this.mask = size - 1;
+        // A primeira faixa também fica afastada do cabeçalho do array
+        this.cells = new AtomicLongArray((size + 1) * PADDING);
+    }
+
+    /**
+     * Devolve ou acrescenta unidades ao estoque.
+     */
+    public void add(long amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("The amount added to a stock counter cannot be negative.");
+        if (amount > 0)
+            cells.getAndAdd(cell(homeStripe()), amount);
+    }
+
+    /**
+     * Retira {@code amount} unidades se o estoque tiver saldo suficiente.
+     *
+     * @return {@code true} se as unidades foram retiradas, {@code false} se o saldo não é suficiente; nesse caso o
+     *         contador não é alterado.
+     */
+    public boolean tryTake(long amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("The amount taken from a stock counter cannot be negative.");
+        if (amount == 0)
+            return true;
+
+        var home = homeStripe();
+        for (var attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (takeFromSingleStripe(home, amount) || takeCollectingStripes(home, amount))
+                return true;
+            if (sum() < amount)
+                return false;
+        }
+        return false;
+    }
+
+    /**
+     * Retorna o saldo total. Com retiradas e devoluções em andamento, o valor é uma aproximação.
+     */
+    public long sum() {
+        var sum = 0L;
+        for (var stripe = 0; stripe <= mask; stripe++)
+            sum += cells.get(cell(stripe));
+        return sum;
+    }
+
+    public int stripes() {
+        return mask + 1;
+    }
+
+    private boolean takeFromSingleStripe(int home, long amount) {
+        for (var i = 0; i <= mask; i++) {
+            var index = cell((home + i) & mask);
+            long current;
+            while ((current = cells.get(index)) >= amount) {
+                if (cells.compareAndSet(index, current, current - amount))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Esvazia as faixas, começando pela da thread, até juntar {@code amount} unidades. O que sobrar, ou tudo o que
+     * foi juntado se não for suficiente, é devolvido à faixa da thread.
+     */
+    private boolean takeCollectingStripes(int home, long amount) {
+        var collected = 0L;
+        for (var i = 0; i <= mask && collected < amount; i++)
+            collected += cells.getAndSet(cell((home + i) & mask), 0L);
+
+        var taken = collected >= amount;
+        var remainder = taken ? collected - amount : collected;
+        if (remainder > 0)
+            cells.getAndAdd(cell(home), remainder);
+        return taken;
+    }
+
+    private int homeStripe() {
+        // Espalha IDs de threads consecutivos entre as faixas
+        var hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private static int cell(int stripe) {
+        return (stripe + 1) * PADDING;
+    }
+}
@@ -0,0 +1,41 @@
+package com.iglusoft.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configurações do controle de admissão, lidas das propriedades {@code iglusoft.admission.*}.
+ *
+ * @param enabled           Habilita ou desabilita o controle de admissão.
+ * @param retryAfterSeconds Valor enviado no cabeçalho {@code Retry-After} das respostas 503.
+ * @param orders            Limites aplicados ao cálculo de pedidos.
+ * @param catalogWrites     Limites aplicados às escritas no catálogo (ingredientes, lanches e promoções).
+ */
+@ConfigurationProperties(prefix = "iglusoft.admission")
+public record AdmissionControlProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1") int retryAfterSeconds,
+        @DefaultValue LimiterProperties orders,
+        @DefaultValue LimiterProperties catalogWrites
+) {
+
+    /**
+     * @param initialLimit           Limite inicial de requisições simultâneas.
+     * @param minLimit               Menor valor que o limite pode assumir.
+     * @param maxLimit               Maior valor que o limite pode assumir.
+     * @param queueCapacity          Quantidade máxima de requisições aguardando uma vaga.
+     * @param maxWaitMillis          Tempo máximo que uma requisição aguarda na fila.
+     * @param latencyThresholdMillis Latência a partir da qual o limite é reduzido.
+     * @param backoffRatio           Fator aplicado ao limite quando ele é reduzido.
+     */
+    public record LimiterProperties(
+            @DefaultValue("16") int initialLimit,
+            @DefaultValue("1") int minLimit,
+            @DefaultValue("128") int maxLimit,
+            @DefaultValue("32") int queueCapacity,
+            @DefaultValue("200") long maxWaitMillis,
+            @DefaultValue("500") long latencyThresholdMillis,
+            @DefaultValue("0.8") double backoffRatio
+    ) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.iglusoft.api.config;
+
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+import com.iglusoft.api.invalidation.DatabaseCatalogInvalidationBus;
+import com.iglusoft.api.invalidation.InMemoryCatalogInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Escolhe o canal pelo qual as instâncias da aplicação avisam umas às outras sobre alterações no catálogo.
+ *
+ * <p>
+ * Com {@code iglusoft.invalidation.bus=database}, o padrão, cada instância consulta o histórico de alterações do
+ * banco de dados compartilhado a cada {@code iglusoft.invalidation.poll-millis}, procurando de novo as sequências
+ * puladas por até {@code iglusoft.invalidation.gap-timeout-millis}. Com {@code memory}, as instâncias
+ * da mesma JVM inscritas no mesmo {@code iglusoft.invalidation.channel} se avisam diretamente, o que é usado nos
+ * testes. O {@code iglusoft.invalidation.node-id} identifica a instância; se não for informado, um UUID é gerado na
+ * inicialização.
+ * </p>
+ *
+ * <p>
+ * A escolha é feita no método do bean, e não com condições do Spring, para que continue valendo no perfil
+ * {@code fast-startup}, em que as condições são avaliadas na compilação.
+ * </p>
+ */
+@Configuration
+public class CatalogInvalidationConfig {
+
+    // As duas implementações têm close(), chamado pelo Spring no encerramento do contexto
+    @Bean
+    public ICatalogInvalidationBus catalogInvalidationBus(
+            CatalogChangeRepository catalogChangeRepository,
+            @Value("${iglusoft.invalidation.bus:database}") String bus,
+            @Value("${iglusoft.invalidation.channel:default}") String channel,
+            @Value("${iglusoft.invalidation.node-id:}") String nodeId,
+            @Value("${iglusoft.invalidation.poll-millis:1000}") long pollMillis,
+            @Value("${iglusoft.invalidation.gap-timeout-millis:60000}") long gapTimeoutMillis) {
+        var node = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        return switch (bus) {
+            case "database" -> new DatabaseCatalogInvalidationBus(catalogChangeRepository, node, pollMillis, gapTimeoutMillis);
+            case "memory" -> new InMemoryCatalogInvalidationBus(channel, node);
+            default -> throw new IllegalStateException("Unknown catalog invalidation bus '" + bus + "'.");
+        };
+    }
+}
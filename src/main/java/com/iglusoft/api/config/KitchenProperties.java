@@ -0,0 +1,35 @@
+package com.iglusoft.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configurações do envio dos pedidos às estações da cozinha, lidas das propriedades {@code iglusoft.kitchen.*}.
+ *
+ * @param ringSize             Quantidade de posições da fila circular; deve ser uma potência de 2.
+ * @param batchSize            Quantidade máxima de itens lidos de uma vez por estação.
+ * @param publishTimeoutMillis Tempo máximo que um pedido espera por espaço na fila cheia antes de ser descartado.
+ * @param maxIdleMicros        Maior pausa de uma estação sem itens antes de verificar a fila de novo.
+ * @param feedBufferSize       Quantidade de itens aguardando envio a cada tela antes de ela ser desconectada.
+ * @param feedTimeoutMillis    Tempo máximo de uma conexão das telas.
+ * @param assemblyStation      A estação de montagem, que recebe todos os itens.
+ * @param stations             Os ingredientes preparados por cada estação, pelo nome da estação.
+ */
+@ConfigurationProperties(prefix = "iglusoft.kitchen")
+public record KitchenProperties(
+        @DefaultValue("4096") int ringSize,
+        @DefaultValue("64") int batchSize,
+        @DefaultValue("50") long publishTimeoutMillis,
+        @DefaultValue("100000") long maxIdleMicros,
+        @DefaultValue("256") int feedBufferSize,
+        @DefaultValue("1800000") long feedTimeoutMillis,
+        @DefaultValue("assembly") String assemblyStation,
+        Map<String, List<String>> stations
+) {
+    public KitchenProperties {
+        stations = stations == null ? Map.of() : stations;
+    }
+}
@@ -0,0 +1,40 @@
+package com.iglusoft.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.interfaces.IOutboxSink;
+import com.iglusoft.api.outbox.NdjsonFileOutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Escolhe o destino dos eventos do outbox.
+ *
+ * <p>
+ * Com {@code iglusoft.outbox.sink=file}, o padrão, os eventos são acrescentados ao arquivo NDJSON
+ * {@code iglusoft.outbox.file-path}. Um destino para um sistema de mensagens é um novo caso no método do bean,
+ * implementando o {@link IOutboxSink}.
+ * </p>
+ *
+ * <p>
+ * Como no {@link CatalogInvalidationConfig}, a escolha é feita no método do bean, e não com condições do Spring, para
+ * que continue valendo no perfil {@code fast-startup}.
+ * </p>
+ */
+@Configuration
+public class OutboxConfig {
+
+    // O NdjsonFileOutboxSink tem close(), chamado pelo Spring no encerramento do contexto
+    @Bean
+    public IOutboxSink outboxSink(
+            ObjectMapper objectMapper,
+            @Value("${iglusoft.outbox.sink:file}") String sink,
+            @Value("${iglusoft.outbox.file-path:outbox.ndjson}") String filePath) {
+        return switch (sink) {
+            case "file" -> new NdjsonFileOutboxSink(Path.of(filePath), objectMapper);
+            default -> throw new IllegalStateException("Unknown outbox sink '" + sink + "'.");
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.iglusoft.api.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Formatos aceitos e produzidos pela API além do JSON.
+ *
+ * <p>
+ * O CBOR ({@code application/cbor}) é um formato binário com o mesmo modelo de dados do JSON, mais compacto e mais
+ * barato de codificar e decodificar. Ele é usado somente quando o cliente o pede no {@code Accept} ou o envia no
+ * {@code Content-Type}; o JSON continua sendo o formato padrão.
+ * </p>
+ *
+ * <p>
+ * O conversor substitui o conversor CBOR padrão do Spring MVC, mantendo sua posição depois do JSON, para que o
+ * {@code ObjectMapper} tenha as mesmas configurações do {@code ObjectMapper} usado para JSON.
+ * </p>
+ *
+ * <p>
+ * Os DTOs do catálogo têm um {@code @JsonFilter} usado para recortar os campos das leituras pedidos em
+ * {@code ?fields=}; fora dessas leituras, nenhum filtro é registrado e todos os campos são escritos.
+ * </p>
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer unfilteredObjectMapperCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,265 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.controllers.CatalogResponseCache.Format;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monta as respostas de leitura do catálogo com suporte a requisições condicionais e ao {@link CatalogResponseCache}.
+ *
+ * <p>
+ * O ETag é forte e derivado da versão do catálogo mantida pelo {@link CatalogSnapshotService}, que é incrementada
+ * depois do commit de qualquer escrita em ingredientes, lanches ou promoções. A versão é prefixada pelo instante de
+ * inicialização da aplicação para que um ETag emitido antes de um reinício nunca coincida com um emitido depois dele.
+ * </p>
+ *
+ * <p>
+ * Quando o {@code If-None-Match} da requisição coincide com o ETag atual, a resposta é um {@code 304 Not Modified}
+ * montado sem executar o {@code Supplier} do corpo, ou seja, sem consultar o banco de dados nem serializar nada.
+ * Caso contrário, os bytes já serializados da versão atual são escritos diretamente na resposta, compactados com
+ * gzip quando o cliente aceita.
+ * </p>
+ *
+ * <p>
+ * A resposta é serializada em CBOR quando o cliente o prefere ao JSON no cabeçalho {@code Accept}. Como JSON e CBOR
+ * são representações diferentes do mesmo recurso, cada formato tem seu próprio ETag. O mesmo vale para a resposta
+ * compactada com gzip, que tem bytes diferentes da resposta pura: um ETag forte igual para as duas permitiria que um
+ * cache combinasse partes de uma com partes da outra, então a compactação também entra no ETag.
+ * </p>
+ *
+ * <p>
+ * As respostas podem ser guardadas por caches compartilhados ({@code Cache-Control: public}), mas cada restaurante
+ * tem o seu próprio catálogo na mesma URL, então o cabeçalho do restaurante ({@code iglusoft.tenancy.header}) entra
+ * no {@code Vary} junto com o formato e a compactação.
+ * </p>
+ */
+@Component
+class CatalogConditionalResponses {
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogResponseCache responseCache;
+    private final String tenantHeader;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    CatalogConditionalResponses(
+            CatalogSnapshotService catalogSnapshotService,
+            CatalogResponseCache responseCache,
+            @Value("${iglusoft.tenancy.header:X-Tenant-Id}") String tenantHeader) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.responseCache = responseCache;
+        this.tenantHeader = tenantHeader;
+    }
+
+    /**
+     * Retorna {@code null} (resposta 304 já preenchida em {@code webRequest}) se o cliente já possui a versão atual,
+     * ou uma resposta 200 com o corpo serializado, o ETag e o {@code Cache-Control}.
+     *
+     * @param webRequest A requisição atual.
+     * @param cacheKey   A chave da resposta no {@link CatalogResponseCache}, por exemplo {@code "dishes/1"}.
+     * @param selection  Os campos pedidos pelo cliente.
+     * @param body       Fornece o objeto a ser serializado quando a resposta ainda não está no cache.
+     */
+    ResponseEntity<byte[]> ok(WebRequest webRequest, String cacheKey, FieldSelection selection, Supplier<?> body) {
+        // A versão é lida antes dos dados: se uma escrita acontecer no meio, o cliente apenas baixará de novo
+        var version = catalogSnapshotService.getVersion();
+        var format = negotiateFormat(webRequest);
+        var gzip = acceptsGzip(webRequest);
+        var eTag = toETag(version, format, gzip);
+        if (webRequest.checkNotModified(eTag))
+            return null;
+
+        var cached = responseCache.get(version, format, selection.cacheKey(cacheKey), selection.filters(), body);
+        var response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, tenantHeader);
+
+        if (gzip)
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzipped());
+        return response.body(cached.raw());
+    }
+
+    /**
+     * Igual a {@link #ok(WebRequest, String, FieldSelection, Supplier)}, mas para listagens: quando a resposta não está no cache,
+     * os elementos são escritos na resposta um a um, à medida que são lidos do banco de dados.
+     *
+     * @param webRequest A requisição atual.
+     * @param cacheKey   A chave da resposta no {@link CatalogResponseCache}, por exemplo {@code "dishes"}.
+     * @param selection  Os campos pedidos pelo cliente.
+     * @param elements   Percorre os elementos da listagem, entregando cada um ao {@code Consumer} recebido.
+     *
+     * <p>
+     * Os bytes escritos são copiados para o cache enquanto não ultrapassarem
+     * {@code iglusoft.response-cache.max-entry-bytes}; uma listagem maior que isso é enviada sem ser guardada,
+     * mantendo o uso de memória independente do tamanho do catálogo.
+     * </p>
+     *
+     * <p><strong>Exemplo de uso:</strong></p>
+     * <pre>{@code
+     * return conditionalResponses.stream(webRequest, "dishes", selection,
+     *         sink -> dishService.forEachDish(dish -> sink.accept(new DishDto(dish))));
+     * }</pre>
+     *
+     * <p><strong>Decisões de Design:</strong></p>
+     * <ul>
+     *     <li>O corpo é um {@link StreamingBody}, escrito na thread da requisição, e não um
+     *     {@code StreamingResponseBody}: a leitura em partes usa o {@code EntityManager} da requisição e os comandos
+     *     SQL continuam sendo contados na mesma thread.</li>
+     *     <li>A cópia para o cache é feita antes da compactação, então o cache guarda os bytes puros e calcula a
+     *     versão compactada uma única vez.</li>
+     * </ul>
+     */
+    ResponseEntity<StreamingBody> stream(WebRequest webRequest, String cacheKey, FieldSelection selection, Consumer<Consumer<Object>> elements) {
+        var version = catalogSnapshotService.getVersion();
+        var format = negotiateFormat(webRequest);
+        var gzip = acceptsGzip(webRequest);
+        var eTag = toETag(version, format, gzip);
+        if (webRequest.checkNotModified(eTag))
+            return null;
+
+        var response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, tenantHeader);
+        if (gzip)
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        var selectionKey = selection.cacheKey(cacheKey);
+        var cached = responseCache.peek(version, format, selectionKey);
+        if (cached.isPresent()) {
+            var bytes = gzip ? cached.get().gzipped() : cached.get().raw();
+            return response.contentLength(bytes.length).body(outputStream -> outputStream.write(bytes));
+        }
+
+        return response.body(outputStream -> {
+            var compressed = gzip ? new GZIPOutputStream(outputStream, true) : outputStream;
+            var capturing = new CapturingOutputStream(compressed, responseCache.getMaxEntryBytes());
+
+            var writer = responseCache.writerFor(format, selection.filters());
+            try (var generator = writer.createGenerator(capturing)) {
+                generator.writeStartArray();
+                elements.accept(element -> {
+                    try {
+                        writer.writeValue(generator, element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (compressed instanceof GZIPOutputStream gzipOutputStream)
+                gzipOutputStream.finish();
+
+            capturing.captured().ifPresent(raw -> responseCache.put(version, format, selectionKey, raw));
+        });
+    }
+
+    private String toETag(long version, Format format, boolean gzip) {
+        var suffix = (format == Format.JSON ? "" : "-" + format.name().toLowerCase()) + (gzip ? "-gzip" : "");
+        return "\"" + epoch + "-" + version + suffix + "\"";
+    }
+
+    /**
+     * Escolhe o CBOR somente quando ele tem qualidade maior que a do JSON no {@code Accept}; em caso de empate,
+     * inclusive com {@code *}{@code /*}, o JSON é mantido como padrão.
+     */
+    private static Format negotiateFormat(WebRequest webRequest) {
+        var accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null)
+            return Format.JSON;
+
+        double jsonQuality = 0;
+        double cborQuality = 0;
+        try {
+            for (var mediaType : MediaType.parseMediaTypes(accept)) {
+                if (mediaType.includes(MediaType.APPLICATION_JSON))
+                    jsonQuality = Math.max(jsonQuality, mediaType.getQualityValue());
+                if (mediaType.includes(MediaType.APPLICATION_CBOR))
+                    cborQuality = Math.max(cborQuality, mediaType.getQualityValue());
+            }
+        } catch (InvalidMediaTypeException e) {
+            return Format.JSON;
+        }
+        return cborQuality > jsonQuality ? Format.CBOR : Format.JSON;
+    }
+
+    private static boolean acceptsGzip(WebRequest webRequest) {
+        var acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null)
+            return false;
+
+        for (var encoding : acceptEncoding.split(",")) {
+            var parts = encoding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+                return parts.length == 1 || !parts[1].replace(" ", "").equalsIgnoreCase("q=0");
+        }
+        return false;
+    }
+
+    /**
+     * Repassa os bytes ao destino e guarda uma cópia enquanto ela não ultrapassar o limite informado.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // O fechamento da resposta fica a cargo do Spring MVC
+            flush();
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (copy == null)
+                return;
+            if (copy.size() + len > limit) {
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        private Optional<byte[]> captured() {
+            return Optional.ofNullable(copy).map(ByteArrayOutputStream::toByteArray);
+        }
+    }
+}
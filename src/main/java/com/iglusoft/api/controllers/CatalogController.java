@@ -0,0 +1,33 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.dtos.CatalogChangesDto;
+import com.iglusoft.api.services.CatalogChangeLogService;
+import com.iglusoft.api.services.CatalogChangeStreamService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+@RequestMapping("/catalog")
+public class CatalogController {
+
+    private final CatalogChangeLogService catalogChangeLogService;
+    private final CatalogChangeStreamService catalogChangeStreamService;
+
+    CatalogController(CatalogChangeLogService catalogChangeLogService, CatalogChangeStreamService catalogChangeStreamService) {
+        this.catalogChangeLogService = catalogChangeLogService;
+        this.catalogChangeStreamService = catalogChangeStreamService;
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<CatalogChangesDto> getChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(catalogChangeLogService.getChangesSince(since));
+    }
+
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return catalogChangeStreamService.subscribe(lastEventId);
+    }
+}
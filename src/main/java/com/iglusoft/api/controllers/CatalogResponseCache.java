@@ -0,0 +1,175 @@
+package com.iglusoft.api.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.iglusoft.api.tenancy.TenantLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache das respostas de leitura do catálogo já serializadas em JSON ou CBOR, em bytes puros e compactados com gzip.
+ *
+ * <p>
+ * As entradas pertencem a uma geração ligada a uma versão do catálogo. Quando a versão muda, a geração inteira é
+ * descartada de uma vez e as respostas são serializadas de novo sob demanda, na primeira requisição de cada chave.
+ * Cada chave é construída uma única vez por geração, mesmo com requisições simultâneas.
+ * </p>
+ *
+ * <p>
+ * O número de entradas por geração é limitado por {@code iglusoft.response-cache.max-entries} e o tamanho de cada
+ * entrada por {@code iglusoft.response-cache.max-entry-bytes}; acima deles as respostas continuam sendo servidas,
+ * apenas sem serem guardadas.
+ * </p>
+ *
+ * <p>
+ * Cada restaurante (tenant) tem a sua própria geração, ligada à versão do seu catálogo, e somente os
+ * {@code iglusoft.tenancy.max-cached-tenants} restaurantes acessados mais recentemente são mantidos.
+ * </p>
+ */
+@Component
+class CatalogResponseCache {
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final int maxEntries;
+    private final int maxEntryBytes;
+    private final TenantLruCache<AtomicReference<Generation>> generations;
+
+    CatalogResponseCache(
+            ObjectMapper objectMapper,
+            MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+            @Value("${iglusoft.response-cache.max-entries:10000}") int maxEntries,
+            @Value("${iglusoft.response-cache.max-entry-bytes:1048576}") int maxEntryBytes,
+            @Value("${iglusoft.tenancy.max-cached-tenants:256}") int maxCachedTenants) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = cborHttpMessageConverter.getObjectMapper();
+        this.maxEntries = maxEntries;
+        this.maxEntryBytes = maxEntryBytes;
+        this.generations = new TenantLruCache<>(maxCachedTenants, tenantId -> new AtomicReference<>(new Generation(-1L)));
+    }
+
+    /**
+     * Retorna a resposta serializada da chave no formato e na versão informados, construindo-a com {@code body}
+     * se necessário. Os filtros recortam os campos do corpo e devem corresponder à chave.
+     */
+    CachedResponse get(long version, Format format, String key, FilterProvider filters, Supplier<?> body) {
+        var current = generationFor(version);
+        if (current == null)
+            return serialize(format, filters, body.get());
+
+        var cacheKey = format.name() + ":" + key;
+        var cached = current.entries.get(cacheKey);
+        if (cached != null)
+            return cached;
+        if (current.entries.size() >= maxEntries)
+            return serialize(format, filters, body.get());
+
+        return current.entries.computeIfAbsent(cacheKey, ignored -> serialize(format, filters, body.get()));
+    }
+
+    /**
+     * Retorna a resposta já guardada para a chave, sem nunca construí-la.
+     */
+    Optional<CachedResponse> peek(long version, Format format, String key) {
+        var current = generations.current().get();
+        if (current.version != version)
+            return Optional.empty();
+        return Optional.ofNullable(current.entries.get(format.name() + ":" + key));
+    }
+
+    /**
+     * Guarda uma resposta já serializada por quem a escreveu, por exemplo uma listagem enviada em partes.
+     */
+    void put(long version, Format format, String key, byte[] raw) {
+        var current = generationFor(version);
+        if (current == null || raw.length > maxEntryBytes || current.entries.size() >= maxEntries)
+            return;
+        current.entries.putIfAbsent(format.name() + ":" + key, new CachedResponse(raw, gzip(raw)));
+    }
+
+    ObjectWriter writerFor(Format format, FilterProvider filters) {
+        return (format == Format.CBOR ? cborMapper : jsonMapper).writer(filters);
+    }
+
+    int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    private Generation generationFor(long version) {
+        var generation = generations.current();
+        while (true) {
+            var current = generation.get();
+            if (current.version == version)
+                return current;
+            // Uma requisição atrasada, com versão antiga, não deve descartar uma geração mais nova
+            if (current.version > version)
+                return null;
+            if (generation.compareAndSet(current, new Generation(version)))
+                return generation.get();
+        }
+    }
+
+    private CachedResponse serialize(Format format, FilterProvider filters, Object body) {
+        try {
+            var raw = writerFor(format, filters).writeValueAsBytes(body);
+            return new CachedResponse(raw, gzip(raw));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Could not serialize catalog response as %s.", format), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        var gzipped = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (var gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return gzipped.toByteArray();
+    }
+
+    /**
+     * Formatos em que as respostas podem ser serializadas.
+     */
+    enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    /**
+     * Resposta serializada, pura e compactada com gzip.
+     */
+    record CachedResponse(byte[] raw, byte[] gzipped) {
+    }
+
+    private static final class Generation {
+        private final long version;
+        private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+        private Generation(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.dtos.CatalogSnapshotFileDto;
+import com.iglusoft.api.services.CatalogSnapshotFileService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/catalog/snapshot")
+public class CatalogSnapshotController {
+
+    private final CatalogSnapshotFileService catalogSnapshotFileService;
+
+    CatalogSnapshotController(CatalogSnapshotFileService catalogSnapshotFileService) {
+        this.catalogSnapshotFileService = catalogSnapshotFileService;
+    }
+
+    @PostMapping("/export")
+    public ResponseEntity<CatalogSnapshotFileDto> exportSnapshot() {
+        return ResponseEntity.ok(catalogSnapshotFileService.exportSnapshot());
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<CatalogSnapshotFileDto> importSnapshot() {
+        return ResponseEntity.ok(catalogSnapshotFileService.importSnapshot());
+    }
+}
@@ -8,18 +8,24 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 @RestController
 @RequestMapping("/dishes")
 public class DishController {
+    private static final Set<String> FIELDS = Set.of("id", "name", "totalPrice", "ingredients");
+    private static final Set<String> EXPANDABLE_FIELDS = Set.of("ingredients");
+
     private final DishService dishService;
+    private final CatalogConditionalResponses conditionalResponses;
 
-    public DishController(DishService dishService) {
+    public DishController(DishService dishService, CatalogConditionalResponses conditionalResponses) {
         this.dishService = dishService;
+        this.conditionalResponses = conditionalResponses;
     }
 
     @PostMapping()
@@ -30,18 +36,31 @@ public class DishController {
     }
 
     @GetMapping()
-    public ResponseEntity<List<DishDto>> findAllDishes() {
-        return ResponseEntity.ok(this.dishService.findAllDishes().stream().map(DishDto::new).toList());
+    public ResponseEntity<StreamingBody> findAllDishes(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+        var selection = FieldSelection.parse(DishDto.FILTER_ID, FIELDS, EXPANDABLE_FIELDS, fields, expand);
+        if (!selection.expands("ingredients"))
+            return conditionalResponses.stream(webRequest, "dishes", selection, sink -> this.dishService.forEachDishSummary(sink::accept));
+        return conditionalResponses.stream(webRequest, "dishes", selection, sink -> this.dishService.forEachDish(dish -> sink.accept(new DishDto(dish))));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<DishDto> findDishById(@PathVariable long id) {
-        return ResponseEntity.ok(new DishDto(this.dishService.findById(id)));
+    public ResponseEntity<byte[]> findDishById(
+            @PathVariable long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+        var selection = FieldSelection.parse(DishDto.FILTER_ID, FIELDS, EXPANDABLE_FIELDS, fields, expand);
+        if (!selection.expands("ingredients"))
+            return conditionalResponses.ok(webRequest, "dishes/" + id, selection, () -> this.dishService.findSummaryById(id));
+        return conditionalResponses.ok(webRequest, "dishes/" + id, selection, () -> new DishDto(this.dishService.findById(id)));
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<Object> updateDish(@PathVariable Long id, @RequestBody @Valid NewEditDishDto newEditDish) {
-        if (!Objects.equals(id, newEditDish.id())) throw new BusinessException("Invalid ID");
+        if (!Objects.equals(id, newEditDish.id())) throw BusinessException.INVALID_ID;
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(new DishDto(this.dishService.saveDish(newEditDish)));
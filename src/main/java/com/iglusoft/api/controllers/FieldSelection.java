@@ -0,0 +1,114 @@
+package com.iglusoft.api.controllers;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.iglusoft.api.exceptions.BusinessException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Campos pedidos pelo cliente em uma leitura do catálogo, a partir dos parâmetros {@code fields} e {@code expand}.
+ *
+ * <p>
+ * {@code fields} lista as propriedades que devem aparecer na resposta; quando ausente, todas aparecem.
+ * {@code expand} lista as coleções aninhadas que devem ser carregadas e embutidas; quando ausente, todas as coleções
+ * presentes em {@code fields} são embutidas, mantendo o comportamento anterior. Uma coleção que não é embutida
+ * não aparece na resposta e nem é lida do banco de dados.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * GET /dishes?fields=id,name,totalPrice
+ * GET /offers?expand=requiredIngredients
+ * GET /offers/1?expand=
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>Os campos são recortados por um filtro do Jackson ligado ao {@code @JsonFilter} de cada DTO, e não por
+ *     DTOs específicos para cada combinação de campos.</li>
+ *     <li>Os nomes são guardados ordenados, então {@code fields=name,id} e {@code fields=id,name} ocupam a mesma
+ *     entrada do {@link CatalogResponseCache}.</li>
+ * </ul>
+ */
+final class FieldSelection {
+    private static final FilterProvider NO_FILTERS = new SimpleFilterProvider().setFailOnUnknownId(false);
+
+    private final Set<String> fields;
+    private final Set<String> expand;
+    private final FilterProvider filters;
+
+    private FieldSelection(String filterId, Set<String> allowedFields, Set<String> expandableFields, Set<String> fields, Set<String> expand) {
+        this.fields = fields;
+        this.expand = expand;
+
+        if (fields == null && expand == null) {
+            this.filters = NO_FILTERS;
+            return;
+        }
+
+        var written = new TreeSet<>(fields == null ? allowedFields : fields);
+        expandableFields.stream().filter(field -> !expands(field)).forEach(written::remove);
+        this.filters = new SimpleFilterProvider()
+                .setFailOnUnknownId(false)
+                .addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(written));
+    }
+
+    /**
+     * Interpreta os parâmetros {@code fields} e {@code expand} de uma requisição.
+     *
+     * @param filterId         O ID do {@code @JsonFilter} do DTO da resposta.
+     * @param allowedFields    As propriedades do DTO que podem ser pedidas.
+     * @param expandableFields As coleções aninhadas do DTO que podem ser embutidas.
+     * @param fields           O valor do parâmetro {@code fields}, ou {@code null} se não foi informado.
+     * @param expand           O valor do parâmetro {@code expand}, ou {@code null} se não foi informado.
+     * @throws BusinessException Se algum nome não for uma propriedade ou coleção conhecida.
+     */
+    static FieldSelection parse(String filterId, Set<String> allowedFields, Set<String> expandableFields, String fields, String expand) {
+        return new FieldSelection(
+                filterId,
+                allowedFields,
+                expandableFields,
+                parseNames(fields, allowedFields, "Unknown field '%s'."),
+                parseNames(expand, expandableFields, "Field '%s' cannot be expanded."));
+    }
+
+    /**
+     * Indica se a coleção aninhada deve ser carregada e embutida na resposta.
+     */
+    boolean expands(String field) {
+        return (fields == null || fields.contains(field)) && (expand == null || expand.contains(field));
+    }
+
+    /**
+     * Retorna a chave da resposta no {@link CatalogResponseCache} para esta seleção de campos.
+     */
+    String cacheKey(String key) {
+        if (fields == null && expand == null)
+            return key;
+        return key + "?fields=" + (fields == null ? "*" : String.join(",", fields))
+                + "&expand=" + (expand == null ? "*" : String.join(",", expand));
+    }
+
+    FilterProvider filters() {
+        return filters;
+    }
+
+    private static Set<String> parseNames(String value, Set<String> allowed, String unknownMessage) {
+        if (value == null)
+            return null;
+
+        var names = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(TreeSet::new));
+        names.stream().filter(name -> !allowed.contains(name)).findFirst().ifPresent(name -> {
+            throw new BusinessException(String.format(unknownMessage, name));
+        });
+        return names;
+    }
+}
@@ -8,18 +8,23 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 @RestController
 @RequestMapping("/ingredients")
 public class IngredientController {
+    private static final Set<String> FIELDS = Set.of("id", "name", "salePrice");
+
     private final IngredientService ingredientService;
+    private final CatalogConditionalResponses conditionalResponses;
 
-    public IngredientController(IngredientService ingredientService) {
+    public IngredientController(IngredientService ingredientService, CatalogConditionalResponses conditionalResponses) {
         this.ingredientService = ingredientService;
+        this.conditionalResponses = conditionalResponses;
     }
 
     @PostMapping()
@@ -30,18 +35,20 @@ public class IngredientController {
     }
 
     @GetMapping()
-    public ResponseEntity<List<IngredientDto>> findAllIngredients() {
-        return ResponseEntity.ok(this.ingredientService.findAllIngredients().stream().map(IngredientDto::new).toList());
+    public ResponseEntity<StreamingBody> findAllIngredients(@RequestParam(required = false) String fields, WebRequest webRequest) {
+        var selection = FieldSelection.parse(IngredientDto.FILTER_ID, FIELDS, Set.of(), fields, null);
+        return conditionalResponses.stream(webRequest, "ingredients", selection, sink -> this.ingredientService.forEachIngredient(ingredient -> sink.accept(new IngredientDto(ingredient))));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<IngredientDto> findIngredientById(@PathVariable Long id) {
-        return ResponseEntity.ok(new IngredientDto(this.ingredientService.findById(id)));
+    public ResponseEntity<byte[]> findIngredientById(@PathVariable Long id, @RequestParam(required = false) String fields, WebRequest webRequest) {
+        var selection = FieldSelection.parse(IngredientDto.FILTER_ID, FIELDS, Set.of(), fields, null);
+        return conditionalResponses.ok(webRequest, "ingredients/" + id, selection, () -> new IngredientDto(this.ingredientService.findById(id)));
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<IngredientDto> updateIngredient(@PathVariable Long id, @RequestBody @Valid NewEditIngredientDto newEditIngredientDto) {
-        if (!Objects.equals(id, newEditIngredientDto.id())) throw new BusinessException("Invalid ID");
+        if (!Objects.equals(id, newEditIngredientDto.id())) throw BusinessException.INVALID_ID;
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(new IngredientDto(this.ingredientService.saveIngredient(newEditIngredientDto)));
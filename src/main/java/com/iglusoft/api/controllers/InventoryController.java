@@ -0,0 +1,30 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.dtos.IngredientStockDto;
+import com.iglusoft.api.dtos.RestockDto;
+import com.iglusoft.api.services.InventoryService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+@RequestMapping("/inventory")
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    InventoryController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @GetMapping("/{ingredientId}")
+    public ResponseEntity<IngredientStockDto> findStock(@PathVariable Long ingredientId) {
+        return ResponseEntity.ok(new IngredientStockDto(ingredientId, inventoryService.getAvailable(ingredientId)));
+    }
+
+    @PostMapping("/{ingredientId}/restock")
+    public ResponseEntity<IngredientStockDto> restock(@PathVariable Long ingredientId, @RequestBody @Valid RestockDto restockDto) {
+        return ResponseEntity.ok(new IngredientStockDto(ingredientId, inventoryService.restock(ingredientId, restockDto.amount())));
+    }
+}
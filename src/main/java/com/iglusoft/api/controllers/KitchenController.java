@@ -0,0 +1,31 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.services.KitchenDispatchService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+@RequestMapping("/kitchen")
+public class KitchenController {
+
+    private final KitchenDispatchService kitchenDispatchService;
+
+    KitchenController(KitchenDispatchService kitchenDispatchService) {
+        this.kitchenDispatchService = kitchenDispatchService;
+    }
+
+    @GetMapping("/stations")
+    public ResponseEntity<Set<String>> getStations() {
+        return ResponseEntity.ok(kitchenDispatchService.getStations());
+    }
+
+    @GetMapping(path = "/stations/{station}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTickets(@PathVariable String station) {
+        return kitchenDispatchService.subscribe(station);
+    }
+}
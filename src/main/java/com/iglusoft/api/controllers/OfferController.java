@@ -8,28 +8,51 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 @RestController
 @RequestMapping("/offers")
 public class OfferController {
+    private static final Set<String> FIELDS = Set.of("id", "name", "requiredIngredients", "excludedIngredients", "discountType", "discountAmount");
+    private static final Set<String> EXPANDABLE_FIELDS = Set.of("requiredIngredients", "excludedIngredients");
+
     private final OfferService offerService;
+    private final CatalogConditionalResponses conditionalResponses;
 
-    public OfferController(OfferService offerService) {
+    public OfferController(OfferService offerService, CatalogConditionalResponses conditionalResponses) {
         this.offerService = offerService;
+        this.conditionalResponses = conditionalResponses;
     }
 
     @GetMapping()
-    public ResponseEntity<List<OfferDto>> getAllOffers() {
-        return ResponseEntity.ok(this.offerService.findAllOffers().stream().map(OfferDto::new).toList());
+    public ResponseEntity<StreamingBody> getAllOffers(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+        var selection = FieldSelection.parse(OfferDto.FILTER_ID, FIELDS, EXPANDABLE_FIELDS, fields, expand);
+        var withRequiredIngredients = selection.expands("requiredIngredients");
+        var withExcludedIngredients = selection.expands("excludedIngredients");
+        return conditionalResponses.stream(webRequest, "offers", selection, sink -> this.offerService.forEachOffer(
+                withRequiredIngredients,
+                withExcludedIngredients,
+                offer -> sink.accept(new OfferDto(offer, withRequiredIngredients, withExcludedIngredients))));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OfferDto> getOfferById(@PathVariable long id) {
-        return ResponseEntity.ok(new OfferDto(this.offerService.findOfferById(id)));
+    public ResponseEntity<byte[]> getOfferById(
+            @PathVariable long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest webRequest) {
+        var selection = FieldSelection.parse(OfferDto.FILTER_ID, FIELDS, EXPANDABLE_FIELDS, fields, expand);
+        return conditionalResponses.ok(webRequest, "offers/" + id, selection, () -> new OfferDto(
+                this.offerService.findOfferById(id),
+                selection.expands("requiredIngredients"),
+                selection.expands("excludedIngredients")));
     }
 
     @PostMapping()
@@ -41,7 +64,7 @@ public class OfferController {
 
     @PatchMapping("/{id}")
     public ResponseEntity<OfferDto> updateOffer(@PathVariable Long id, @RequestBody @Valid NewEditOffer newEditOffer) {
-        if (!Objects.equals(id, newEditOffer.id())) throw new BusinessException("Invalid ID");
+        if (!Objects.equals(id, newEditOffer.id())) throw BusinessException.INVALID_ID;
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(new OfferDto(this.offerService.saveOffer(newEditOffer)));
@@ -3,7 +3,9 @@ package com.iglusoft.api.controllers;
 import com.iglusoft.api.dtos.DishOrderDto;
 import com.iglusoft.api.dtos.OrderDishResponseDto;
 import com.iglusoft.api.dtos.OrderResponseDto;
+import com.iglusoft.api.services.KitchenDispatchService;
 import com.iglusoft.api.services.OrderService;
+import com.iglusoft.api.tenancy.TenantContext;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,13 +18,18 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final KitchenDispatchService kitchenDispatchService;
 
-    OrderController(OrderService orderService) {
+    OrderController(OrderService orderService, KitchenDispatchService kitchenDispatchService) {
         this.orderService = orderService;
+        this.kitchenDispatchService = kitchenDispatchService;
     }
 
     @PostMapping
     public ResponseEntity<OrderResponseDto> createOrder(@RequestBody @Valid List<DishOrderDto> order) {
-        return ResponseEntity.ok(orderService.getOrderResponse(order));
+        kitchenDispatchService.checkOrderSize(order.size());
+        var response = orderService.placeOrder(order);
+        kitchenDispatchService.dispatch(TenantContext.current(), response);
+        return ResponseEntity.ok(response);
     }
 }
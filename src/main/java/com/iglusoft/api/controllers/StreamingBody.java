@@ -0,0 +1,19 @@
+package com.iglusoft.api.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Corpo de resposta escrito diretamente no {@link OutputStream} da resposta, na própria thread da requisição.
+ *
+ * <p>
+ * Diferente do {@code StreamingResponseBody} do Spring MVC, que é escrito de forma assíncrona em outra thread,
+ * este corpo é escrito dentro da requisição, com o {@code EntityManager} da requisição ainda aberto.
+ * </p>
+ *
+ * @see StreamingBodyHttpMessageConverter
+ */
+@FunctionalInterface
+interface StreamingBody {
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,41 @@
+package com.iglusoft.api.controllers;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Escreve um {@link StreamingBody} no corpo da resposta, no formato definido pelo {@code Content-Type} da resposta.
+ */
+@Component
+class StreamingBodyHttpMessageConverter extends AbstractHttpMessageConverter<StreamingBody> {
+
+    StreamingBodyHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingBody readInternal(Class<? extends StreamingBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StreamingBody cannot be read.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StreamingBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,108 @@
+package com.iglusoft.api.database.entities;
+
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.time.Instant;
+
+/**
+ * Registro de uma alteração no catálogo. O ID gerado pelo banco de dados é o número de sequência da alteração.
+ * A instância de origem identifica qual instância da aplicação fez a alteração, para que ela não seja reaplicada
+ * pela própria instância ao ser lida do histórico.
+ *
+ * <p>
+ * Uma alteração do tipo {@link CatalogChangeType#RESET} não tem tipo nem ID de entidade.
+ * </p>
+ */
+@Entity
+public class CatalogChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(length = 64, nullable = false, updatable = false)
+    private String tenantId;
+
+    @Enumerated(EnumType.STRING)
+    private CatalogEntityType entityType;
+
+    private Long entityId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private CatalogChangeType changeType;
+
+    @NotNull
+    private Instant changedAt;
+
+    private String originNode;
+
+    public CatalogChange() {
+    }
+
+    public CatalogChange(CatalogEntityType entityType, Long entityId, CatalogChangeType changeType, Instant changedAt, String originNode) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.changedAt = changedAt;
+        this.originNode = originNode;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public CatalogEntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(CatalogEntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public CatalogChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(CatalogChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    public void setOriginNode(String originNode) {
+        this.originNode = originNode;
+    }
+}
@@ -4,16 +4,26 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Dish.NAME_CONSTRAINT, columnNames = {"tenant_id", "name"}))
 public class Dish {
+    public static final String NAME_CONSTRAINT = "uk_dish_tenant_name";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(length = 64, nullable = false, updatable = false)
+    private String tenantId;
+
     @NotBlank
     private String name;
 
@@ -35,6 +45,10 @@ public class Dish {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
     public String getName() {
         return name;
     }
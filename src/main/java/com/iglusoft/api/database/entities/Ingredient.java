@@ -1,19 +1,32 @@
 package com.iglusoft.api.database.entities;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Ingredient.NAME_CONSTRAINT, columnNames = {"tenant_id", "name"}))
 public class Ingredient {
+    public static final String NAME_CONSTRAINT = "uk_ingredient_tenant_name";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(length = 64, nullable = false, updatable = false)
+    private String tenantId;
+
     @NotBlank
     private String name;
 
@@ -33,6 +46,10 @@ public class Ingredient {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
     public String getName() {
         return name;
     }
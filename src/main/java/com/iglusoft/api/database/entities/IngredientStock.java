@@ -0,0 +1,51 @@
+package com.iglusoft.api.database.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Estoque de um ingrediente. Somente os ingredientes com uma linha nesta tabela têm o estoque controlado; os demais
+ * podem ser pedidos sem limite.
+ *
+ * <p>
+ * A quantidade é o estoque ainda não retirado por nenhuma instância do
+ * {@link com.iglusoft.api.services.InventoryService}; o saldo dos lotes retirados fica em memória até ser usado ou
+ * devolvido.
+ * </p>
+ */
+@Entity
+public class IngredientStock {
+    @Id
+    private Long ingredientId;
+
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(length = 64, nullable = false, updatable = false)
+    private String tenantId;
+
+    @NotNull
+    private Long quantity;
+
+    public IngredientStock() {
+    }
+
+    public Long getIngredientId() {
+        return ingredientId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,87 @@
+package com.iglusoft.api.database.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.time.Instant;
+
+/**
+ * Um evento a ser enviado aos sistemas externos (fidelidade, contabilidade), gravado na mesma transação da alteração
+ * que o gerou. O ID gerado pelo banco de dados define a ordem de envio.
+ *
+ * <p>
+ * A linha é removida pelo {@link com.iglusoft.api.services.OutboxRelayService} depois que o evento é entregue, então
+ * a tabela contém somente os eventos pendentes.
+ * </p>
+ */
+@Entity
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(length = 64, nullable = false, updatable = false)
+    private String tenantId;
+
+    @NotNull
+    @Column(length = 32)
+    private String aggregateType;
+
+    @NotNull
+    @Column(length = 64)
+    private String aggregateId;
+
+    @NotNull
+    @Column(length = 32)
+    private String eventType;
+
+    @NotNull
+    @Lob
+    private String payload;
+
+    @NotNull
+    private Instant createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, String payload, Instant createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
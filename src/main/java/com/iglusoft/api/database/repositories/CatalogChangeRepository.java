@@ -0,0 +1,62 @@
+package com.iglusoft.api.database.repositories;
+
+import com.iglusoft.api.database.entities.CatalogChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+    List<CatalogChange> findAllByIdGreaterThanOrderByIdAsc(Long id);
+
+    List<CatalogChange> findAllByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long from, Long to);
+
+    @Query("select coalesce(min(c.id), 0) from CatalogChange c")
+    long findFirstSequence();
+
+    @Query("select coalesce(max(c.id), 0) from CatalogChange c")
+    long findLastSequence();
+
+    /**
+     * Busca as próximas alterações de todos os tenants depois de {@code id}, em ordem. As consultas nativas não são
+     * filtradas pelo tenant atual.
+     */
+    @Query(value = "select * from catalog_change where id > :id order by id limit :limit", nativeQuery = true)
+    List<CatalogChange> findAllInAllTenantsAfter(Long id, int limit);
+
+    /**
+     * Busca as alterações com os IDs informados, de todos os tenants, em ordem.
+     */
+    @Query(value = "select * from catalog_change where id in :ids order by id", nativeQuery = true)
+    List<CatalogChange> findAllInAllTenantsByIdIn(Collection<Long> ids);
+
+    @Query(value = "select coalesce(min(id), 0) from catalog_change", nativeQuery = true)
+    long findFirstSequenceInAllTenants();
+
+    @Query(value = "select coalesce(max(id), 0) from catalog_change", nativeQuery = true)
+    long findLastSequenceInAllTenants();
+
+    /**
+     * Busca a maior sequência, de todos os tenants, gravada até o instante informado.
+     */
+    @Query(value = "select coalesce(max(id), 0) from catalog_change where changed_at <= :changedAt", nativeQuery = true)
+    long findLastSequenceInAllTenantsChangedUpTo(Instant changedAt);
+
+    /**
+     * Busca as sequências de todos os tenants depois de {@code id}, em ordem.
+     */
+    @Query(value = "select id from catalog_change where id > :id order by id", nativeQuery = true)
+    List<Long> findSequencesInAllTenantsAfter(Long id);
+
+    /**
+     * Remove as alterações até {@code id}, de todos os tenants.
+     */
+    @Modifying
+    @Query(value = "delete from catalog_change where id <= :id", nativeQuery = true)
+    int deleteAllUpTo(Long id);
+}
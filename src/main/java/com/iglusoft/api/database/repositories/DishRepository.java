@@ -1,10 +1,69 @@
 package com.iglusoft.api.database.repositories;
 
 import com.iglusoft.api.database.entities.Dish;
+import com.iglusoft.api.dtos.DishDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DishRepository extends JpaRepository<Dish, Long> {
-    boolean existsByNameAndIdNot(String name, Long id);
+    /**
+     * Busca o lanche pelo ID com uma consulta JPQL, e não com {@code EntityManager.find}, para que o filtro
+     * do tenant atual seja aplicado também às buscas por ID.
+     */
+    @Override
+    @Query("select d from Dish d left join fetch d.ingredients di left join fetch di.ingredient where d.id = :id")
+    Optional<Dish> findById(Long id);
+
+    @Override
+    @Query("select count(d) > 0 from Dish d where d.id = :id")
+    boolean existsById(Long id);
+
+    /**
+     * Busca o ID e o nome de todos os lanches, usados para montar o índice de nomes do catálogo.
+     */
+    List<EntityNameView> findAllProjectedBy();
+
+    /**
+     * Busca o ID e o nome do lanche informado, sem carregar a entidade.
+     */
+    Optional<EntityNameView> findProjectedById(Long id);
+
+    /**
+     * Busca todos os lanches com seus ingredientes em uma única consulta, evitando uma consulta extra por lanche.
+     */
+    @Query("select distinct d from Dish d left join fetch d.ingredients di left join fetch di.ingredient")
+    List<Dish> findAllWithIngredients();
+
+    /**
+     * Busca os lanches informados com seus ingredientes em uma única consulta, ordenados pelo ID.
+     */
+    @Query("select distinct d from Dish d left join fetch d.ingredients di left join fetch di.ingredient where d.id in :ids order by d.id")
+    List<Dish> findAllWithIngredientsByIdIn(Collection<Long> ids);
+
+    /**
+     * Busca os IDs dos próximos lanches depois de {@code after}, em ordem, para percorrer a tabela em partes.
+     */
+    @Query("select d.id from Dish d where d.id > :after order by d.id")
+    List<Long> findIdsAfter(Long after, Limit limit);
+
+    /**
+     * Busca os dados do lanche sem os ingredientes, em uma única consulta que não carrega a entidade.
+     */
+    @Query("select new com.iglusoft.api.dtos.DishDto(d.id, d.name, d.totalPrice) from Dish d where d.id = :id")
+    Optional<DishDto> findSummaryById(Long id);
+
+    /**
+     * Busca os dados dos próximos lanches depois de {@code after}, em ordem e sem os ingredientes.
+     *
+     * @see #findIdsAfter(Long, Limit)
+     */
+    @Query("select new com.iglusoft.api.dtos.DishDto(d.id, d.name, d.totalPrice) from Dish d where d.id > :after order by d.id")
+    List<DishDto> findSummariesAfter(Long after, Limit limit);
 }
@@ -0,0 +1,10 @@
+package com.iglusoft.api.database.repositories;
+
+/**
+ * Projeção com somente o ID e o nome de uma entidade do catálogo, lida sem carregar a entidade nem suas coleções.
+ */
+public interface EntityNameView {
+    Long getId();
+
+    String getName();
+}
@@ -1,10 +1,45 @@
 package com.iglusoft.api.database.repositories;
 
 import com.iglusoft.api.database.entities.Ingredient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
-    boolean existsByNameAndIdNot(String name, Long id);
+    /**
+     * Busca o ingrediente pelo ID com uma consulta JPQL, e não com {@code EntityManager.find}, para que o filtro
+     * do tenant atual seja aplicado também às buscas por ID.
+     */
+    @Override
+    @Query("select i from Ingredient i where i.id = :id")
+    Optional<Ingredient> findById(Long id);
+
+    @Override
+    @Query("select count(i) > 0 from Ingredient i where i.id = :id")
+    boolean existsById(Long id);
+
+    /**
+     * Busca o ID e o nome de todos os ingredientes, usados para montar o índice de nomes do catálogo.
+     */
+    List<EntityNameView> findAllProjectedBy();
+
+    /**
+     * Busca o ID e o nome do ingrediente informado, sem carregar a entidade.
+     */
+    Optional<EntityNameView> findProjectedById(Long id);
+
+    /**
+     * Percorre todos os ingredientes com um cursor, sem carregar a lista inteira em memória.
+     * Deve ser chamado dentro de uma transação e o {@link Stream} deve ser fechado ao final.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Ingredient> streamAllByOrderById();
 }
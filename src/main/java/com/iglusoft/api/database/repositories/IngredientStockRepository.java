@@ -0,0 +1,52 @@
+package com.iglusoft.api.database.repositories;
+
+import com.iglusoft.api.database.entities.IngredientStock;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface IngredientStockRepository extends JpaRepository<IngredientStock, Long> {
+
+    /**
+     * Busca o estoque de todos os tenants. As consultas nativas não são filtradas pelo tenant atual.
+     */
+    @Query(value = "select * from ingredient_stock", nativeQuery = true)
+    List<IngredientStock> findAllInAllTenants();
+
+    /**
+     * Soma {@code delta} à quantidade em estoque, em qualquer tenant, na sua própria transação.
+     *
+     * @return A quantidade de linhas alteradas: 0 se o ingrediente não tem estoque controlado.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "update ingredient_stock set quantity = quantity + :delta where ingredient_id = :ingredientId", nativeQuery = true)
+    int addToQuantity(Long ingredientId, long delta);
+
+    /**
+     * Retira {@code amount} unidades do estoque, em qualquer tenant, na sua própria transação, somente se o estoque
+     * tiver saldo suficiente.
+     *
+     * @return A quantidade de linhas alteradas: 0 se o estoque não tem saldo suficiente ou não é controlado.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "update ingredient_stock set quantity = quantity - :amount where ingredient_id = :ingredientId and quantity >= :amount", nativeQuery = true)
+    int takeFromQuantity(Long ingredientId, long amount);
+
+    /**
+     * Insere a linha de estoque de um ingrediente, na sua própria transação. Diferente do {@code save}, que pode
+     * atualizar uma linha já existente, a inserção falha se outra instância já inseriu a linha do ingrediente.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException Se o ingrediente já tem uma linha de estoque.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "insert into ingredient_stock(ingredient_id, tenant_id, quantity) values (:ingredientId, :tenantId, :quantity)", nativeQuery = true)
+    int insert(Long ingredientId, String tenantId, long quantity);
+}
@@ -1,9 +1,75 @@
 package com.iglusoft.api.database.repositories;
 
 import com.iglusoft.api.database.entities.Offer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OfferRepository extends JpaRepository<Offer, Long> {
+
+    /**
+     * Busca a promoção pelo ID com uma consulta JPQL, e não com {@code EntityManager.find}, para que o filtro
+     * do tenant atual seja aplicado também às buscas por ID.
+     */
+    @Override
+    @Query("select o from Offer o where o.id = :id")
+    Optional<Offer> findById(Long id);
+
+    @Override
+    @Query("select count(o) > 0 from Offer o where o.id = :id")
+    boolean existsById(Long id);
+
+    /**
+     * Busca todas as promoções com os ingredientes obrigatórios carregados.
+     *
+     * <p>
+     * O Hibernate não permite buscar as duas listas de ingredientes na mesma consulta, então esta consulta deve ser
+     * seguida de {@link #findAllWithExcludedIngredients()} dentro da mesma transação; a segunda consulta completa as
+     * mesmas instâncias já presentes no contexto de persistência.
+     * </p>
+     */
+    @Query("select distinct o from Offer o left join fetch o.requiredIngredients r left join fetch r.ingredient")
+    List<Offer> findAllWithRequiredIngredients();
+
+    /**
+     * Busca todas as promoções com os ingredientes excluídos carregados.
+     *
+     * @see #findAllWithRequiredIngredients()
+     */
+    @Query("select distinct o from Offer o left join fetch o.excludedIngredients e left join fetch e.ingredient")
+    List<Offer> findAllWithExcludedIngredients();
+
+    /**
+     * Busca as promoções informadas com os ingredientes obrigatórios carregados.
+     *
+     * @see #findAllWithRequiredIngredients()
+     */
+    @Query("select distinct o from Offer o left join fetch o.requiredIngredients r left join fetch r.ingredient where o.id in :ids order by o.id")
+    List<Offer> findAllWithRequiredIngredientsByIdIn(Collection<Long> ids);
+
+    /**
+     * Busca as promoções informadas com os ingredientes excluídos carregados.
+     *
+     * @see #findAllWithRequiredIngredients()
+     */
+    @Query("select distinct o from Offer o left join fetch o.excludedIngredients e left join fetch e.ingredient where o.id in :ids order by o.id")
+    List<Offer> findAllWithExcludedIngredientsByIdIn(Collection<Long> ids);
+
+    /**
+     * Busca os IDs das próximas promoções depois de {@code after}, em ordem, para percorrer a tabela em partes.
+     */
+    @Query("select o.id from Offer o where o.id > :after order by o.id")
+    List<Long> findIdsAfter(Long after, Limit limit);
+
+    /**
+     * Busca as próximas promoções depois de {@code after}, em ordem, sem carregar as listas de ingredientes.
+     */
+    @Query("select o from Offer o where o.id > :after order by o.id")
+    List<Offer> findAllAfter(Long after, Limit limit);
 }
@@ -0,0 +1,33 @@
+package com.iglusoft.api.database.repositories;
+
+import com.iglusoft.api.database.entities.OutboxEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Busca os eventos pendentes mais antigos de todos os tenants, em ordem. As consultas nativas não são filtradas
+     * pelo tenant atual.
+     */
+    @Query(value = "select * from outbox_event order by id limit :limit", nativeQuery = true)
+    List<OutboxEvent> findOldestInAllTenants(int limit);
+
+    @Query(value = "select count(*) from outbox_event", nativeQuery = true)
+    long countInAllTenants();
+
+    /**
+     * Remove os eventos já entregues, de qualquer tenant, na sua própria transação.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "delete from outbox_event where id in :ids", nativeQuery = true)
+    int deleteAllInAllTenantsByIdIn(Collection<Long> ids);
+}
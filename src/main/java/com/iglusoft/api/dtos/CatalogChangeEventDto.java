@@ -0,0 +1,16 @@
+package com.iglusoft.api.dtos;
+
+import com.iglusoft.api.database.entities.CatalogChange;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+
+public record CatalogChangeEventDto(
+        long sequence,
+        CatalogEntityType entityType,
+        Long entityId,
+        CatalogChangeType changeType
+) {
+    public CatalogChangeEventDto(CatalogChange change) {
+        this(change.getId(), change.getEntityType(), change.getEntityId(), change.getChangeType());
+    }
+}
@@ -0,0 +1,23 @@
+package com.iglusoft.api.dtos;
+
+import java.util.List;
+
+/**
+ * Alterações do catálogo desde uma sequência informada pelo cliente.
+ *
+ * @param sequence     A sequência da última alteração incluída; deve ser enviada como {@code since} na próxima chamada.
+ * @param fullSnapshot Indica que a resposta contém o catálogo inteiro e o cliente deve descartar sua cópia local.
+ * @param ingredients  Ingredientes criados ou alterados.
+ * @param dishes       Lanches criados ou alterados.
+ * @param offers       Promoções criadas ou alteradas.
+ * @param deleted      Entidades removidas. Sempre vazio quando {@code fullSnapshot} é {@code true}.
+ */
+public record CatalogChangesDto(
+        long sequence,
+        boolean fullSnapshot,
+        List<IngredientDto> ingredients,
+        List<DishDto> dishes,
+        List<OfferDto> offers,
+        List<CatalogTombstoneDto> deleted
+) {
+}
@@ -0,0 +1,23 @@
+package com.iglusoft.api.dtos;
+
+/**
+ * Resultado de uma exportação ou importação do arquivo de fotografia do catálogo.
+ *
+ * @param path           O caminho absoluto do arquivo.
+ * @param sizeBytes      O tamanho do arquivo, em bytes.
+ * @param catalogVersion A versão do catálogo no momento da exportação.
+ * @param checksum       O CRC32C do conteúdo, em hexadecimal.
+ * @param ingredients    A quantidade de ingredientes no arquivo.
+ * @param dishes         A quantidade de lanches no arquivo.
+ * @param offers         A quantidade de promoções no arquivo.
+ */
+public record CatalogSnapshotFileDto(
+        String path,
+        long sizeBytes,
+        long catalogVersion,
+        String checksum,
+        int ingredients,
+        int dishes,
+        int offers
+) {
+}
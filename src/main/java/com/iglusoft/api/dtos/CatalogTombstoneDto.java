@@ -0,0 +1,9 @@
+package com.iglusoft.api.dtos;
+
+import com.iglusoft.api.enums.CatalogEntityType;
+
+public record CatalogTombstoneDto(
+        CatalogEntityType entityType,
+        Long id
+) {
+}
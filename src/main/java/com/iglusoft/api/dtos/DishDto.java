@@ -1,5 +1,6 @@
 package com.iglusoft.api.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.iglusoft.api.database.entities.Dish;
 import com.iglusoft.api.database.entities.DishIngredientQuantity;
 import jakarta.validation.constraints.NotBlank;
@@ -8,7 +9,10 @@ import jakarta.validation.constraints.Positive;
 
 import java.util.List;
 
+@JsonFilter(DishDto.FILTER_ID)
 public class DishDto {
+    public static final String FILTER_ID = "dish";
+
     @Positive
     private Long id;
 
@@ -30,6 +34,15 @@ public class DishDto {
         this.ingredients = dish.getIngredients().stream().map(DishIngredientQuantityDto::new).toList();
     }
 
+    /**
+     * Cria o DTO sem os ingredientes, usado nas consultas que não carregam a lista de ingredientes do lanche.
+     */
+    public DishDto(Long id, String name, Long totalPrice) {
+        this.id = id;
+        this.name = name;
+        this.totalPrice = totalPrice;
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,11 +1,15 @@
 package com.iglusoft.api.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.iglusoft.api.database.entities.Ingredient;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
+@JsonFilter(IngredientDto.FILTER_ID)
 public class IngredientDto {
+    public static final String FILTER_ID = "ingredient";
+
     @Positive
     private Long id;
 
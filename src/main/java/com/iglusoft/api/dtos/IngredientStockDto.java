@@ -0,0 +1,13 @@
+package com.iglusoft.api.dtos;
+
+/**
+ * O saldo disponível de um ingrediente com estoque controlado.
+ *
+ * @param ingredientId O ID do ingrediente.
+ * @param available    A quantidade disponível para novos pedidos.
+ */
+public record IngredientStockDto(
+        Long ingredientId,
+        long available
+) {
+}
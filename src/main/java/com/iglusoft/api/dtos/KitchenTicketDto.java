@@ -0,0 +1,19 @@
+package com.iglusoft.api.dtos;
+
+import java.util.List;
+
+/**
+ * Um item de pedido enviado à tela de uma estação da cozinha.
+ *
+ * @param orderNumber O número do pedido na cozinha, igual em todas as estações.
+ * @param station     A estação que deve preparar o item.
+ * @param dish        O nome do lanche.
+ * @param ingredients Os ingredientes preparados pela estação; na estação de montagem, todos os ingredientes.
+ */
+public record KitchenTicketDto(
+        long orderNumber,
+        String station,
+        String dish,
+        List<OrderIngredientResponseDto> ingredients
+) {
+}
@@ -1,5 +1,6 @@
 package com.iglusoft.api.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.iglusoft.api.database.entities.Offer;
 import com.iglusoft.api.enums.DiscountType;
 import jakarta.validation.constraints.NotBlank;
@@ -7,7 +8,10 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.util.List;
 
+@JsonFilter(OfferDto.FILTER_ID)
 public class OfferDto {
+    public static final String FILTER_ID = "offer";
+
     @Positive
     private Long id;
 
@@ -28,12 +32,22 @@ public class OfferDto {
     }
 
     public OfferDto(Offer offer) {
+        this(offer, true, true);
+    }
+
+    /**
+     * Cria o DTO copiando somente as listas de ingredientes pedidas, sem acessar as demais; uma lista não copiada
+     * não precisa estar carregada.
+     */
+    public OfferDto(Offer offer, boolean withRequiredIngredients, boolean withExcludedIngredients) {
         this.id = offer.getId();
         this.name = offer.getName();
         this.discountType = offer.getDiscountType();
         this.discountAmount = offer.getDiscountAmount();
-        this.requiredIngredients = offer.getRequiredIngredients().stream().map(OfferIngredientMinQuantityDto::new).toList();
-        this.excludedIngredients = offer.getExcludedIngredients().stream().map(OfferIngredientMinQuantityDto::new).toList();
+        if (withRequiredIngredients)
+            this.requiredIngredients = offer.getRequiredIngredients().stream().map(OfferIngredientMinQuantityDto::new).toList();
+        if (withExcludedIngredients)
+            this.excludedIngredients = offer.getExcludedIngredients().stream().map(OfferIngredientMinQuantityDto::new).toList();
     }
 
     public Long getId() {
@@ -0,0 +1,13 @@
+package com.iglusoft.api.dtos;
+
+import java.util.List;
+
+public record OrderPlacedEventDto(
+        String orderId,
+        long totalPrice,
+        List<OrderDishResponseDto> dishes
+) {
+    public OrderPlacedEventDto(String orderId, OrderResponseDto order) {
+        this(orderId, order.totalPrice(), order.dishes());
+    }
+}
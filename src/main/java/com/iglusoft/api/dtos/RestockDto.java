@@ -0,0 +1,9 @@
+package com.iglusoft.api.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record RestockDto(
+        @Positive @NotNull Long amount
+) {
+}
@@ -0,0 +1,17 @@
+package com.iglusoft.api.enums;
+
+/**
+ * O enum {@code CatalogChangeType} descreve o tipo de alteração sofrida por um item do catálogo
+ * (ingrediente, lanche ou promoção).
+ *
+ * <p>
+ * O {@link #RESET} não se refere a um item: ele registra a substituição do catálogo inteiro de um restaurante, e quem
+ * ainda não o leu deve descartar a sua cópia do catálogo.
+ * </p>
+ */
+public enum CatalogChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    RESET
+}
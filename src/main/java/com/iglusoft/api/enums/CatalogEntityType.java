@@ -0,0 +1,10 @@
+package com.iglusoft.api.enums;
+
+/**
+ * O enum {@code CatalogEntityType} identifica os tipos de entidade que compõem o catálogo.
+ */
+public enum CatalogEntityType {
+    INGREDIENT,
+    DISH,
+    OFFER
+}
@@ -0,0 +1,24 @@
+package com.iglusoft.api.events;
+
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+
+/**
+ * Evento publicado pelos serviços do catálogo sempre que um ingrediente, lanche ou promoção é criado,
+ * alterado ou removido.
+ *
+ * <p>
+ * Os ouvintes devem usar {@code @TransactionalEventListener} para reagir somente depois do commit da
+ * transação que originou a alteração, evitando que caches sejam reconstruídos com dados ainda não confirmados.
+ * </p>
+ *
+ * @param entityType O tipo da entidade alterada.
+ * @param entityId   O ID da entidade alterada.
+ * @param changeType O tipo de alteração.
+ */
+public record CatalogChangedEvent(
+        CatalogEntityType entityType,
+        Long entityId,
+        CatalogChangeType changeType
+) {
+}
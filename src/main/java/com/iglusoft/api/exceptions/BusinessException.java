@@ -11,6 +11,12 @@ package com.iglusoft.api.exceptions;
  * A classe estende {@link RuntimeException}, o que significa que é uma exceção de não verificação, não exigindo a declaração de throws ou try-catch em métodos que a lançam.
  * </p>
  *
+ * <p>
+ * A exceção não captura o stack trace, pois representa uma resposta esperada ao cliente e não um erro da aplicação;
+ * o corpo da resposta de erro é criado junto com ela. Exceções com mensagem fixa, como {@link #INVALID_ID}, são
+ * instâncias únicas reutilizadas.
+ * </p>
+ *
  * <p><strong>Exemplo de Uso:</strong></p>
  * <pre>{@code
  * public void validateUser(User user) {
@@ -28,6 +34,9 @@ package com.iglusoft.api.exceptions;
  * </p>
  */
 public class BusinessException extends RuntimeException {
+    public static final BusinessException INVALID_ID = new BusinessException("Invalid ID");
+
+    private final ErrorResponse body;
 
     /**
      * Cria uma nova instância de {@code BusinessException} com a mensagem de erro especificada.
@@ -35,7 +44,15 @@ public class BusinessException extends RuntimeException {
      * @param message A mensagem de erro que descreve a violação das regras de negócio.
      */
     public BusinessException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.body = ErrorResponse.badRequest(message);
+    }
+
+    /**
+     * Retorna o corpo da resposta de erro correspondente a esta exceção.
+     */
+    public ErrorResponse getBody() {
+        return body;
     }
 }
 
@@ -0,0 +1,19 @@
+package com.iglusoft.api.exceptions;
+
+/**
+ * O record {@code ErrorResponse} é o corpo das respostas de erro da API.
+ *
+ * <p>
+ * As instâncias são imutáveis e podem ser compartilhadas entre requisições, como {@link #NOT_FOUND}.
+ * </p>
+ *
+ * @param status  O código de status HTTP da resposta.
+ * @param message A mensagem que descreve o erro.
+ */
+public record ErrorResponse(int status, String message) {
+    public static final ErrorResponse NOT_FOUND = new ErrorResponse(404, "Resource not found.");
+
+    public static ErrorResponse badRequest(String message) {
+        return new ErrorResponse(400, message);
+    }
+}
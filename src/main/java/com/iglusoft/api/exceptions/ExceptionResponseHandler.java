@@ -14,23 +14,27 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  * </p>
  *
  * <p>
- * Cada método de tratamento de exceção retorna uma resposta HTTP adequada com base no tipo de exceção capturada.
+ * Cada método de tratamento de exceção retorna uma resposta HTTP adequada com base no tipo de exceção capturada,
+ * com um {@link ErrorResponse} no corpo. A resposta de não encontrado é sempre a mesma e é criada uma única vez.
  * </p>
  */
 @RestControllerAdvice
 public class ExceptionResponseHandler {
+    private static final ResponseEntity<ErrorResponse> NOT_FOUND = ResponseEntity
+            .status(HttpStatus.NOT_FOUND)
+            .body(ErrorResponse.NOT_FOUND);
 
     /**
      * Trata exceções de negócio ({@code BusinessException}) lançadas durante a execução da aplicação.
      * Retorna uma resposta HTTP 400 Bad Request contendo a mensagem de erro da exceção.
      *
      * @param e A exceção de negócio capturada.
-     * @return Uma resposta HTTP 400 Bad Request com a mensagem de erro da exceção.
+     * @return Uma resposta HTTP 400 Bad Request com o corpo de erro da exceção.
      */
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(BusinessException.class)
-    ResponseEntity<Object> catchBusinessException(BusinessException e) {
-        return ResponseEntity.badRequest().body(e.getMessage());
+    ResponseEntity<ErrorResponse> catchBusinessException(BusinessException e) {
+        return ResponseEntity.badRequest().body(e.getBody());
     }
 
     /**
@@ -38,12 +42,12 @@ public class ExceptionResponseHandler {
      * Retorna uma resposta HTTP 404 Not Found.
      *
      * @param e A exceção de não encontrados capturada.
-     * @return Uma resposta HTTP 404 Not Found.
+     * @return Uma resposta HTTP 404 Not Found, sempre a mesma instância.
      */
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler(NotFoundException.class)
-    ResponseEntity<Object> catchNotFoundException(NotFoundException e) {
-        return ResponseEntity.notFound().build();
+    ResponseEntity<ErrorResponse> catchNotFoundException(NotFoundException e) {
+        return NOT_FOUND;
     }
 }
 
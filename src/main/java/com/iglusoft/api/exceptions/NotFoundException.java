@@ -11,12 +11,17 @@ package com.iglusoft.api.exceptions;
  * A classe estende {@link RuntimeException}, o que significa que é uma exceção de não verificação, não exigindo a declaração de throws ou try-catch em métodos que a lançam.
  * </p>
  *
+ * <p>
+ * A exceção não captura o stack trace e não tem mensagem, então uma única instância, retornada por
+ * {@link #instance()}, é reutilizada em todos os lançamentos.
+ * </p>
+ *
  * <p><strong>Exemplo de Uso:</strong></p>
  * <pre>{@code
  * public User getUserById(Long userId) {
  *     User user = userRepository.findById(userId);
  *     if (user == null) {
- *         throw new NotFoundException();
+ *         throw NotFoundException.instance();
  *     }
  *     return user;
  * }
@@ -27,11 +32,20 @@ package com.iglusoft.api.exceptions;
  * </p>
  */
 public class NotFoundException extends RuntimeException {
+    private static final NotFoundException INSTANCE = new NotFoundException();
 
     /**
      * Cria uma nova instância de {@code NotFoundException} sem uma mensagem específica.
      */
-    public NotFoundException() {}
+    public NotFoundException() {
+        super(null, null, false, false);
+    }
 
+    /**
+     * Retorna a instância compartilhada de {@code NotFoundException}.
+     */
+    public static NotFoundException instance() {
+        return INSTANCE;
+    }
 }
 
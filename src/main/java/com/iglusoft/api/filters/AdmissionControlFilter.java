@@ -0,0 +1,168 @@
+package com.iglusoft.api.filters;
+
+import com.iglusoft.api.commons.AdaptiveConcurrencyLimiter;
+import com.iglusoft.api.config.AdmissionControlProperties;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filtro que aplica o controle de admissão antes que as requisições cheguem aos controllers.
+ *
+ * <p>
+ * O cálculo de pedidos ({@code POST /orders}) e as escritas no catálogo ({@code POST}, {@code PATCH} e
+ * {@code DELETE} em {@code /ingredients}, {@code /dishes} e {@code /offers}) possuem limitadores independentes,
+ * de modo que uma carga grande de alterações no catálogo não consiga esgotar a capacidade reservada aos pedidos.
+ * Leituras não são limitadas.
+ * </p>
+ *
+ * <p>
+ * Requisições rejeitadas recebem imediatamente um {@code 503 Service Unavailable} com o cabeçalho
+ * {@code Retry-After}, sem tocar no banco de dados.
+ * </p>
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Set<String> CATALOG_PATHS = Set.of("/ingredients", "/dishes", "/offers");
+    private static final Set<String> WRITE_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PATCH.name(), HttpMethod.PUT.name(), HttpMethod.DELETE.name());
+
+    private final AdmissionControlProperties properties;
+    private final AdaptiveConcurrencyLimiter ordersLimiter;
+    private final AdaptiveConcurrencyLimiter catalogWritesLimiter;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties) {
+        this.properties = properties;
+        this.ordersLimiter = createLimiter("orders", properties.orders());
+        this.catalogWritesLimiter = createLimiter("catalog-writes", properties.catalogWrites());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || resolveLimiter(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var limiter = resolveLimiter(request);
+
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.retryAfterSeconds()));
+            return;
+        }
+
+        var permit = new Permit(limiter, response, System.nanoTime());
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            permit.release(false);
+            throw e;
+        }
+
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(permit);
+        } else {
+            permit.release();
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter getOrdersLimiter() {
+        return ordersLimiter;
+    }
+
+    public AdaptiveConcurrencyLimiter getCatalogWritesLimiter() {
+        return catalogWritesLimiter;
+    }
+
+    private AdaptiveConcurrencyLimiter resolveLimiter(HttpServletRequest request) {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        var method = request.getMethod();
+
+        if (HttpMethod.POST.matches(method) && (path.equals("/orders") || path.startsWith("/orders/")))
+            return ordersLimiter;
+
+        if (WRITE_METHODS.contains(method) && CATALOG_PATHS.stream().anyMatch(it -> path.equals(it) || path.startsWith(it + "/")))
+            return catalogWritesLimiter;
+
+        return null;
+    }
+
+    private static AdaptiveConcurrencyLimiter createLimiter(String name, AdmissionControlProperties.LimiterProperties limits) {
+        return new AdaptiveConcurrencyLimiter(
+                name,
+                limits.initialLimit(),
+                limits.minLimit(),
+                limits.maxLimit(),
+                limits.queueCapacity(),
+                limits.maxWaitMillis(),
+                limits.latencyThresholdMillis(),
+                limits.backoffRatio());
+    }
+
+    /**
+     * Vaga obtida por uma requisição. Para requisições assíncronas, a vaga só é liberada quando o processamento
+     * assíncrono termina.
+     */
+    private static final class Permit implements AsyncListener {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final HttpServletResponse response;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, HttpServletResponse response, long startNanos) {
+            this.limiter = limiter;
+            this.response = response;
+            this.startNanos = startNanos;
+        }
+
+        void release() {
+            release(response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        void release(boolean succeeded) {
+            if (released.compareAndSet(false, true))
+                limiter.release(System.nanoTime() - startNanos, succeeded);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.iglusoft.api.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.exceptions.ErrorResponse;
+import com.iglusoft.api.tenancy.TenantContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtro que define o restaurante (tenant) de cada requisição a partir do cabeçalho
+ * {@code iglusoft.tenancy.header} ({@code X-Tenant-Id} por padrão).
+ *
+ * <p>
+ * Sem o cabeçalho, a requisição usa o {@link TenantContext#DEFAULT_TENANT}, então os clientes de uma instalação com
+ * um único restaurante não precisam mudar. Um identificador inválido é rejeitado com {@code 400 Bad Request} antes
+ * de chegar aos controllers.
+ * </p>
+ *
+ * <p>
+ * O filtro é o primeiro da cadeia, para que o controle de admissão, os controllers e o {@code EntityManager} aberto
+ * para a requisição já vejam o tenant.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantFilter extends OncePerRequestFilter {
+    private final ObjectMapper objectMapper;
+    private final String header;
+
+    public TenantFilter(ObjectMapper objectMapper, @Value("${iglusoft.tenancy.header:X-Tenant-Id}") String header) {
+        this.objectMapper = objectMapper;
+        this.header = header;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var tenantId = request.getHeader(header);
+        if (tenantId == null || tenantId.isBlank())
+            tenantId = TenantContext.DEFAULT_TENANT;
+
+        if (!TenantContext.isValid(tenantId)) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ErrorResponse.badRequest(String.format("Invalid tenant id in header '%s'.", header)));
+            return;
+        }
+
+        var scope = TenantContext.open(tenantId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.iglusoft.api.interfaces;
+
+import com.iglusoft.api.invalidation.CatalogInvalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * A interface {@code ICatalogInvalidationBus} define o canal pelo qual as instâncias da aplicação avisam umas às
+ * outras sobre alterações no catálogo, para que as caches em memória de cada instância não fiquem desatualizadas.
+ *
+ * <p>
+ * Cada instância tem um {@link #nodeId()} próprio. As mensagens publicadas por uma instância são entregues a todas as
+ * outras inscritas no mesmo canal; a entrega à própria instância que publicou é opcional, e os inscritos devem
+ * ignorá-la comparando o {@link CatalogInvalidation#originNode()}.
+ * </p>
+ *
+ * <p><strong>Exemplo de Implementação:</strong></p>
+ * <pre>{@code
+ * public class LoggingInvalidationBus implements ICatalogInvalidationBus {
+ *     private final List<Consumer<CatalogInvalidation>> listeners = new CopyOnWriteArrayList<>();
+ *
+ *     public String nodeId() { return "single-node"; }
+ *
+ *     public void publish(CatalogInvalidation invalidation) {
+ *         logger.info("Catalog changed: {}", invalidation);
+ *     }
+ *
+ *     public void subscribe(Consumer<CatalogInvalidation> listener) { listeners.add(listener); }
+ * }
+ * }</pre>
+ */
+public interface ICatalogInvalidationBus {
+
+    /**
+     * Retorna o identificador desta instância da aplicação.
+     */
+    String nodeId();
+
+    /**
+     * Avisa as outras instâncias sobre uma alteração já confirmada no catálogo.
+     *
+     * @param invalidation A alteração, com {@link #nodeId()} como origem.
+     */
+    void publish(CatalogInvalidation invalidation);
+
+    /**
+     * Registra quem deve ser avisado quando outra instância alterar o catálogo.
+     *
+     * @param listener Chamado em uma thread do canal, uma alteração por vez.
+     */
+    void subscribe(Consumer<CatalogInvalidation> listener);
+}
@@ -0,0 +1,34 @@
+package com.iglusoft.api.interfaces;
+
+import com.iglusoft.api.outbox.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * A interface {@code IOutboxSink} define o destino dos eventos do outbox, como uma fila de mensagens ou um arquivo.
+ *
+ * <p>
+ * O {@link com.iglusoft.api.services.OutboxRelayService} entrega os eventos em lotes, em ordem de sequência, e só os
+ * remove do outbox depois que {@link #publish(List)} retorna sem erro. Se o envio falhar, o lote inteiro é entregue de
+ * novo, então um destino pode receber o mesmo evento mais de uma vez.
+ * </p>
+ *
+ * <p><strong>Exemplo de Implementação:</strong></p>
+ * <pre>{@code
+ * public class LoggingOutboxSink implements IOutboxSink {
+ *     public void publish(List<OutboxMessage> messages) {
+ *         messages.forEach(it -> logger.info("{} {} {}", it.aggregateType(), it.aggregateId(), it.eventType()));
+ *     }
+ * }
+ * }</pre>
+ */
+public interface IOutboxSink {
+
+    /**
+     * Envia um lote de eventos, na ordem da lista.
+     *
+     * @param messages Os eventos, em ordem crescente de {@link OutboxMessage#id()}.
+     * @throws RuntimeException Se algum evento do lote não pôde ser enviado.
+     */
+    void publish(List<OutboxMessage> messages);
+}
@@ -2,17 +2,22 @@ package com.iglusoft.api.interfaces;
 
 import com.iglusoft.api.commons.ObjectValidationResponse;
 
+import java.util.List;
+
 /**
  * A interface {@code IValidatesObject<T>} define um contrato para a validação de objetos genéricos.
  *
  * @param <T> O tipo genérico dos objetos a serem validados.
  *
  * <p>
- * Esta interface possui um único método:
+ * Esta interface possui dois métodos:
  * </p>
  * <ul>
+ *     <li>{@link #validateAll(List)}: Um método que recebe uma lista de objetos do tipo genérico {@code T} e retorna uma resposta de validação {@link ObjectValidationResponse} para cada objeto, na mesma ordem.
+ *         As implementações devem validar a lista inteira de uma vez, com consultas por conjunto em vez de uma consulta por objeto.
+ *     </li>
  *     <li>{@link #validate(T)}: Um método que recebe um objeto do tipo genérico {@code T} e retorna uma resposta de validação {@link ObjectValidationResponse}.
- *         Este método é responsável por realizar a validação do objeto fornecido e retornar uma resposta indicando se o objeto é válido ou inválido, juntamente com uma mensagem explicativa, se necessário.
+ *         Por padrão, valida uma lista com somente o objeto fornecido.
  *     </li>
  * </ul>
  *
@@ -21,14 +26,16 @@ import com.iglusoft.api.commons.ObjectValidationResponse;
  * public class UserValidator implements IValidatesObject<User> {
  *
  *     {@literal @}Override
- *     public ObjectValidationResponse validate(User user) {
- *         if (user.getName() == null || user.getName().isEmpty()) {
- *             return new ObjectValidationResponse(false, "Name cannot be empty.");
- *         }
- *         if (user.getAge() <= 0) {
- *             return new ObjectValidationResponse(false, "Age must be greater than zero.");
- *         }
- *         return new ObjectValidationResponse(true, "User is valid.");
+ *     public List<ObjectValidationResponse> validateAll(List<User> users) {
+ *         return users.stream().map(user -> {
+ *             if (user.getName() == null || user.getName().isEmpty()) {
+ *                 return new ObjectValidationResponse(false, "Name cannot be empty.");
+ *             }
+ *             if (user.getAge() <= 0) {
+ *                 return new ObjectValidationResponse(false, "Age must be greater than zero.");
+ *             }
+ *             return new ObjectValidationResponse(true, "User is valid.");
+ *         }).toList();
  *     }
  * }
  * }</pre>
@@ -39,12 +46,22 @@ import com.iglusoft.api.commons.ObjectValidationResponse;
  */
 public interface IValidatesObject<T> {
 
+    /**
+     * Realiza a validação de todos os objetos fornecidos de uma vez e retorna uma resposta de validação para cada um.
+     *
+     * @param objects Os objetos a serem validados.
+     * @return Uma lista de {@link ObjectValidationResponse}, na mesma ordem de {@code objects}, indicando se cada objeto é válido ou inválido, juntamente com uma mensagem explicativa, se necessário.
+     */
+    List<ObjectValidationResponse> validateAll(List<T> objects);
+
     /**
      * Realiza a validação do objeto fornecido e retorna uma resposta de validação.
      *
      * @param t O objeto a ser validado.
      * @return Uma {@link ObjectValidationResponse} indicando se o objeto é válido ou inválido, juntamente com uma mensagem explicativa, se necessário.
      */
-    ObjectValidationResponse validate(T t);
+    default ObjectValidationResponse validate(T t) {
+        return validateAll(List.of(t)).get(0);
+    }
 }
 
@@ -0,0 +1,36 @@
+package com.iglusoft.api.invalidation;
+
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+
+/**
+ * Uma alteração no catálogo feita por uma instância da aplicação, entregue às outras pelo
+ * {@link com.iglusoft.api.interfaces.ICatalogInvalidationBus}.
+ *
+ * @param originNode O identificador da instância que fez a alteração, ou {@code null} se ele não é conhecido.
+ * @param tenantId   O restaurante cujo catálogo foi alterado, ou {@code null} em um {@link #reset(String, String)} de
+ *                   todos os restaurantes.
+ * @param entityType O tipo da entidade alterada, ou {@code null} em um {@link #reset(String, String)}.
+ * @param entityId   O ID da entidade alterada, ou {@code null} em um {@link #reset(String, String)}.
+ * @param changeType O tipo de alteração, ou {@code null} em um {@link #reset(String, String)}.
+ */
+public record CatalogInvalidation(
+        String originNode,
+        String tenantId,
+        CatalogEntityType entityType,
+        Long entityId,
+        CatalogChangeType changeType
+) {
+
+    /**
+     * Uma invalidação de todo o catálogo de um restaurante, ou de todos se {@code tenantId} for {@code null}, usada
+     * quando as alterações individuais não podem mais ser recuperadas.
+     */
+    public static CatalogInvalidation reset(String originNode, String tenantId) {
+        return new CatalogInvalidation(originNode, tenantId, null, null, null);
+    }
+
+    public boolean isReset() {
+        return entityType == null;
+    }
+}
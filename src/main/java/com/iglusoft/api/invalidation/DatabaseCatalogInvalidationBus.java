@@ -0,0 +1,163 @@
+package com.iglusoft.api.invalidation;
+
+import com.iglusoft.api.database.entities.CatalogChange;
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Canal de invalidação que usa o histórico de alterações do catálogo ({@code CATALOG_CHANGE}) como meio de
+ * comunicação entre as instâncias da aplicação que compartilham o mesmo banco de dados.
+ *
+ * <p>
+ * Publicar não faz nada: a linha do histórico já é gravada pelo {@code CatalogChangeLogService} na mesma transação
+ * da alteração, com a instância de origem. Cada instância consulta o histórico a cada {@code pollMillis} e entrega as
+ * alterações das outras instâncias.
+ * </p>
+ *
+ * <p>
+ * As sequências são geradas na inserção, e não no commit, e cada instância só ordena os seus próprios commits. Uma
+ * sequência menor de outra instância pode então ficar visível depois de uma maior já lida. Cada sequência que falta
+ * entre as lidas é guardada como uma lacuna e procurada de novo a cada consulta, por até {@code gapTimeoutMillis}: uma
+ * alteração confirmada dentro desse prazo é entregue na consulta seguinte ao commit, mesmo fora de ordem. Uma lacuna
+ * que não aparece no prazo é considerada uma transação desfeita e esquecida; uma alteração confirmada depois disso não
+ * é entregue, e as caches da entidade só são corrigidas pela próxima alteração nela.
+ * </p>
+ *
+ * <p>
+ * O histórico é lido com consultas nativas, que enxergam as alterações de todos os restaurantes. Se ele não cobrir
+ * mais a última sequência vista, porque foi podado ou substituído por uma importação do catálogo, um
+ * {@link CatalogInvalidation#reset(String, String)} de todos os restaurantes é entregue no lugar das alterações
+ * perdidas.
+ * </p>
+ */
+public class DatabaseCatalogInvalidationBus implements ICatalogInvalidationBus, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseCatalogInvalidationBus.class);
+    private static final int POLL_BATCH_SIZE = 500;
+    private static final int MAX_GAPS = 1_000;
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final String nodeId;
+    private final long pollMillis;
+    private final long gapTimeoutNanos;
+    private final CopyOnWriteArrayList<Consumer<CatalogInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "catalog-invalidation-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Alterados somente pela thread de consulta, depois da inscrição
+    private long lastSequence;
+    // As sequências ainda não vistas abaixo de lastSequence, com o prazo para aparecerem em System.nanoTime()
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    public DatabaseCatalogInvalidationBus(CatalogChangeRepository catalogChangeRepository, String nodeId, long pollMillis, long gapTimeoutMillis) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.nodeId = nodeId;
+        this.pollMillis = pollMillis;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(CatalogInvalidation invalidation) {
+        // A alteração já está no histórico, gravada na transação que a fez
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<CatalogInvalidation> listener) {
+        listeners.add(listener);
+        if (listeners.size() > 1)
+            return;
+
+        // As alterações anteriores à inscrição já estão no banco de dados que as caches vão carregar
+        lastSequence = catalogChangeRepository.findLastSequenceInAllTenants();
+        poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    void poll() {
+        try {
+            var last = catalogChangeRepository.findLastSequenceInAllTenants();
+            if (last < lastSequence || lastSequence < catalogChangeRepository.findFirstSequenceInAllTenants() - 1) {
+                lastSequence = last;
+                gaps.clear();
+                deliver(CatalogInvalidation.reset(null, null));
+                return;
+            }
+
+            pollGaps();
+            while (true) {
+                var changes = catalogChangeRepository.findAllInAllTenantsAfter(lastSequence, POLL_BATCH_SIZE);
+                for (var change : changes) {
+                    addGaps(lastSequence + 1, change.getId());
+                    lastSequence = change.getId();
+                    deliverIfRemote(change);
+                }
+                if (changes.size() < POLL_BATCH_SIZE)
+                    return;
+            }
+        } catch (RuntimeException e) {
+            // Uma falha não pode cancelar as próximas consultas; as alterações são lidas de novo na próxima
+            logger.warn("Failed to poll catalog changes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Entrega as alterações que apareceram nas lacunas e esquece as lacunas vencidas.
+     */
+    private void pollGaps() {
+        if (gaps.isEmpty())
+            return;
+
+        var now = System.nanoTime();
+        gaps.values().removeIf(deadline -> now - deadline >= 0);
+        if (gaps.isEmpty())
+            return;
+
+        for (var change : catalogChangeRepository.findAllInAllTenantsByIdIn(List.copyOf(gaps.keySet()))) {
+            gaps.remove(change.getId());
+            deliverIfRemote(change);
+        }
+    }
+
+    private void addGaps(long from, long to) {
+        var deadline = System.nanoTime() + gapTimeoutNanos;
+        // Um salto maior que MAX_GAPS não vem de transações concorrentes; somente as sequências mais próximas são guardadas
+        for (var id = Math.max(from, to - MAX_GAPS); id < to; id++)
+            gaps.put(id, deadline);
+        while (gaps.size() > MAX_GAPS)
+            gaps.pollFirstEntry();
+    }
+
+    private void deliverIfRemote(CatalogChange change) {
+        if (!nodeId.equals(change.getOriginNode()))
+            deliver(toInvalidation(change));
+    }
+
+    private void deliver(CatalogInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    private static CatalogInvalidation toInvalidation(CatalogChange change) {
+        return new CatalogInvalidation(change.getOriginNode(), change.getTenantId(), change.getEntityType(), change.getEntityId(), change.getChangeType());
+    }
+}
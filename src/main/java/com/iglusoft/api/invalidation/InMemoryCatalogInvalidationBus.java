@@ -0,0 +1,73 @@
+package com.iglusoft.api.invalidation;
+
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Canal de invalidação em memória, que entrega as mensagens a todas as instâncias da aplicação executando na mesma
+ * JVM e inscritas no mesmo canal. Usado nos testes com mais de um contexto do Spring, no lugar do
+ * {@link DatabaseCatalogInvalidationBus}.
+ *
+ * <p>
+ * Cada instância recebe as mensagens numa thread própria, na ordem em que foram publicadas. A entrega não usa a thread
+ * de quem publicou porque ela ainda está terminando a transação da alteração, e o estado da transação é guardado por
+ * thread, não por contexto do Spring.
+ * </p>
+ */
+public class InMemoryCatalogInvalidationBus implements ICatalogInvalidationBus, AutoCloseable {
+    private static final Map<String, Set<InMemoryCatalogInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private final String nodeId;
+    private final CopyOnWriteArrayList<Consumer<CatalogInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "catalog-invalidation-memory");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InMemoryCatalogInvalidationBus(String channel, String nodeId) {
+        this.channel = channel;
+        this.nodeId = nodeId;
+        CHANNELS.computeIfAbsent(channel, it -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(CatalogInvalidation invalidation) {
+        for (var member : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (member != this)
+                member.deliver(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CatalogInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        delivery.shutdownNow();
+        CHANNELS.computeIfPresent(channel, (name, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private void deliver(CatalogInvalidation invalidation) {
+        if (!delivery.isShutdown())
+            delivery.execute(() -> listeners.forEach(listener -> listener.accept(invalidation)));
+    }
+}
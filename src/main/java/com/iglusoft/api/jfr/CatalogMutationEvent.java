@@ -0,0 +1,52 @@
+package com.iglusoft.api.jfr;
+
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder emitido a cada escrita no catálogo feita por {@code IngredientService},
+ * {@code DishService} ou {@code OfferService}.
+ *
+ * <p>
+ * Uso:
+ * </p>
+ * <pre>{@code
+ * var jfrEvent = new CatalogMutationEvent();
+ * jfrEvent.begin();
+ * // ... escrita no catálogo
+ * jfrEvent.end(CatalogEntityType.DISH, dish.getId(), CatalogChangeType.UPDATED);
+ * }</pre>
+ */
+@Name("com.iglusoft.CatalogMutation")
+@Label("Catalog Mutation")
+@Description("Criação, alteração ou remoção de um ingrediente, lanche ou promoção")
+@Category({"Iglu Soft", "Catalog"})
+public class CatalogMutationEvent extends Event {
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Entity Id")
+    public long entityId;
+
+    @Label("Change Type")
+    public String changeType;
+
+    /**
+     * Finaliza o evento e o grava, somente se a gravação atual o habilitar.
+     */
+    public void end(CatalogEntityType entityType, Long entityId, CatalogChangeType changeType) {
+        end();
+        if (shouldCommit()) {
+            this.entityType = entityType.name();
+            this.entityId = entityId != null ? entityId : 0L;
+            this.changeType = changeType.name();
+            commit();
+        }
+    }
+}
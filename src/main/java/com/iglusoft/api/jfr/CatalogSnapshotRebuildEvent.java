@@ -0,0 +1,31 @@
+package com.iglusoft.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder emitido a cada recarga da fotografia do catálogo em memória.
+ */
+@Name("com.iglusoft.CatalogSnapshotRebuild")
+@Label("Catalog Snapshot Rebuild")
+@Description("Recarga da fotografia do catálogo usada no cálculo dos pedidos")
+@Category({"Iglu Soft", "Catalog"})
+@StackTrace(false)
+public class CatalogSnapshotRebuildEvent extends Event {
+
+    @Label("Catalog Version")
+    public long version;
+
+    @Label("Ingredient Count")
+    public int ingredientCount;
+
+    @Label("Dish Count")
+    public int dishCount;
+
+    @Label("Offer Count")
+    public int offerCount;
+}
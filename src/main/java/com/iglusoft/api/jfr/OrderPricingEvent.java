@@ -0,0 +1,38 @@
+package com.iglusoft.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder emitido a cada pedido calculado por {@code OrderService#getOrderResponse}.
+ *
+ * <p>
+ * A duração do evento corresponde ao tempo total do cálculo. Quando a gravação não habilita o evento, ou o
+ * cálculo não ultrapassa o {@code threshold} configurado, os campos não são preenchidos e nada é gravado.
+ * </p>
+ */
+@Name("com.iglusoft.OrderPricing")
+@Label("Order Pricing")
+@Description("Cálculo do preço de um pedido")
+@Category({"Iglu Soft", "Pricing"})
+@StackTrace(false)
+public class OrderPricingEvent extends Event {
+
+    @Label("Dish Count")
+    public int dishCount;
+
+    @Label("Ingredient Count")
+    @Description("Quantidade de ingredientes distintos somando todos os lanches do pedido")
+    public int ingredientCount;
+
+    @Label("Offers Matched")
+    public int offersMatched;
+
+    @Label("Total Price")
+    @Description("Preço final do pedido, em centavos")
+    public long totalPrice;
+}
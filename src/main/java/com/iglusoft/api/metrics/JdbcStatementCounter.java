@@ -0,0 +1,30 @@
+package com.iglusoft.api.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os comandos SQL gerados pelo Hibernate na thread atual.
+ *
+ * <p>
+ * A classe é registrada no Hibernate pela propriedade
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector} e, por ser instanciada pelo próprio
+ * Hibernate, mantém o contador em um {@link ThreadLocal} estático. Quem deseja medir um trecho de código lê
+ * {@link #current()} antes e depois dele e calcula a diferença.
+ * </p>
+ */
+public class JdbcStatementCounter implements StatementInspector {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Retorna a quantidade de comandos SQL executados pela thread atual desde o início dela.
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,57 @@
+package com.iglusoft.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registra, para cada requisição HTTP, quantos comandos SQL foram executados na thread da requisição, na métrica
+ * {@code http.server.requests.jdbc.statements} com as tags {@code method} e {@code uri}.
+ *
+ * <p>
+ * O medidor de cada método e rota é criado na primeira requisição e guardado, então as requisições seguintes não
+ * montam um builder nem procuram o medidor no registro. A rota é o padrão do mapeamento ({@code /dishes/{id}}), e não a
+ * URL, então a quantidade de medidores é limitada pela quantidade de rotas.
+ * </p>
+ */
+@Component
+public class JdbcStatementMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public JdbcStatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var startStatements = JdbcStatementCounter.current();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summaryFor(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN")
+                    .record(JdbcStatementCounter.current() - startStatements);
+        }
+    }
+
+    private DistributionSummary summaryFor(String method, String uri) {
+        return summaries.computeIfAbsent(method + " " + uri, key -> DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .description("Comandos SQL executados por requisição")
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,222 @@
+package com.iglusoft.api.metrics;
+
+import com.iglusoft.api.database.entities.Offer;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.enums.DiscountType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas do cálculo de pedidos, publicadas no {@link MeterRegistry} e expostas em {@code /actuator/metrics}.
+ *
+ * <ul>
+ *     <li>{@code order.pricing}: duração total de cada pedido.</li>
+ *     <li>{@code order.pricing.stage}: duração de cada {@link PricingStage}, por lanche do pedido.</li>
+ *     <li>{@code order.pricing.discount}: duração do cálculo do desconto, por {@link DiscountType}.</li>
+ *     <li>{@code order.pricing.offers}: promoções avaliadas, aceitas e que efetivamente deram desconto, por promoção.</li>
+ *     <li>{@code order.pricing.allocated}: bytes alocados pela thread durante o cálculo de cada pedido.</li>
+ *     <li>{@code order.pricing.jdbc.statements}: comandos SQL executados durante o cálculo de cada pedido.</li>
+ * </ul>
+ *
+ * <p>
+ * Os medidores com tags fixas são criados uma única vez no construtor para que o caminho quente não precise
+ * procurá-los no registro a cada chamada.
+ * </p>
+ *
+ * <p>
+ * Os contadores de {@code order.pricing.offers} têm a tag {@code offer} com o ID da promoção. Para que a quantidade de
+ * medidores não cresça com o catálogo, somente as primeiras {@code iglusoft.metrics.max-tracked-offers} promoções
+ * avaliadas ganham contadores próprios; as demais são somadas nos contadores com {@code offer=other}. Os contadores de
+ * uma promoção removida são retirados do registro depois do commit da remoção.
+ * </p>
+ *
+ * <p>
+ * Os pedidos calculados dentro de {@link #withoutRecording(Supplier)}, como os pedidos sintéticos do aquecimento, não
+ * são registrados, para que as métricas de produção comecem somente com pedidos reais.
+ * </p>
+ */
+@Component
+public class PricingMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final MeterRegistry meterRegistry;
+    private final Timer orderTimer;
+    private final DistributionSummary allocatedBytes;
+    private final DistributionSummary jdbcStatements;
+    private final Map<PricingStage, Timer> stageTimers = new EnumMap<>(PricingStage.class);
+    private final Map<DiscountType, Timer> discountTimers = new EnumMap<>(DiscountType.class);
+    private final Map<Long, OfferCounters> offerCounters = new ConcurrentHashMap<>();
+    private final OfferCounters otherOfferCounters;
+    private final int maxTrackedOffers;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public PricingMetrics(MeterRegistry meterRegistry, @Value("${iglusoft.metrics.max-tracked-offers:200}") int maxTrackedOffers) {
+        this.meterRegistry = meterRegistry;
+        this.maxTrackedOffers = maxTrackedOffers;
+        this.otherOfferCounters = new OfferCounters(meterRegistry, "other");
+
+        this.orderTimer = Timer.builder("order.pricing")
+                .description("Duração do cálculo de um pedido")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.allocatedBytes = DistributionSummary.builder("order.pricing.allocated")
+                .description("Bytes alocados durante o cálculo de um pedido")
+                .baseUnit("bytes")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+        this.jdbcStatements = DistributionSummary.builder("order.pricing.jdbc.statements")
+                .description("Comandos SQL executados durante o cálculo de um pedido")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+
+        for (var stage : PricingStage.values()) {
+            stageTimers.put(stage, Timer.builder("order.pricing.stage")
+                    .description("Duração de cada etapa do cálculo de um lanche do pedido")
+                    .tag("stage", stage.getTag())
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry));
+        }
+        for (var discountType : DiscountType.values()) {
+            discountTimers.put(discountType, Timer.builder("order.pricing.discount")
+                    .description("Duração do cálculo do desconto de uma promoção")
+                    .tag("discount.type", discountType.name())
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry));
+        }
+
+        var bean = ManagementFactory.getThreadMXBean();
+        this.threadMXBean = bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()
+                ? sunBean : null;
+    }
+
+    public void recordStage(PricingStage stage, long nanos) {
+        if (!isRecording())
+            return;
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDiscount(DiscountType discountType, long nanos) {
+        if (!isRecording())
+            return;
+        discountTimers.get(discountType).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOrder(long nanos, long allocatedBytes, long jdbcStatements) {
+        if (!isRecording())
+            return;
+        this.orderTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (allocatedBytes >= 0)
+            this.allocatedBytes.record(allocatedBytes);
+        this.jdbcStatements.record(jdbcStatements);
+    }
+
+    public void offerEvaluated(Offer offer) {
+        if (!isRecording())
+            return;
+        countersFor(offer).evaluated.increment();
+    }
+
+    public void offerMatched(Offer offer) {
+        if (!isRecording())
+            return;
+        countersFor(offer).matched.increment();
+    }
+
+    public void offerDiscountApplied(Offer offer) {
+        if (!isRecording())
+            return;
+        countersFor(offer).discountApplied.increment();
+    }
+
+    /**
+     * Executa {@code action} sem registrar nenhuma métrica de cálculo de pedidos na thread atual.
+     */
+    public <T> T withoutRecording(Supplier<T> action) {
+        var previous = SUPPRESSED.get();
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            SUPPRESSED.set(previous);
+        }
+    }
+
+    /**
+     * Indica se os cálculos de pedidos da thread atual devem ser registrados, ou seja, se ela não está dentro de
+     * {@link #withoutRecording(Supplier)}.
+     */
+    public boolean isRecording() {
+        return !SUPPRESSED.get();
+    }
+
+    /**
+     * Retira do registro os contadores de uma promoção removida.
+     */
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.entityType() != CatalogEntityType.OFFER || event.changeType() != CatalogChangeType.DELETED)
+            return;
+        var counters = offerCounters.remove(event.entityId());
+        if (counters != null)
+            counters.removeFrom(meterRegistry);
+    }
+
+    /**
+     * Retorna a quantidade de bytes já alocados pela thread atual, ou {@code -1} se a JVM não oferecer essa medida.
+     */
+    public long currentThreadAllocatedBytes() {
+        return threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1L;
+    }
+
+    private OfferCounters countersFor(Offer offer) {
+        var counters = offerCounters.get(offer.getId());
+        if (counters != null)
+            return counters;
+        // O limite é aproximado: promoções avaliadas ao mesmo tempo podem passar dele por poucas unidades
+        if (offerCounters.size() >= maxTrackedOffers)
+            return otherOfferCounters;
+        return offerCounters.computeIfAbsent(offer.getId(), id -> new OfferCounters(meterRegistry, String.valueOf(id)));
+    }
+
+    private static final class OfferCounters {
+        private final Counter evaluated;
+        private final Counter matched;
+        private final Counter discountApplied;
+
+        private OfferCounters(MeterRegistry meterRegistry, String offerTag) {
+            this.evaluated = counter(meterRegistry, offerTag, "evaluated");
+            this.matched = counter(meterRegistry, offerTag, "matched");
+            this.discountApplied = counter(meterRegistry, offerTag, "discount_applied");
+        }
+
+        private void removeFrom(MeterRegistry meterRegistry) {
+            meterRegistry.remove(evaluated);
+            meterRegistry.remove(matched);
+            meterRegistry.remove(discountApplied);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String offerTag, String outcome) {
+            return Counter.builder("order.pricing.offers")
+                    .description("Promoções avaliadas durante o cálculo de pedidos")
+                    .tag("offer", offerTag)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
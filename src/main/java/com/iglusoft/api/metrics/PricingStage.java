@@ -0,0 +1,22 @@
+package com.iglusoft.api.metrics;
+
+/**
+ * Etapas do cálculo de um lanche do pedido, usadas como tag das métricas de {@link PricingMetrics}.
+ */
+public enum PricingStage {
+    DISH_LOAD("dish_load"),
+    INGREDIENT_COMBINING("ingredient_combining"),
+    BASE_TOTAL("base_total"),
+    OFFER_FILTERING("offer_filtering"),
+    RESPONSE_ASSEMBLY("response_assembly");
+
+    private final String tag;
+
+    PricingStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
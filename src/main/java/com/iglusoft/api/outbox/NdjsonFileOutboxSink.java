@@ -0,0 +1,85 @@
+package com.iglusoft.api.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.interfaces.IOutboxSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Destino do outbox que acrescenta os eventos a um arquivo NDJSON, um evento JSON por linha. É usado nos testes e
+ * como destino local quando não há um sistema de mensagens.
+ *
+ * <p>
+ * Cada lote é escrito de uma vez e gravado no disco ({@link FileChannel#force(boolean)}) antes de retornar, então um
+ * lote confirmado não se perde se a máquina parar. Se a escrita falhar no meio do lote, as linhas já escritas ficam no
+ * arquivo e o lote inteiro é escrito de novo na próxima tentativa.
+ * </p>
+ */
+public class NdjsonFileOutboxSink implements IOutboxSink, AutoCloseable {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+
+    public NdjsonFileOutboxSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        var lines = new StringBuilder();
+        try {
+            for (var message : messages)
+                lines.append(objectMapper.writeValueAsString(message)).append('\n');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize an outbox event.", e);
+        }
+
+        try {
+            var buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            var file = channel();
+            while (buffer.hasRemaining())
+                file.write(buffer);
+            file.force(false);
+        } catch (IOException e) {
+            // O arquivo é reaberto na próxima tentativa
+            close();
+            throw new UncheckedIOException("Failed to write outbox events to " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // O canal já não pode ser usado
+        }
+        channel = null;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            var parent = path.toAbsolutePath().getParent();
+            if (parent != null)
+                Files.createDirectories(parent);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,32 @@
+package com.iglusoft.api.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.iglusoft.api.database.entities.OutboxEvent;
+
+import java.time.Instant;
+
+/**
+ * Um evento do outbox entregue a um {@link com.iglusoft.api.interfaces.IOutboxSink}.
+ *
+ * @param id            O número de sequência do evento. Um evento pode ser entregue mais de uma vez, sempre com o
+ *                      mesmo ID, que os sistemas externos usam para descartar as repetições.
+ * @param tenantId      O restaurante em que o evento aconteceu.
+ * @param aggregateType O tipo do agregado: {@code INGREDIENT}, {@code DISH}, {@code OFFER} ou {@code ORDER}.
+ * @param aggregateId   O ID do agregado. Os eventos de um mesmo agregado são entregues na ordem em que aconteceram.
+ * @param eventType     O tipo do evento, por exemplo {@code UPDATED} ou {@code PLACED}.
+ * @param payload       O conteúdo do evento, em JSON.
+ * @param createdAt     O momento em que o evento foi gravado.
+ */
+public record OutboxMessage(
+        long id,
+        String tenantId,
+        String aggregateType,
+        String aggregateId,
+        String eventType,
+        @JsonRawValue String payload,
+        Instant createdAt
+) {
+    public OutboxMessage(OutboxEvent event) {
+        this(event.getId(), event.getTenantId(), event.getAggregateType(), event.getAggregateId(), event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,336 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.entities.CatalogChange;
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.database.repositories.DishRepository;
+import com.iglusoft.api.database.repositories.IngredientRepository;
+import com.iglusoft.api.database.repositories.OfferRepository;
+import com.iglusoft.api.dtos.CatalogChangeEventDto;
+import com.iglusoft.api.dtos.CatalogChangesDto;
+import com.iglusoft.api.dtos.CatalogTombstoneDto;
+import com.iglusoft.api.dtos.DishDto;
+import com.iglusoft.api.dtos.IngredientDto;
+import com.iglusoft.api.dtos.OfferDto;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+import com.iglusoft.api.tenancy.TenantContext;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantém o histórico de alterações do catálogo e monta as respostas de sincronização incremental.
+ *
+ * <p>
+ * Cada alteração em ingredientes, lanches ou promoções é gravada na tabela {@code CATALOG_CHANGE} dentro da mesma
+ * transação da alteração; o ID gerado é o número de sequência usado pelos clientes para pedir apenas o que mudou.
+ * O histórico é podado periodicamente, mantendo somente as últimas {@code iglusoft.catalog-changes.retention}
+ * alterações.
+ * </p>
+ *
+ * <p>
+ * Cada linha guarda a instância de origem ({@link ICatalogInvalidationBus#nodeId()}); o histórico também é o canal
+ * pelo qual as outras instâncias ficam sabendo da alteração, veja o
+ * {@link com.iglusoft.api.invalidation.DatabaseCatalogInvalidationBus}.
+ * </p>
+ *
+ * <p>
+ * Cada instância só ordena os seus próprios commits, então uma sequência menor de outra instância pode ficar visível
+ * depois de uma maior. A sincronização incremental e o fluxo de alterações nunca passam da
+ * {@linkplain #findSettledSequence() sequência assentada}, abaixo da qual não há lacunas ainda pendentes, para que um
+ * cliente não avance a sua sequência além de uma alteração que ainda vai aparecer.
+ * </p>
+ *
+ * <p>
+ * Junto com a linha do histórico, a alteração é gravada no outbox ({@link OutboxService}), na mesma transação, para
+ * ser enviada aos sistemas externos. A substituição do catálogo inteiro é gravada como um único evento
+ * {@link OutboxService#CATALOG_IMPORTED} do agregado {@link OutboxService#CATALOG_AGGREGATE} do restaurante, e não
+ * como um evento por entidade.
+ * </p>
+ */
+@Service
+public class CatalogChangeLogService {
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final DishRepository dishRepository;
+    private final OfferRepository offerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ICatalogInvalidationBus invalidationBus;
+    private final OutboxService outboxService;
+    private final long retention;
+    private final Duration gapTimeout;
+    private final Clock clock = Clock.systemUTC();
+
+    // Garante que as sequências fiquem visíveis na mesma ordem em que foram geradas
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    public CatalogChangeLogService(
+            CatalogChangeRepository catalogChangeRepository,
+            IngredientRepository ingredientRepository,
+            DishRepository dishRepository,
+            OfferRepository offerRepository,
+            ApplicationEventPublisher eventPublisher,
+            ICatalogInvalidationBus invalidationBus,
+            OutboxService outboxService,
+            @Value("${iglusoft.catalog-changes.retention:1000}") long retention,
+            @Value("${iglusoft.invalidation.gap-timeout-millis:60000}") long gapTimeoutMillis) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.dishRepository = dishRepository;
+        this.offerRepository = offerRepository;
+        this.eventPublisher = eventPublisher;
+        this.invalidationBus = invalidationBus;
+        this.outboxService = outboxService;
+        this.retention = retention;
+        this.gapTimeout = Duration.ofMillis(gapTimeoutMillis);
+    }
+
+    /**
+     * Registra uma alteração no catálogo e publica o {@link CatalogChangedEvent} correspondente.
+     *
+     * @param entityType O tipo da entidade alterada.
+     * @param entityId   O ID da entidade alterada.
+     * @param changeType O tipo de alteração.
+     *
+     * <p>
+     * Deve ser chamado dentro da transação que alterou a entidade. A linha do histórico é inserida no
+     * {@code beforeCommit} da transação, sob um lock mantido até o fim do commit.
+     * </p>
+     *
+     * <p><strong>Decisões de Design:</strong></p>
+     * <ul>
+     *     <li>Uma sequência gerada no meio da transação poderia ficar visível depois de uma sequência maior de
+     *     outra transação que fez commit antes. Um cliente que já tivesse lido a maior perderia a menor para sempre.
+     *     Gerar a sequência somente no commit, um commit por vez, elimina essa janela entre as transações desta
+     *     instância; entre instâncias, ela é coberta pela {@linkplain #findSettledSequence() sequência assentada}.</li>
+     *     <li>O lock só cobre a inserção e o commit, não o restante da transação, então escritas concorrentes
+     *     continuam executando em paralelo até o final.</li>
+     * </ul>
+     */
+    public void record(CatalogEntityType entityType, Long entityId, CatalogChangeType changeType) {
+        eventPublisher.publishEvent(new CatalogChangedEvent(entityType, entityId, changeType));
+        saveAtCommit(entityType, entityId, changeType);
+    }
+
+    /**
+     * Registra a substituição do catálogo inteiro do restaurante atual, como numa importação da fotografia.
+     *
+     * <p>
+     * Deve ser chamado dentro da transação que substituiu o catálogo. A linha {@link CatalogChangeType#RESET} recebe
+     * uma sequência maior que todas as anteriores, então todo cliente sincronizado antes da substituição recebe o
+     * catálogo inteiro em {@link #getChangesSince(Long)}, e as outras instâncias descartam as suas caches ao lê-la.
+     * </p>
+     */
+    public void recordReset() {
+        saveAtCommit(null, null, CatalogChangeType.RESET);
+    }
+
+    private void saveAtCommit(CatalogEntityType entityType, Long entityId, CatalogChangeType changeType) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            saveChange(entityType, entityId, changeType);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.lock();
+                locked = true;
+                saveChange(entityType, entityId, changeType);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked)
+                    commitLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Retorna as alterações do catálogo posteriores à sequência informada.
+     *
+     * @param since A última sequência conhecida pelo cliente, ou {@code null} se o cliente não possui cópia local.
+     * @return Um {@link CatalogChangesDto} com apenas o estado mais recente de cada entidade alterada, ou com o
+     *         catálogo inteiro quando o histórico não cobre a sequência informada.
+     *
+     * <p>
+     * O catálogo inteiro é enviado quando:
+     * </p>
+     * <ul>
+     *     <li>{@code since} não foi informado.</li>
+     *     <li>{@code since} é anterior à primeira alteração ainda mantida no histórico.</li>
+     *     <li>{@code since} é maior que a última alteração registrada, o que indica uma cópia de outro banco de dados.</li>
+     *     <li>O catálogo foi substituído depois de {@code since} ({@link #recordReset()}).</li>
+     * </ul>
+     *
+     * <p><strong>Exemplo de uso:</strong></p>
+     * <pre>{@code
+     * CatalogChangesDto changes = catalogChangeLogService.getChangesSince(42L);
+     * if (changes.fullSnapshot())
+     *     localCatalog.clear();
+     * localCatalog.apply(changes);
+     * lastSequence = changes.sequence();
+     * }</pre>
+     *
+     * <p><strong>Decisões de Design:</strong></p>
+     * <ul>
+     *     <li>O histórico é lido antes das entidades. Se uma alteração acontecer entre as duas leituras, o cliente
+     *     recebe um estado mais novo que a sequência e a mesma alteração é enviada de novo na próxima chamada;
+     *     como as entradas são idempotentes, reaplicá-las não causa problemas.</li>
+     *     <li>Uma entidade cuja última alteração não é uma remoção, mas que não existe mais, é enviada como remoção.</li>
+     *     <li>Somente as alterações até a {@linkplain #findSettledSequence() sequência assentada} são enviadas, e a
+     *     sequência do catálogo inteiro também não passa dela. As alterações posteriores a uma lacuna pendente ficam
+     *     para a próxima chamada, depois que a lacuna aparecer ou vencer.</li>
+     * </ul>
+     */
+    @Transactional
+    public CatalogChangesDto getChangesSince(Long since) {
+        var lastSequence = catalogChangeRepository.findLastSequence();
+        var settledSequence = findSettledSequence();
+        if (since == null || since > lastSequence || since < catalogChangeRepository.findFirstSequence() - 1)
+            return getFullSnapshot(Math.min(lastSequence, settledSequence));
+
+        var changes = catalogChangeRepository.findAllByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(since, settledSequence);
+        if (changes.isEmpty())
+            return new CatalogChangesDto(since, false, List.of(), List.of(), List.of(), List.of());
+        if (changes.stream().anyMatch(it -> it.getChangeType() == CatalogChangeType.RESET))
+            return getFullSnapshot(Math.min(lastSequence, settledSequence));
+
+        // Mantém somente a última alteração de cada entidade
+        Map<CatalogEntityType, Map<Long, CatalogChangeType>> latest = new EnumMap<>(CatalogEntityType.class);
+        changes.forEach(it -> latest.computeIfAbsent(it.getEntityType(), type -> new LinkedHashMap<>())
+                .put(it.getEntityId(), it.getChangeType()));
+
+        var deleted = new ArrayList<CatalogTombstoneDto>();
+        var ingredientIds = upsertedIds(latest, CatalogEntityType.INGREDIENT, deleted);
+        var dishIds = upsertedIds(latest, CatalogEntityType.DISH, deleted);
+        var offerIds = upsertedIds(latest, CatalogEntityType.OFFER, deleted);
+
+        var ingredients = ingredientIds.isEmpty() ? List.<IngredientDto>of() :
+                ingredientRepository.findAllById(ingredientIds).stream().map(IngredientDto::new).toList();
+        var dishes = dishIds.isEmpty() ? List.<DishDto>of() :
+                dishRepository.findAllWithIngredientsByIdIn(dishIds).stream().map(DishDto::new).toList();
+        List<OfferDto> offers = List.of();
+        if (!offerIds.isEmpty()) {
+            offerRepository.findAllWithRequiredIngredientsByIdIn(offerIds);
+            offers = offerRepository.findAllWithExcludedIngredientsByIdIn(offerIds).stream().map(OfferDto::new).toList();
+        }
+
+        addMissingAsDeleted(CatalogEntityType.INGREDIENT, ingredientIds, ingredients.stream().map(IngredientDto::getId).toList(), deleted);
+        addMissingAsDeleted(CatalogEntityType.DISH, dishIds, dishes.stream().map(DishDto::getId).toList(), deleted);
+        addMissingAsDeleted(CatalogEntityType.OFFER, offerIds, offers.stream().map(OfferDto::getId).toList(), deleted);
+
+        var sequence = changes.get(changes.size() - 1).getId();
+        return new CatalogChangesDto(sequence, false, ingredients, dishes, offers, deleted);
+    }
+
+    /**
+     * Retorna a sequência assentada: a maior sequência até a qual toda sequência do histórico, de todos os
+     * restaurantes, já está visível ou pertence a uma transação considerada desfeita.
+     *
+     * <p>
+     * As sequências são geradas na inserção da linha do histórico, imediatamente antes do commit. Uma sequência que
+     * falta entre duas visíveis pode ser de uma transação de outra instância que ainda não terminou o commit, e só é
+     * considerada desfeita quando a linha seguinte a ela foi gravada há mais de
+     * {@code iglusoft.invalidation.gap-timeout-millis}, o mesmo prazo usado pelo
+     * {@link com.iglusoft.api.invalidation.DatabaseCatalogInvalidationBus}. Até lá, a sequência assentada para
+     * imediatamente antes da lacuna.
+     * </p>
+     *
+     * <p><strong>Decisões de Design:</strong></p>
+     * <ul>
+     *     <li>O prazo é calculado pelo instante gravado em cada linha, e não por um estado em memória, então todas as
+     *     instâncias chegam à mesma sequência e a sincronização incremental continua sem estado entre as chamadas.
+     *     A diferença entre os relógios das instâncias altera o prazo na mesma medida.</li>
+     *     <li>Somente as linhas gravadas dentro do prazo são lidas: toda lacuna anterior à última linha mais antiga que
+     *     o prazo já venceu.</li>
+     *     <li>Uma transação desta instância desfeita depois de gravar a linha do histórico também deixa uma lacuna, e
+     *     as alterações posteriores a ela esperam o prazo.</li>
+     * </ul>
+     */
+    public long findSettledSequence() {
+        var settled = Math.max(
+                catalogChangeRepository.findLastSequenceInAllTenantsChangedUpTo(clock.instant().minus(gapTimeout)),
+                catalogChangeRepository.findFirstSequenceInAllTenants() - 1);
+        for (var sequence : catalogChangeRepository.findSequencesInAllTenantsAfter(settled)) {
+            if (sequence != settled + 1)
+                break;
+            settled = sequence;
+        }
+        return settled;
+    }
+
+    /**
+     * Remove do histórico as alterações mais antigas, mantendo somente as últimas {@code retainedChanges} somando
+     * todos os restaurantes.
+     *
+     * @return A quantidade de alterações removidas.
+     */
+    @Transactional
+    public int prune(long retainedChanges) {
+        return catalogChangeRepository.deleteAllUpTo(catalogChangeRepository.findLastSequenceInAllTenants() - retainedChanges);
+    }
+
+    @Transactional
+    @Scheduled(
+            initialDelayString = "${iglusoft.catalog-changes.prune-interval-millis:60000}",
+            fixedDelayString = "${iglusoft.catalog-changes.prune-interval-millis:60000}")
+    public void pruneHistory() {
+        prune(retention);
+    }
+
+    private void saveChange(CatalogEntityType entityType, Long entityId, CatalogChangeType changeType) {
+        var change = catalogChangeRepository.save(new CatalogChange(entityType, entityId, changeType, clock.instant(), invalidationBus.nodeId()));
+        if (entityType != null)
+            outboxService.append(entityType.name(), String.valueOf(entityId), changeType.name(), new CatalogChangeEventDto(change));
+        else
+            outboxService.append(OutboxService.CATALOG_AGGREGATE, TenantContext.current(), OutboxService.CATALOG_IMPORTED, new CatalogChangeEventDto(change));
+    }
+
+    private CatalogChangesDto getFullSnapshot(long sequence) {
+        offerRepository.findAllWithRequiredIngredients();
+        var offers = offerRepository.findAllWithExcludedIngredients().stream().map(OfferDto::new).toList();
+        var ingredients = ingredientRepository.findAll().stream().map(IngredientDto::new).toList();
+        var dishes = dishRepository.findAllWithIngredients().stream().map(DishDto::new).toList();
+
+        return new CatalogChangesDto(sequence, true, ingredients, dishes, offers, List.of());
+    }
+
+    private static List<Long> upsertedIds(
+            Map<CatalogEntityType, Map<Long, CatalogChangeType>> latest,
+            CatalogEntityType entityType,
+            List<CatalogTombstoneDto> deleted) {
+        var ids = new ArrayList<Long>();
+        latest.getOrDefault(entityType, Map.of()).forEach((id, changeType) -> {
+            if (changeType == CatalogChangeType.DELETED)
+                deleted.add(new CatalogTombstoneDto(entityType, id));
+            else
+                ids.add(id);
+        });
+        return ids;
+    }
+
+    private static void addMissingAsDeleted(CatalogEntityType entityType, List<Long> requested, List<Long> found, List<CatalogTombstoneDto> deleted) {
+        if (requested.size() == found.size())
+            return;
+        requested.stream().filter(id -> !found.contains(id)).forEach(id -> deleted.add(new CatalogTombstoneDto(entityType, id)));
+    }
+}
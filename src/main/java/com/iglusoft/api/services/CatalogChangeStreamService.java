@@ -0,0 +1,396 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.dtos.CatalogChangeEventDto;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import com.iglusoft.api.tenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Envia as alterações do catálogo aos clientes inscritos via Server-Sent Events.
+ *
+ * <p>
+ * As conexões são mantidas pelo suporte assíncrono do servlet ({@link SseEmitter}), sem uma thread por cliente.
+ * Uma única thread de despacho lê as novas alterações do histórico mantido pelo {@link CatalogChangeLogService} e as
+ * coloca na fila limitada de cada inscrito; um pequeno grupo de threads de escrita esvazia as filas nas conexões.
+ * Um inscrito cuja fila enche, por ler mais devagar do que o catálogo muda, é desconectado e deve se reconectar
+ * informando o {@code Last-Event-ID}.
+ * </p>
+ *
+ * <p>
+ * A escrita na conexão é bloqueante: um cliente que para de ler prende a thread de escrita até o buffer do socket
+ * esvaziar. Um envio que passa de {@code iglusoft.catalog-stream.send-timeout-millis} faz o inscrito ser desconectado
+ * (a conexão é encerrada com erro e a thread de escrita é interrompida), para que poucos clientes lentos não ocupem
+ * todas as threads de escrita e atrasem os demais.
+ * </p>
+ *
+ * <p>
+ * O ID de cada evento é a sequência da alteração no histórico. Na reconexão, as alterações posteriores ao
+ * {@code Last-Event-ID} são reenviadas; se elas já tiverem sido removidas do histórico, o cliente recebe um evento
+ * {@code catalog-reset} e deve se sincronizar pelo {@code GET /catalog/changes}.
+ * </p>
+ *
+ * <p>
+ * Somente as alterações até a {@linkplain CatalogChangeLogService#findSettledSequence() sequência assentada} são
+ * enviadas. Uma alteração posterior a uma sequência que outra instância ainda não confirmou fica retida, porque o
+ * {@code Last-Event-ID} do cliente passaria da alteração pendente e ela nunca seria enviada. As alterações retidas são
+ * enviadas a cada {@code iglusoft.invalidation.poll-millis}, assim que a lacuna aparece ou vence.
+ * </p>
+ *
+ * <p>
+ * Cada inscrito pertence ao restaurante (tenant) da requisição de inscrição e recebe somente as alterações do
+ * catálogo desse restaurante.
+ * </p>
+ */
+@Service
+public class CatalogChangeStreamService {
+    public static final String CHANGE_EVENT = "catalog-change";
+    public static final String RESET_EVENT = "catalog-reset";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeStreamService.class);
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final CatalogChangeLogService catalogChangeLogService;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Counter droppedSubscribers;
+    private final Counter slowSubscribers;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final ExecutorService writers;
+
+    // Indica que a última leitura do histórico deixou alterações depois da sequência assentada
+    private volatile boolean heldBack;
+
+    public CatalogChangeStreamService(
+            CatalogChangeRepository catalogChangeRepository,
+            CatalogChangeLogService catalogChangeLogService,
+            MeterRegistry meterRegistry,
+            @Value("${iglusoft.catalog-stream.buffer-size:256}") int bufferSize,
+            @Value("${iglusoft.catalog-stream.timeout-millis:1800000}") long timeoutMillis,
+            @Value("${iglusoft.catalog-stream.writer-threads:4}") int writerThreads,
+            @Value("${iglusoft.catalog-stream.send-timeout-millis:5000}") long sendTimeoutMillis) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.catalogChangeLogService = catalogChangeLogService;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+
+        var threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "catalog-stream-dispatcher"));
+        this.writers = Executors.newFixedThreadPool(writerThreads,
+                runnable -> daemon(runnable, "catalog-stream-writer-" + threadCount.incrementAndGet()));
+
+        Gauge.builder("catalog.stream.subscribers", subscribers, Set::size)
+                .description("Clientes inscritos no fluxo de alterações do catálogo")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("catalog.stream.dropped")
+                .description("Clientes desconectados por não acompanharem o fluxo de alterações")
+                .register(meterRegistry);
+        this.slowSubscribers = Counter.builder("catalog.stream.send.timeouts")
+                .description("Clientes desconectados por um envio que passou do tempo limite")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Inscreve um novo cliente no fluxo de alterações.
+     *
+     * @param lastEventId A última sequência recebida pelo cliente, ou {@code null} para receber apenas as
+     *                    alterações a partir de agora.
+     * @return O {@link SseEmitter} da conexão.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        var subscriber = new Subscriber(new SseEmitter(timeoutMillis), bufferSize, TenantContext.current());
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+
+        // A inscrição é feita pela thread de despacho, então nenhuma alteração é perdida ou enviada duas vezes
+        dispatcher.execute(() -> TenantContext.run(subscriber.tenantId, () -> register(subscriber, lastEventId)));
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        dispatchChanges();
+    }
+
+    /**
+     * Envia aos inscritos as alterações gravadas no histórico que eles ainda não receberam, inclusive as feitas por
+     * outras instâncias da aplicação.
+     */
+    public void dispatchChanges() {
+        dispatcher.execute(this::dispatch);
+    }
+
+    /**
+     * Envia as alterações retidas na última leitura do histórico, depois que a lacuna que as retinha apareceu ou venceu.
+     */
+    @Scheduled(
+            initialDelayString = "${iglusoft.invalidation.poll-millis:1000}",
+            fixedDelayString = "${iglusoft.invalidation.poll-millis:1000}")
+    public void dispatchHeldBackChanges() {
+        if (heldBack)
+            dispatchChanges();
+    }
+
+    /**
+     * Envia um {@code catalog-reset} aos inscritos do restaurante atual, depois de uma substituição do catálogo.
+     */
+    public void reset() {
+        var tenantId = TenantContext.current();
+        dispatcher.execute(() -> TenantContext.run(tenantId, () -> sendReset(tenantId)));
+    }
+
+    /**
+     * Envia um {@code catalog-reset} aos inscritos de todos os restaurantes.
+     */
+    public void resetAll() {
+        dispatcher.execute(() -> subscribersByTenant().keySet()
+                .forEach(tenantId -> TenantContext.run(tenantId, () -> sendReset(tenantId))));
+    }
+
+    @Scheduled(
+            initialDelayString = "${iglusoft.catalog-stream.heartbeat-millis:15000}",
+            fixedDelayString = "${iglusoft.catalog-stream.heartbeat-millis:15000}")
+    public void sendHeartbeat() {
+        // Mantém a conexão aberta em proxies e detecta clientes que já se desconectaram
+        dispatcher.execute(() -> subscribers.forEach(it -> enqueue(it, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * Desconecta os inscritos com um envio em andamento há mais de {@code iglusoft.catalog-stream.send-timeout-millis}.
+     */
+    @Scheduled(
+            initialDelayString = "${iglusoft.catalog-stream.send-timeout-millis:5000}",
+            fixedDelayString = "${iglusoft.catalog-stream.send-timeout-millis:5000}")
+    public void dropSlowSubscribers() {
+        var now = System.nanoTime();
+        for (var subscriber : subscribers) {
+            var startedNanos = subscriber.sendStartedNanos;
+            if (startedNanos != 0 && now - startedNanos > sendTimeoutNanos)
+                dropSlow(subscriber);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(it -> it.emitter.complete());
+    }
+
+    private void register(Subscriber subscriber, Long lastEventId) {
+        var lastSequence = catalogChangeRepository.findLastSequence();
+        var settledSequence = catalogChangeLogService.findSettledSequence();
+        var currentSequence = Math.min(lastSequence, settledSequence);
+        if (lastEventId == null || lastEventId > lastSequence) {
+            subscriber.lastSequence = currentSequence;
+        } else if (lastEventId < catalogChangeRepository.findFirstSequence() - 1) {
+            subscriber.lastSequence = currentSequence;
+            enqueue(subscriber, SseEmitter.event().id(Long.toString(currentSequence)).name(RESET_EVENT).data(currentSequence));
+        } else {
+            subscriber.lastSequence = lastEventId;
+            enqueueChanges(subscriber, lastEventId, settledSequence);
+        }
+        if (lastSequence > settledSequence)
+            heldBack = true;
+
+        if (!subscriber.dropped)
+            subscribers.add(subscriber);
+    }
+
+    private void sendReset(String tenantId) {
+        var lastSequence = Math.min(catalogChangeRepository.findLastSequence(), catalogChangeLogService.findSettledSequence());
+        for (var subscriber : subscribers) {
+            if (!subscriber.tenantId.equals(tenantId))
+                continue;
+            subscriber.lastSequence = lastSequence;
+            enqueue(subscriber, SseEmitter.event().id(Long.toString(lastSequence)).name(RESET_EVENT).data(lastSequence));
+        }
+    }
+
+    private void dispatch() {
+        heldBack = false;
+        var byTenant = subscribersByTenant();
+        if (byTenant.isEmpty())
+            return;
+
+        var settledSequence = catalogChangeLogService.findSettledSequence();
+        // O histórico é lido com o tenant de cada grupo de inscritos, então cada um recebe só o seu catálogo
+        byTenant.forEach((tenantId, tenantSubscribers) ->
+                TenantContext.run(tenantId, () -> dispatch(tenantSubscribers, settledSequence)));
+    }
+
+    private void dispatch(List<Subscriber> tenantSubscribers, long settledSequence) {
+        var since = tenantSubscribers.stream().mapToLong(it -> it.lastSequence).min().orElseThrow();
+        var changes = new ArrayList<CatalogChangeEventDto>();
+        for (var change : catalogChangeRepository.findAllByIdGreaterThanOrderByIdAsc(since)) {
+            if (change.getId() > settledSequence) {
+                heldBack = true;
+                break;
+            }
+            changes.add(new CatalogChangeEventDto(change));
+        }
+        if (changes.isEmpty())
+            return;
+
+        for (var subscriber : tenantSubscribers) {
+            for (var change : changes) {
+                if (change.sequence() > subscriber.lastSequence && !subscriber.dropped) {
+                    enqueue(subscriber, toEvent(change));
+                    subscriber.lastSequence = change.sequence();
+                }
+            }
+        }
+    }
+
+    private void enqueueChanges(Subscriber subscriber, long since, long settledSequence) {
+        for (var change : catalogChangeRepository.findAllByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(since, settledSequence)) {
+            if (subscriber.dropped)
+                return;
+            enqueue(subscriber, toEvent(new CatalogChangeEventDto(change)));
+            subscriber.lastSequence = change.getId();
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            drop(subscriber);
+            return;
+        }
+        if (subscriber.writing.compareAndSet(false, true))
+            writers.execute(() -> write(subscriber));
+    }
+
+    private void write(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.writer = Thread.currentThread();
+        }
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.dropped && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedNanos = System.nanoTime();
+                subscriber.emitter.send(event);
+                subscriber.sendStartedNanos = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Catalog stream subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.dropped = true;
+            subscriber.queue.clear();
+            return;
+        } finally {
+            subscriber.sendStartedNanos = 0;
+            synchronized (subscriber) {
+                subscriber.writer = null;
+                // Uma interrupção destinada a este inscrito não pode atingir o próximo envio da thread
+                Thread.interrupted();
+            }
+            subscriber.writing.set(false);
+        }
+
+        // Um evento pode ter entrado na fila depois do último poll e antes de liberar a escrita
+        if (!subscriber.queue.isEmpty() && subscriber.writing.compareAndSet(false, true))
+            writers.execute(() -> write(subscriber));
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscriber.dropped)
+            return;
+
+        subscriber.dropped = true;
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        droppedSubscribers.increment();
+        subscriber.emitter.complete();
+    }
+
+    private void dropSlow(Subscriber subscriber) {
+        if (subscriber.dropped)
+            return;
+
+        subscriber.dropped = true;
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        slowSubscribers.increment();
+        logger.debug("Catalog stream subscriber dropped after a send timeout");
+        subscriber.emitter.completeWithError(new TimeoutException("The catalog stream send timed out."));
+        synchronized (subscriber) {
+            if (subscriber.writer != null)
+                subscriber.writer.interrupt();
+        }
+    }
+
+    private Map<String, List<Subscriber>> subscribersByTenant() {
+        return subscribers.stream().collect(Collectors.groupingBy(it -> it.tenantId));
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(CatalogChangeEventDto change) {
+        // Uma substituição do catálogo chega ao cliente como um catalog-reset, e não como uma alteração
+        if (change.changeType() == CatalogChangeType.RESET)
+            return SseEmitter.event().id(Long.toString(change.sequence())).name(RESET_EVENT).data(change.sequence());
+        return SseEmitter.event().id(Long.toString(change.sequence())).name(CHANGE_EVENT).data(change);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final String tenantId;
+        private volatile boolean dropped;
+
+        // Instante em que o envio em andamento começou, ou 0 sem envio em andamento
+        private volatile long sendStartedNanos;
+
+        // A thread que está escrevendo para o inscrito, protegida pelo monitor do inscrito
+        private Thread writer;
+
+        // Alterado somente pela thread de despacho
+        private volatile long lastSequence;
+
+        private Subscriber(SseEmitter emitter, int bufferSize, String tenantId) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.tenantId = tenantId;
+        }
+    }
+}
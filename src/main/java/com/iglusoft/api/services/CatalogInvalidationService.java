@@ -0,0 +1,135 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.repositories.DishRepository;
+import com.iglusoft.api.database.repositories.EntityNameView;
+import com.iglusoft.api.database.repositories.IngredientRepository;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+import com.iglusoft.api.invalidation.CatalogInvalidation;
+import com.iglusoft.api.tenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Mantém as caches em memória desta instância coerentes com as alterações no catálogo feitas pelas outras instâncias
+ * da aplicação que compartilham o mesmo banco de dados.
+ *
+ * <p>
+ * Cada alteração confirmada nesta instância é publicada no {@link ICatalogInvalidationBus}. Cada alteração recebida
+ * de outra instância é aplicada aqui como se tivesse sido feita localmente:
+ * </p>
+ * <ul>
+ *     <li>a fotografia do {@link CatalogSnapshotService} é descartada, o que também muda a versão do catálogo e
+ *     descarta as respostas guardadas que dependem dela;</li>
+ *     <li>o ID é removido do {@link CatalogNegativeLookupCache};</li>
+ *     <li>o nome do ingrediente ou do lanche é atualizado no {@link CatalogNameIndexService}, lido de novo do banco
+ *     de dados;</li>
+ *     <li>os inscritos no {@link CatalogChangeStreamService} recebem a alteração.</li>
+ * </ul>
+ *
+ * <p>
+ * As alterações são aplicadas no restaurante (tenant) em que foram feitas. Um
+ * {@link CatalogInvalidation#reset(String, String)} descarta todas as caches do restaurante, ou de todos os
+ * restaurantes se ele não for informado, e envia um {@code catalog-reset} aos inscritos.
+ * </p>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>O índice de nomes é atualizado com o estado atual do banco de dados, e não com o conteúdo da mensagem, então
+ *     receber alterações fora de ordem ou repetidas não deixa um nome antigo no índice.</li>
+ *     <li>As validações de nome continuam protegidas pelas restrições do banco de dados: no intervalo até a
+ *     mensagem chegar, o índice de uma instância pode aceitar um nome que acabou de ser usado em outra, mas o
+ *     commit é recusado.</li>
+ * </ul>
+ */
+@Service
+public class CatalogInvalidationService {
+    private final ICatalogInvalidationBus invalidationBus;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogNegativeLookupCache negativeLookupCache;
+    private final CatalogNameIndexService nameIndex;
+    private final CatalogChangeStreamService catalogChangeStreamService;
+    private final IngredientRepository ingredientRepository;
+    private final DishRepository dishRepository;
+    private final Counter received;
+
+    public CatalogInvalidationService(
+            ICatalogInvalidationBus invalidationBus,
+            CatalogSnapshotService catalogSnapshotService,
+            CatalogNegativeLookupCache negativeLookupCache,
+            CatalogNameIndexService nameIndex,
+            CatalogChangeStreamService catalogChangeStreamService,
+            IngredientRepository ingredientRepository,
+            DishRepository dishRepository,
+            MeterRegistry meterRegistry) {
+        this.invalidationBus = invalidationBus;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.negativeLookupCache = negativeLookupCache;
+        this.nameIndex = nameIndex;
+        this.catalogChangeStreamService = catalogChangeStreamService;
+        this.ingredientRepository = ingredientRepository;
+        this.dishRepository = dishRepository;
+        this.received = Counter.builder("catalog.invalidation.received")
+                .description("Alterações no catálogo recebidas de outras instâncias da aplicação")
+                .register(meterRegistry);
+
+        invalidationBus.subscribe(this::apply);
+    }
+
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidationBus.publish(new CatalogInvalidation(
+                invalidationBus.nodeId(), TenantContext.current(), event.entityType(), event.entityId(), event.changeType()));
+    }
+
+    /**
+     * Aplica nesta instância uma alteração feita em outra. Alterações desta própria instância são ignoradas.
+     */
+    public void apply(CatalogInvalidation invalidation) {
+        if (invalidationBus.nodeId().equals(invalidation.originNode()))
+            return;
+        received.increment();
+
+        if (invalidation.tenantId() == null) {
+            catalogSnapshotService.invalidateAll();
+            negativeLookupCache.forgetAll();
+            nameIndex.discardAll();
+            catalogChangeStreamService.resetAll();
+            return;
+        }
+        TenantContext.run(invalidation.tenantId(), () -> applyToTenant(invalidation));
+    }
+
+    private void applyToTenant(CatalogInvalidation invalidation) {
+        catalogSnapshotService.invalidate();
+        if (invalidation.isReset()) {
+            nameIndex.reload();
+            catalogChangeStreamService.reset();
+            return;
+        }
+
+        negativeLookupCache.forget(invalidation.entityType(), invalidation.entityId());
+        switch (invalidation.entityType()) {
+            case INGREDIENT -> refreshName(CatalogEntityType.INGREDIENT, invalidation,
+                    ingredientRepository.findProjectedById(invalidation.entityId()));
+            case DISH -> refreshName(CatalogEntityType.DISH, invalidation,
+                    dishRepository.findProjectedById(invalidation.entityId()));
+            default -> {
+            }
+        }
+        catalogChangeStreamService.dispatchChanges();
+    }
+
+    private void refreshName(CatalogEntityType entityType, CatalogInvalidation invalidation, Optional<EntityNameView> current) {
+        if (invalidation.changeType() == CatalogChangeType.DELETED || current.isEmpty())
+            nameIndex.recordDeleted(entityType, invalidation.entityId());
+        else
+            nameIndex.recordSaved(entityType, current.get().getId(), current.get().getName());
+    }
+}
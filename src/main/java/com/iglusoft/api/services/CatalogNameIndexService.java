@@ -0,0 +1,213 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.repositories.DishRepository;
+import com.iglusoft.api.database.repositories.EntityNameView;
+import com.iglusoft.api.database.repositories.IngredientRepository;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.tenancy.TenantLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém em memória o índice nome → ID dos lanches e dos ingredientes, usado para validar a unicidade dos nomes
+ * e a existência dos IDs referenciados sem consultar o banco de dados.
+ *
+ * <p>
+ * O índice é carregado na inicialização da aplicação e atualizado pelos serviços do catálogo somente depois do
+ * commit de cada escrita. A consulta é feita sem locks; as atualizações, que são raras, são serializadas por tipo
+ * de entidade.
+ * </p>
+ *
+ * <p>
+ * Entre o commit de uma escrita e a atualização do índice, duas escritas concorrentes com o mesmo nome podem passar
+ * pela validação. A restrição {@code unique} das colunas {@code tenant_id} e {@code name} continua sendo a garantia
+ * final nesse caso.
+ * </p>
+ *
+ * <p>
+ * Cada restaurante (tenant) tem o seu próprio índice, carregado no primeiro acesso; somente os
+ * {@code iglusoft.tenancy.max-cached-tenants} restaurantes acessados mais recentemente são mantidos.
+ * </p>
+ */
+@Service
+public class CatalogNameIndexService {
+    private final TenantLruCache<Map<CatalogEntityType, Names>> tenants;
+
+    public CatalogNameIndexService(
+            DishRepository dishRepository,
+            IngredientRepository ingredientRepository,
+            @Value("${iglusoft.tenancy.max-cached-tenants:256}") int maxCachedTenants) {
+        this.tenants = new TenantLruCache<>(maxCachedTenants, tenantId -> {
+            var names = new EnumMap<CatalogEntityType, Names>(CatalogEntityType.class);
+            names.put(CatalogEntityType.DISH, new Names(dishRepository::findAllProjectedBy));
+            names.put(CatalogEntityType.INGREDIENT, new Names(ingredientRepository::findAllProjectedBy));
+            return names;
+        });
+    }
+
+    /**
+     * Carrega o índice do restaurante atual. Na inicialização, carrega o do restaurante padrão.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        tenants.current().values().forEach(Names::current);
+    }
+
+    /**
+     * Descarta o índice do restaurante atual e o carrega de novo do banco de dados, depois de uma substituição do
+     * catálogo que não passou pelos serviços.
+     */
+    public void reload() {
+        tenants.current().values().forEach(Names::discard);
+        load();
+    }
+
+    /**
+     * Descarta os índices de todos os restaurantes; cada um é carregado de novo no próximo acesso.
+     */
+    public void discardAll() {
+        tenants.clear();
+    }
+
+    /**
+     * Indica se o nome já pertence a outra entidade do mesmo tipo.
+     *
+     * @param entityType O tipo da entidade.
+     * @param name       O nome a ser verificado.
+     * @param id         O ID da entidade que está sendo salva, ou {@code null} se ela ainda não existe.
+     */
+    public boolean isNameTaken(CatalogEntityType entityType, String name, Long id) {
+        var ownerId = tenants.current().get(entityType).current().idsByName().get(name);
+        return ownerId != null && !ownerId.equals(id);
+    }
+
+    /**
+     * Retorna os IDs informados que não pertencem a nenhuma entidade do tipo, em uma única passada e sem consultar
+     * o banco de dados.
+     */
+    public Set<Long> findMissingIds(CatalogEntityType entityType, Collection<Long> ids) {
+        var namesById = tenants.current().get(entityType).current().namesById();
+        return ids.stream().filter(id -> id == null || !namesById.containsKey(id)).collect(Collectors.toSet());
+    }
+
+    /**
+     * Registra o nome de uma entidade criada ou alterada depois do commit da transação atual.
+     */
+    public void recordSaved(CatalogEntityType entityType, Long id, String name) {
+        var names = tenants.current().get(entityType);
+        afterCommit(() -> names.put(id, name));
+    }
+
+    /**
+     * Remove o nome de uma entidade removida depois do commit da transação atual.
+     */
+    public void recordDeleted(CatalogEntityType entityType, Long id) {
+        var names = tenants.current().get(entityType);
+        afterCommit(() -> names.remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Os nomes de um tipo de entidade.
+     *
+     * <p>
+     * Uma carga que tenha lido o banco de dados antes de uma escrita ser registrada é descartada e feita de novo,
+     * para que um índice antigo nunca sobrescreva uma escrita mais recente.
+     * </p>
+     */
+    private static final class Names {
+        private final Supplier<List<EntityNameView>> loader;
+        private volatile Index index;
+        private long writes;
+
+        private Names(Supplier<List<EntityNameView>> loader) {
+            this.loader = loader;
+        }
+
+        private Index current() {
+            var current = index;
+            if (current != null)
+                return current;
+
+            while (true) {
+                long loadingWrites;
+                synchronized (this) {
+                    if (index != null)
+                        return index;
+                    loadingWrites = writes;
+                }
+
+                var loaded = new Index(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+                loader.get().forEach(it -> {
+                    loaded.idsByName().put(it.getName(), it.getId());
+                    loaded.namesById().put(it.getId(), it.getName());
+                });
+
+                synchronized (this) {
+                    if (index != null)
+                        return index;
+                    if (writes == loadingWrites) {
+                        index = loaded;
+                        return loaded;
+                    }
+                }
+            }
+        }
+
+        private synchronized void discard() {
+            writes++;
+            index = null;
+        }
+
+        private synchronized void put(Long id, String name) {
+            writes++;
+            if (index == null)
+                return;
+
+            var previousName = index.namesById().put(id, name);
+            if (previousName != null && !Objects.equals(previousName, name))
+                index.idsByName().remove(previousName, id);
+            index.idsByName().put(name, id);
+        }
+
+        private synchronized void remove(Long id) {
+            writes++;
+            if (index == null)
+                return;
+
+            var previousName = index.namesById().remove(id);
+            if (previousName != null)
+                index.idsByName().remove(previousName, id);
+        }
+    }
+
+    private record Index(ConcurrentHashMap<String, Long> idsByName, ConcurrentHashMap<Long, String> namesById) {
+    }
+}
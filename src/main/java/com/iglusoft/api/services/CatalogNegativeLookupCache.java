@@ -0,0 +1,130 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.tenancy.TenantLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Guarda os IDs de ingredientes, lanches e promoções que não foram encontrados no banco de dados, para que buscas
+ * repetidas pelo mesmo ID inexistente sejam respondidas sem consultá-lo.
+ *
+ * <p>
+ * As entradas pertencem a uma geração ligada à versão do catálogo mantida pelo {@link CatalogSnapshotService}.
+ * Qualquer escrita no catálogo muda a versão e descarta a geração inteira; além disso, o ID de uma entidade criada
+ * é removido assim que o {@link CatalogChangedEvent} é publicado, ainda dentro da transação que a criou.
+ * </p>
+ *
+ * <p>
+ * O número de entradas é limitado por {@code iglusoft.negative-lookup-cache.max-entries}. Ao atingir o limite, a
+ * geração é esvaziada, mantendo a memória limitada mesmo quando os IDs buscados são todos diferentes.
+ * </p>
+ *
+ * <p>
+ * Cada restaurante (tenant) tem as suas próprias gerações, já que um ID inexistente em um restaurante pode existir
+ * em outro; no máximo {@code iglusoft.tenancy.max-cached-tenants} restaurantes são mantidos.
+ * </p>
+ */
+@Component
+public class CatalogNegativeLookupCache {
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final int maxEntries;
+    private final TenantLruCache<AtomicReference<Generation>> generations;
+
+    public CatalogNegativeLookupCache(
+            CatalogSnapshotService catalogSnapshotService,
+            @Value("${iglusoft.negative-lookup-cache.max-entries:10000}") int maxEntries,
+            @Value("${iglusoft.tenancy.max-cached-tenants:256}") int maxCachedTenants) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.maxEntries = maxEntries;
+        this.generations = new TenantLruCache<>(maxCachedTenants, tenantId -> new AtomicReference<>(new Generation(-1L)));
+    }
+
+    /**
+     * Busca a entidade com {@code lookup}, a menos que o ID já seja conhecido como inexistente na versão atual.
+     *
+     * @param entityType O tipo da entidade buscada.
+     * @param id         O ID da entidade buscada.
+     * @param lookup     A consulta ao banco de dados.
+     * @return A entidade encontrada.
+     * @throws NotFoundException Se a entidade não existir.
+     */
+    public <T> T findOrThrow(CatalogEntityType entityType, Long id, Supplier<Optional<T>> lookup) {
+        // A versão é lida antes da consulta: se uma escrita acontecer no meio, a ausência é guardada numa geração antiga
+        var version = catalogSnapshotService.getVersion();
+        var generation = generations.current();
+        var current = generation.get();
+        if (current.version == version && current.missing(entityType).contains(id))
+            throw NotFoundException.instance();
+
+        var found = lookup.get();
+        if (found.isEmpty()) {
+            recordMissing(generation, entityType, id, version);
+            throw NotFoundException.instance();
+        }
+        return found.get();
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        forget(event.entityType(), event.entityId());
+    }
+
+    /**
+     * Esquece que o ID informado não existe no restaurante atual, depois que a entidade foi criada em outra instância
+     * da aplicação.
+     */
+    public void forget(CatalogEntityType entityType, Long id) {
+        generations.current().get().missing(entityType).remove(id);
+    }
+
+    /**
+     * Esquece os IDs inexistentes de todos os restaurantes.
+     */
+    public void forgetAll() {
+        generations.clear();
+    }
+
+    private void recordMissing(AtomicReference<Generation> generation, CatalogEntityType entityType, Long id, long version) {
+        while (true) {
+            var current = generation.get();
+            // Uma consulta atrasada, com versão antiga, não deve descartar uma geração mais nova
+            if (current.version > version)
+                return;
+            if (current.version == version && current.size.get() < maxEntries) {
+                if (current.missing(entityType).add(id))
+                    current.size.incrementAndGet();
+                return;
+            }
+            generation.compareAndSet(current, new Generation(version));
+        }
+    }
+
+    private static final class Generation {
+        private final long version;
+        private final AtomicInteger size = new AtomicInteger();
+        private final Map<CatalogEntityType, Set<Long>> missing = new EnumMap<>(CatalogEntityType.class);
+
+        private Generation(long version) {
+            this.version = version;
+            for (var entityType : CatalogEntityType.values())
+                missing.put(entityType, ConcurrentHashMap.newKeySet());
+        }
+
+        private Set<Long> missing(CatalogEntityType entityType) {
+            return missing.get(entityType);
+        }
+    }
+}
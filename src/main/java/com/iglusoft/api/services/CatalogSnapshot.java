@@ -0,0 +1,46 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.entities.Dish;
+import com.iglusoft.api.database.entities.Ingredient;
+import com.iglusoft.api.database.entities.Offer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * O record {@code CatalogSnapshot} é uma fotografia imutável do catálogo (ingredientes, lanches e promoções)
+ * mantida em memória para que o cálculo dos pedidos não precise consultar o banco de dados.
+ *
+ * <p>
+ * As entidades contidas aqui estão desanexadas do contexto de persistência e com todas as coleções
+ * inicializadas. Elas são compartilhadas entre threads e, portanto, devem ser tratadas como somente leitura.
+ * </p>
+ *
+ * @param version     A versão do catálogo no momento em que a fotografia foi carregada.
+ * @param ingredients Os ingredientes indexados pelo ID.
+ * @param dishes      Os lanches indexados pelo ID.
+ * @param offers      Todas as promoções cadastradas.
+ */
+public record CatalogSnapshot(
+        long version,
+        Map<Long, Ingredient> ingredients,
+        Map<Long, Dish> dishes,
+        List<Offer> offers
+) {
+
+    public Ingredient findIngredient(Long id) {
+        return ingredients.get(id);
+    }
+
+    public Dish findDish(Long id) {
+        return dishes.get(id);
+    }
+
+    public boolean containsIngredient(Long id) {
+        return ingredients.containsKey(id);
+    }
+
+    public boolean containsDish(Long id) {
+        return dishes.containsKey(id);
+    }
+}
@@ -0,0 +1,274 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.entities.OfferIngredientMinQuantity;
+import com.iglusoft.api.enums.DiscountType;
+import com.iglusoft.api.exceptions.BusinessException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binário do arquivo de fotografia do catálogo, usado para exportar o catálogo e restaurá-lo sem executar
+ * scripts SQL.
+ *
+ * <p>
+ * O arquivo começa com o número mágico {@code IGLU}, a versão do formato e a versão do catálogo exportado, seguidos
+ * dos ingredientes, dos lanches (com as quantidades de cada ingrediente) e das promoções (com os ingredientes
+ * obrigatórios e excluídos e suas quantidades mínimas). Cada seção começa pela quantidade de registros; todos os
+ * números são big-endian e os textos são gravados como tamanho seguido dos bytes em UTF-8. Os últimos 8 bytes são o
+ * CRC32C de todo o conteúdo anterior.
+ * </p>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>Os IDs de todas as linhas são preservados, para que os IDs conhecidos pelos clientes continuem válidos
+ *     depois da restauração.</li>
+ *     <li>A leitura mapeia o arquivo em memória e confere o checksum antes de interpretar qualquer registro, então um
+ *     arquivo truncado ou corrompido é rejeitado sem alterar o banco de dados.</li>
+ *     <li>A gravação é feita num arquivo temporário no mesmo diretório e movida para o destino somente no final, para
+ *     que uma exportação interrompida nunca deixe um arquivo pela metade no lugar do anterior.</li>
+ * </ul>
+ */
+public final class CatalogSnapshotFile {
+    static final int MAGIC = 0x49474C55;
+    static final short FORMAT_VERSION = 1;
+
+    private static final int CHECKSUM_BYTES = Long.BYTES;
+
+    private CatalogSnapshotFile() {
+    }
+
+    public record IngredientRow(long id, String name, long salePrice) {
+    }
+
+    public record DishIngredientRow(long id, long ingredientId, int quantity) {
+    }
+
+    public record DishRow(long id, String name, long totalPrice, List<DishIngredientRow> ingredients) {
+    }
+
+    public record OfferIngredientRow(long id, long ingredientId, int minQuantity, int paidQuantity) {
+    }
+
+    public record OfferRow(long id, String name, DiscountType discountType, Long discountAmount,
+                    List<OfferIngredientRow> requiredIngredients, List<OfferIngredientRow> excludedIngredients) {
+    }
+
+    /**
+     * O conteúdo de um arquivo de fotografia.
+     *
+     * @param catalogVersion A versão do catálogo no momento da exportação.
+     * @param checksum       O CRC32C gravado no final do arquivo.
+     */
+    public record Contents(long catalogVersion, long checksum, List<IngredientRow> ingredients, List<DishRow> dishes,
+                           List<OfferRow> offers) {
+
+        /**
+         * Converte a fotografia mantida em memória para as linhas gravadas no arquivo.
+         */
+        static Contents of(CatalogSnapshot snapshot) {
+            var ingredients = snapshot.ingredients().values().stream()
+                    .map(it -> new IngredientRow(it.getId(), it.getName(), it.getSalePrice()))
+                    .toList();
+            var dishes = snapshot.dishes().values().stream()
+                    .map(dish -> new DishRow(dish.getId(), dish.getName(), dish.getTotalPrice(), dish.getIngredients().stream()
+                            .map(it -> new DishIngredientRow(it.getId(), it.getIngredient().getId(), it.getQuantity()))
+                            .toList()))
+                    .toList();
+            var offers = snapshot.offers().stream()
+                    .map(offer -> new OfferRow(offer.getId(), offer.getName(), offer.getDiscountType(), offer.getDiscountAmount(),
+                            offerIngredientRows(offer.getRequiredIngredients()), offerIngredientRows(offer.getExcludedIngredients())))
+                    .toList();
+            return new Contents(snapshot.version(), 0L, ingredients, dishes, offers);
+        }
+    }
+
+    /**
+     * Grava o conteúdo no arquivo informado, substituindo-o se já existir. O {@code checksum} do conteúdo é ignorado
+     * e calculado de novo.
+     *
+     * @return O CRC32C gravado no final do arquivo.
+     */
+    public static long write(Contents contents, Path path) throws IOException {
+        var directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        var temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try {
+            var crc = new CRC32C();
+            try (var buffered = new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+                var out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(contents.catalogVersion());
+
+                out.writeInt(contents.ingredients().size());
+                for (var ingredient : contents.ingredients()) {
+                    out.writeLong(ingredient.id());
+                    writeString(out, ingredient.name());
+                    out.writeLong(ingredient.salePrice());
+                }
+
+                out.writeInt(contents.dishes().size());
+                for (var dish : contents.dishes()) {
+                    out.writeLong(dish.id());
+                    writeString(out, dish.name());
+                    out.writeLong(dish.totalPrice());
+                    out.writeInt(dish.ingredients().size());
+                    for (var quantity : dish.ingredients()) {
+                        out.writeLong(quantity.id());
+                        out.writeLong(quantity.ingredientId());
+                        out.writeInt(quantity.quantity());
+                    }
+                }
+
+                out.writeInt(contents.offers().size());
+                for (var offer : contents.offers()) {
+                    out.writeLong(offer.id());
+                    writeString(out, offer.name());
+                    writeString(out, offer.discountType().name());
+                    out.writeBoolean(offer.discountAmount() != null);
+                    if (offer.discountAmount() != null)
+                        out.writeLong(offer.discountAmount());
+                    writeOfferIngredients(out, offer.requiredIngredients());
+                    writeOfferIngredients(out, offer.excludedIngredients());
+                }
+
+                out.flush();
+                // O checksum é gravado por fora do CheckedOutputStream, então não entra no próprio cálculo
+                new DataOutputStream(buffered).writeLong(crc.getValue());
+            }
+
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return crc.getValue();
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Lê e valida o arquivo de fotografia informado.
+     *
+     * @throws BusinessException Se o arquivo não for uma fotografia do catálogo, estiver corrompido ou usar uma
+     *                           versão de formato desconhecida.
+     */
+    public static Contents read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        var contentLength = buffer.capacity() - CHECKSUM_BYTES;
+        if (contentLength < Integer.BYTES + Short.BYTES || buffer.getInt(0) != MAGIC)
+            throw new BusinessException("The file is not a catalog snapshot.");
+
+        var crc = new CRC32C();
+        crc.update(buffer.slice(0, contentLength));
+        var checksum = buffer.getLong(contentLength);
+        if (crc.getValue() != checksum)
+            throw new BusinessException("The catalog snapshot file is corrupted.");
+
+        var in = buffer.slice(0, contentLength);
+        in.getInt();
+        var formatVersion = in.getShort();
+        if (formatVersion != FORMAT_VERSION)
+            throw new BusinessException(String.format("Unsupported catalog snapshot format version %d.", formatVersion));
+
+        try {
+            var catalogVersion = in.getLong();
+
+            var ingredientCount = readCount(in);
+            var ingredients = new ArrayList<IngredientRow>(ingredientCount);
+            for (var i = 0; i < ingredientCount; i++)
+                ingredients.add(new IngredientRow(in.getLong(), readString(in), in.getLong()));
+
+            var dishCount = readCount(in);
+            var dishes = new ArrayList<DishRow>(dishCount);
+            for (var i = 0; i < dishCount; i++) {
+                var id = in.getLong();
+                var name = readString(in);
+                var totalPrice = in.getLong();
+                var quantityCount = readCount(in);
+                var quantities = new ArrayList<DishIngredientRow>(quantityCount);
+                for (var j = 0; j < quantityCount; j++)
+                    quantities.add(new DishIngredientRow(in.getLong(), in.getLong(), in.getInt()));
+                dishes.add(new DishRow(id, name, totalPrice, quantities));
+            }
+
+            var offerCount = readCount(in);
+            var offers = new ArrayList<OfferRow>(offerCount);
+            for (var i = 0; i < offerCount; i++) {
+                var id = in.getLong();
+                var name = readString(in);
+                var discountType = DiscountType.valueOf(readString(in));
+                var discountAmount = in.get() != 0 ? in.getLong() : null;
+                offers.add(new OfferRow(id, name, discountType, discountAmount, readOfferIngredients(in), readOfferIngredients(in)));
+            }
+
+            if (in.hasRemaining())
+                throw new BusinessException("The catalog snapshot file is corrupted.");
+            return new Contents(catalogVersion, checksum, ingredients, dishes, offers);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new BusinessException("The catalog snapshot file is corrupted.");
+        }
+    }
+
+    private static List<OfferIngredientRow> offerIngredientRows(List<OfferIngredientMinQuantity> ingredients) {
+        return ingredients.stream()
+                .map(it -> new OfferIngredientRow(it.getId(), it.getIngredient().getId(), it.getMinQuantity(), it.getPaidQuantity()))
+                .toList();
+    }
+
+    private static void writeOfferIngredients(DataOutputStream out, List<OfferIngredientRow> ingredients) throws IOException {
+        out.writeInt(ingredients.size());
+        for (var ingredient : ingredients) {
+            out.writeLong(ingredient.id());
+            out.writeLong(ingredient.ingredientId());
+            out.writeInt(ingredient.minQuantity());
+            out.writeInt(ingredient.paidQuantity());
+        }
+    }
+
+    private static List<OfferIngredientRow> readOfferIngredients(ByteBuffer in) {
+        var count = readCount(in);
+        var ingredients = new ArrayList<OfferIngredientRow>(count);
+        for (var i = 0; i < count; i++)
+            ingredients.add(new OfferIngredientRow(in.getLong(), in.getLong(), in.getInt(), in.getInt()));
+        return ingredients;
+    }
+
+    /**
+     * Lê a quantidade de registros de uma seção, rejeitando valores que não cabem no restante do arquivo.
+     */
+    private static int readCount(ByteBuffer in) {
+        var count = in.getInt();
+        if (count < 0 || count > in.remaining())
+            throw new BusinessException("The catalog snapshot file is corrupted.");
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        var bytes = new byte[readCount(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
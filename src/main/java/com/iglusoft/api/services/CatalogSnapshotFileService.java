@@ -0,0 +1,268 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.dtos.CatalogSnapshotFileDto;
+import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.interfaces.ICatalogInvalidationBus;
+import com.iglusoft.api.invalidation.CatalogInvalidation;
+import com.iglusoft.api.synthetic.SyntheticCatalogGenerator;
+import com.iglusoft.api.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exporta o catálogo para um arquivo binário e o restaura a partir dele, substituindo os scripts SQL na
+ * inicialização de catálogos grandes.
+ *
+ * <p>
+ * O arquivo é gravado em {@code iglusoft.catalog-snapshot.path} no formato descrito em {@link CatalogSnapshotFile}.
+ * Com {@code iglusoft.catalog-snapshot.load-on-startup=true}, o arquivo é importado na inicialização, antes do
+ * aquecimento; nesse caso os scripts SQL podem ser desligados com {@code spring.sql.init.mode=never}.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * POST /admin/catalog/snapshot/export
+ * POST /admin/catalog/snapshot/import
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>A exportação lê a fotografia mantida pelo {@link CatalogSnapshotService}, sem consultar o banco de dados
+ *     quando ela já está carregada.</li>
+ *     <li>A importação substitui o catálogo inteiro numa única transação, com inserções em lote via JDBC e os IDs
+ *     originais. Ela não passa pelos serviços do catálogo, então não gera uma alteração por entidade: ela grava
+ *     uma única alteração {@link com.iglusoft.api.enums.CatalogChangeType#RESET} na mesma transação, com uma
+ *     sequência maior que todas as anteriores, para que todo cliente sincronizado receba o catálogo inteiro na
+ *     próxima chamada, e os inscritos no fluxo de alterações recebem um {@code catalog-reset}. As outras
+ *     instâncias da aplicação descartam as suas caches ao receber um {@link CatalogInvalidation#reset(String, String)}
+ *     ou ao ler a alteração do histórico.</li>
+ *     <li>Exportações e importações são serializadas. A importação deve ser feita sem escritas concorrentes no
+ *     catálogo, pois elas seriam descartadas pela substituição.</li>
+ *     <li>A exportação e a importação valem para o restaurante (tenant) da requisição, cada um com o seu arquivo.
+ *     Como os IDs são preservados, um arquivo só pode ser importado num banco de dados em que os seus IDs não
+ *     pertençam a outro restaurante.</li>
+ * </ul>
+ */
+@Service
+public class CatalogSnapshotFileService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotFileService.class);
+
+    // Apagam o catálogo de um único tenant, informado como parâmetro
+    private static final List<String> DELETE_TENANT_CATALOG = List.of(
+            "DELETE FROM OFFER_REQUIRED_INGREDIENTS WHERE offer_id IN (SELECT id FROM OFFER WHERE tenant_id = ?)",
+            "DELETE FROM OFFER_EXCLUDED_INGREDIENTS WHERE offer_id IN (SELECT id FROM OFFER WHERE tenant_id = ?)",
+            "DELETE FROM OFFER_INGREDIENT_MIN_QUANTITY WHERE offer_id IN (SELECT id FROM OFFER WHERE tenant_id = ?)",
+            "DELETE FROM OFFER WHERE tenant_id = ?",
+            "DELETE FROM DISH_INGREDIENT_QUANTITY WHERE dish_id IN (SELECT id FROM DISH WHERE tenant_id = ?)",
+            "DELETE FROM DISH WHERE tenant_id = ?",
+            "DELETE FROM INGREDIENT WHERE tenant_id = ?");
+
+    private static final List<String> IDENTITY_TABLES = List.of(
+            "INGREDIENT", "DISH", "DISH_INGREDIENT_QUANTITY", "OFFER", "OFFER_INGREDIENT_MIN_QUANTITY");
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogNameIndexService nameIndex;
+    private final CatalogChangeStreamService catalogChangeStreamService;
+    private final CatalogChangeLogService catalogChangeLogService;
+    private final ICatalogInvalidationBus invalidationBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path path;
+    private final boolean loadOnStartup;
+
+    public CatalogSnapshotFileService(
+            CatalogSnapshotService catalogSnapshotService,
+            CatalogNameIndexService nameIndex,
+            CatalogChangeStreamService catalogChangeStreamService,
+            CatalogChangeLogService catalogChangeLogService,
+            ICatalogInvalidationBus invalidationBus,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${iglusoft.catalog-snapshot.path:catalog.snapshot}") Path path,
+            @Value("${iglusoft.catalog-snapshot.load-on-startup:false}") boolean loadOnStartup) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.nameIndex = nameIndex;
+        this.catalogChangeStreamService = catalogChangeStreamService;
+        this.catalogChangeLogService = catalogChangeLogService;
+        this.invalidationBus = invalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.path = path;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!loadOnStartup)
+            return;
+
+        if (!Files.exists(path)) {
+            logger.warn("Catalog snapshot {} does not exist; keeping the catalog loaded by the SQL scripts.", path.toAbsolutePath());
+            return;
+        }
+
+        var startNanos = System.nanoTime();
+        var imported = importSnapshot();
+        logger.info("Imported catalog snapshot {} ({} ingredients, {} dishes, {} offers) in {} ms.",
+                imported.path(), imported.ingredients(), imported.dishes(), imported.offers(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Grava o catálogo atual do restaurante atual no seu arquivo de fotografia, substituindo o arquivo anterior.
+     */
+    public synchronized CatalogSnapshotFileDto exportSnapshot() {
+        var snapshot = catalogSnapshotService.getSnapshot();
+        var path = currentTenantPath();
+        try {
+            var checksum = CatalogSnapshotFile.write(CatalogSnapshotFile.Contents.of(snapshot), path);
+            return new CatalogSnapshotFileDto(
+                    path.toAbsolutePath().toString(),
+                    Files.size(path),
+                    snapshot.version(),
+                    Long.toHexString(checksum),
+                    snapshot.ingredients().size(),
+                    snapshot.dishes().size(),
+                    snapshot.offers().size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Substitui o catálogo inteiro do restaurante atual pelo conteúdo do seu arquivo de fotografia.
+     *
+     * @throws NotFoundException Se o arquivo não existir.
+     * @throws com.iglusoft.api.exceptions.BusinessException Se o arquivo estiver corrompido.
+     */
+    public synchronized CatalogSnapshotFileDto importSnapshot() {
+        var path = currentTenantPath();
+        if (!Files.exists(path))
+            throw NotFoundException.instance();
+
+        CatalogSnapshotFile.Contents contents;
+        long size;
+        try {
+            contents = CatalogSnapshotFile.read(path);
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        replaceCatalog(contents);
+        return new CatalogSnapshotFileDto(
+                path.toAbsolutePath().toString(),
+                size,
+                contents.catalogVersion(),
+                Long.toHexString(contents.checksum()),
+                contents.ingredients().size(),
+                contents.dishes().size(),
+                contents.offers().size());
+    }
+
+    /**
+     * Substitui o catálogo inteiro do restaurante atual pelo conteúdo informado, vindo de um arquivo ou de um
+     * gerador como o {@link SyntheticCatalogGenerator}. Os catálogos dos outros restaurantes não são alterados.
+     */
+    public synchronized void replaceCatalog(CatalogSnapshotFile.Contents contents) {
+        var tenantId = TenantContext.current();
+        transactionTemplate.executeWithoutResult(status -> {
+            insertCatalog(tenantId, contents);
+            catalogChangeLogService.recordReset();
+        });
+
+        // No H2, ALTER TABLE confirma a transação corrente, então as sequências são ajustadas depois do commit.
+        // As tabelas guardam os outros restaurantes, então as sequências continuam depois do maior ID de cada uma.
+        // O histórico de alterações não é apagado, e a sua sequência continua depois da alteração RESET.
+        IDENTITY_TABLES.forEach(table -> restartIdentity(table, maxId(table)));
+
+        catalogSnapshotService.invalidate();
+        nameIndex.reload();
+        catalogChangeStreamService.reset();
+        invalidationBus.publish(CatalogInvalidation.reset(invalidationBus.nodeId(), tenantId));
+    }
+
+    private void insertCatalog(String tenantId, CatalogSnapshotFile.Contents contents) {
+        DELETE_TENANT_CATALOG.forEach(statement -> jdbcTemplate.update(statement, tenantId));
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO INGREDIENT(id, tenant_id, name, sale_price) VALUES (?, ?, ?, ?)",
+                rows(contents.ingredients(), it -> new Object[]{it.id(), tenantId, it.name(), it.salePrice()}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO DISH(id, tenant_id, name, total_price) VALUES (?, ?, ?, ?)",
+                rows(contents.dishes(), it -> new Object[]{it.id(), tenantId, it.name(), it.totalPrice()}));
+
+        var dishIngredients = new ArrayList<Object[]>();
+        contents.dishes().forEach(dish -> dish.ingredients().forEach(it ->
+                dishIngredients.add(new Object[]{it.id(), dish.id(), it.ingredientId(), it.quantity()})));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO DISH_INGREDIENT_QUANTITY(id, dish_id, ingredient_id, quantity) VALUES (?, ?, ?, ?)",
+                dishIngredients);
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO OFFER(id, tenant_id, name, discount_type, discount_amount) VALUES (?, ?, ?, ?, ?)",
+                rows(contents.offers(), it -> new Object[]{it.id(), tenantId, it.name(), it.discountType().name(), it.discountAmount()}));
+
+        var offerIngredients = new ArrayList<Object[]>();
+        var required = new ArrayList<Object[]>();
+        var excluded = new ArrayList<Object[]>();
+        for (var offer : contents.offers()) {
+            offerIngredients(offer).forEach(it -> offerIngredients.add(
+                    new Object[]{it.id(), offer.id(), it.ingredientId(), it.minQuantity(), it.paidQuantity()}));
+            offer.requiredIngredients().forEach(it -> required.add(new Object[]{offer.id(), it.id()}));
+            offer.excludedIngredients().forEach(it -> excluded.add(new Object[]{offer.id(), it.id()}));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO OFFER_INGREDIENT_MIN_QUANTITY(id, offer_id, ingredient_id, min_quantity, paid_quantity) VALUES (?, ?, ?, ?, ?)",
+                offerIngredients);
+        jdbcTemplate.batchUpdate("INSERT INTO OFFER_REQUIRED_INGREDIENTS(offer_id, required_ingredients_id) VALUES (?, ?)", required);
+        jdbcTemplate.batchUpdate("INSERT INTO OFFER_EXCLUDED_INGREDIENTS(offer_id, excluded_ingredients_id) VALUES (?, ?)", excluded);
+    }
+
+    private void restartIdentity(String table, long lastId) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN ID RESTART WITH " + (lastId + 1));
+    }
+
+    private static List<CatalogSnapshotFile.OfferIngredientRow> offerIngredients(CatalogSnapshotFile.OfferRow offer) {
+        var ingredients = new ArrayList<>(offer.requiredIngredients());
+        ingredients.addAll(offer.excludedIngredients());
+        return ingredients;
+    }
+
+    private static <T> List<Object[]> rows(List<T> values, Function<T, Object[]> mapper) {
+        return values.stream().map(mapper).toList();
+    }
+
+    private long maxId(String table) {
+        var max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) FROM " + table, Long.class);
+        return max == null ? 0L : max;
+    }
+
+    /**
+     * O arquivo de fotografia do restaurante atual: {@code iglusoft.catalog-snapshot.path} para o restaurante
+     * padrão e, para os outros, o mesmo nome seguido do identificador do restaurante.
+     */
+    private Path currentTenantPath() {
+        var tenantId = TenantContext.current();
+        if (TenantContext.DEFAULT_TENANT.equals(tenantId))
+            return path;
+        return path.resolveSibling(path.getFileName() + "." + tenantId);
+    }
+}
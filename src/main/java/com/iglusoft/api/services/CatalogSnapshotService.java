@@ -0,0 +1,186 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.entities.Dish;
+import com.iglusoft.api.database.entities.Ingredient;
+import com.iglusoft.api.database.entities.Offer;
+import com.iglusoft.api.database.repositories.DishRepository;
+import com.iglusoft.api.database.repositories.IngredientRepository;
+import com.iglusoft.api.database.repositories.OfferRepository;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import com.iglusoft.api.jfr.CatalogSnapshotRebuildEvent;
+import com.iglusoft.api.tenancy.TenantLruCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém os {@link CatalogSnapshot} usados pelo cálculo dos pedidos, um por restaurante (tenant).
+ *
+ * <p>
+ * A fotografia de cada restaurante é carregada sob demanda e descartada sempre que um {@link CatalogChangedEvent}
+ * desse restaurante é confirmado. Cada descarte muda a versão do catálogo do restaurante; uma recarga que tenha
+ * começado antes de uma alteração não é publicada, garantindo que uma fotografia antiga nunca sobrescreva uma
+ * invalidação mais recente.
+ * </p>
+ *
+ * <p>
+ * No máximo {@code iglusoft.tenancy.max-cached-tenants} restaurantes ficam carregados; ao passar do limite, o
+ * restaurante sem pedidos há mais tempo é descartado e carregado de novo no próximo acesso.
+ * </p>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>As versões de todos os restaurantes vêm de um único contador, então uma versão nunca se repete, nem entre
+ *     restaurantes nem depois que um restaurante é descartado e carregado de novo. As caches que usam a versão
+ *     como chave, como os ETags e as respostas serializadas, continuam corretas sem saber do tenant.</li>
+ *     <li>Cada restaurante tem o seu próprio lock de carga, então a carga de um restaurante grande não atrasa os
+ *     pedidos dos outros.</li>
+ * </ul>
+ */
+@Service
+public class CatalogSnapshotService {
+    private final IngredientRepository ingredientRepository;
+    private final DishRepository dishRepository;
+    private final OfferRepository offerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong versions = new AtomicLong(0L);
+    private final TenantLruCache<TenantCatalog> catalogs;
+
+    public CatalogSnapshotService(
+            IngredientRepository ingredientRepository,
+            DishRepository dishRepository,
+            OfferRepository offerRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${iglusoft.tenancy.max-cached-tenants:256}") int maxCachedTenants) {
+        this.ingredientRepository = ingredientRepository;
+        this.dishRepository = dishRepository;
+        this.offerRepository = offerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogs = new TenantLruCache<>(maxCachedTenants, tenantId -> new TenantCatalog(versions.incrementAndGet()));
+
+        Gauge.builder("catalog.tenants.cached", catalogs, TenantLruCache::size)
+                .description("Restaurantes com o catálogo mantido em memória")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retorna a fotografia atual do catálogo do restaurante atual, carregando-a do banco de dados caso ainda não
+     * exista.
+     */
+    public CatalogSnapshot getSnapshot() {
+        var catalog = catalogs.current();
+        var current = catalog.peek();
+        if (current.isPresent())
+            return current.get();
+
+        synchronized (catalog) {
+            current = catalog.peek();
+            if (current.isPresent())
+                return current.get();
+
+            var loaded = load(catalog.version);
+            if (loaded.version() == catalog.version)
+                catalog.snapshot.set(loaded);
+            return loaded;
+        }
+    }
+
+    /**
+     * Retorna a fotografia atual do restaurante atual somente se ela já estiver carregada e atualizada, sem nunca
+     * acessar o banco de dados.
+     */
+    public Optional<CatalogSnapshot> peekSnapshot() {
+        return catalogs.current().peek();
+    }
+
+    /**
+     * Retorna a versão do catálogo do restaurante atual.
+     */
+    public long getVersion() {
+        return catalogs.current().version;
+    }
+
+    /**
+     * Descarta a fotografia do restaurante atual e muda a versão do seu catálogo.
+     */
+    public void invalidate() {
+        catalogs.current().invalidate(versions.incrementAndGet());
+    }
+
+    /**
+     * Descarta as fotografias de todos os restaurantes.
+     */
+    public void invalidateAll() {
+        catalogs.clear();
+    }
+
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate();
+    }
+
+    private CatalogSnapshot load(long loadingVersion) {
+        var jfrEvent = new CatalogSnapshotRebuildEvent();
+        jfrEvent.begin();
+
+        var loaded = transactionTemplate.execute(status -> {
+            // As duas consultas completam as mesmas instâncias, deixando as duas listas de cada promoção carregadas
+            offerRepository.findAllWithRequiredIngredients();
+            List<Offer> offers = offerRepository.findAllWithExcludedIngredients();
+
+            Map<Long, Ingredient> ingredients = ingredientRepository.findAll().stream()
+                    .collect(Collectors.toUnmodifiableMap(Ingredient::getId, Function.identity()));
+            Map<Long, Dish> dishes = dishRepository.findAllWithIngredients().stream()
+                    .collect(Collectors.toUnmodifiableMap(Dish::getId, Function.identity()));
+
+            return new CatalogSnapshot(loadingVersion, ingredients, dishes, List.copyOf(offers));
+        });
+
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.version = loaded.version();
+            jfrEvent.ingredientCount = loaded.ingredients().size();
+            jfrEvent.dishCount = loaded.dishes().size();
+            jfrEvent.offerCount = loaded.offers().size();
+            jfrEvent.commit();
+        }
+        return loaded;
+    }
+
+    /**
+     * A versão e a fotografia do catálogo de um restaurante.
+     */
+    private static final class TenantCatalog {
+        private volatile long version;
+        private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+        private TenantCatalog(long version) {
+            this.version = version;
+        }
+
+        private Optional<CatalogSnapshot> peek() {
+            var current = snapshot.get();
+            if (current == null || current.version() != version)
+                return Optional.empty();
+            return Optional.of(current);
+        }
+
+        private void invalidate(long newVersion) {
+            version = newVersion;
+            snapshot.set(null);
+        }
+    }
+}
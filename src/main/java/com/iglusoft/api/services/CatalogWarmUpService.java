@@ -0,0 +1,158 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.dtos.DishIngredientDto;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.metrics.PricingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aquece a aplicação na inicialização, antes de ela ser anunciada como pronta para receber tráfego.
+ *
+ * <p>
+ * O aquecimento carrega a fotografia do catálogo e o índice de nomes, busca um ingrediente, um lanche e uma
+ * promoção pelo ID, para inicializar as consultas do Hibernate, e calcula {@code iglusoft.warm-up.iterations} pedidos sintéticos
+ * montados com os lanches e ingredientes cadastrados, para que o JIT compile o caminho do cálculo dos pedidos.
+ * </p>
+ *
+ * <p>
+ * Ele é executado no {@link ApplicationReadyEvent}, que o Spring Boot publica imediatamente antes de marcar a
+ * aplicação como {@link ReadinessState#ACCEPTING_TRAFFIC}; como o ouvinte é síncrono, o
+ * {@code /actuator/health/readiness} só passa a responder {@code UP} quando o aquecimento termina. A duração fica
+ * disponível na métrica {@code catalog.warmup.duration}.
+ * </p>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>Os pedidos sintéticos usam somente dados já cadastrados e não escrevem nada no banco de dados.</li>
+ *     <li>Os pedidos sintéticos são calculados dentro de {@link PricingMetrics#withoutRecording}, então não aparecem
+ *     nas métricas de cálculo de pedidos nem nos eventos {@code OrderPricing} do JFR.</li>
+ *     <li>O aquecimento é limitado por {@code iglusoft.warm-up.max-millis}; uma falha nele é registrada e não
+ *     impede a aplicação de ficar pronta.</li>
+ * </ul>
+ */
+@Service
+public class CatalogWarmUpService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogWarmUpService.class);
+    private static final int DISHES_PER_ORDER = 3;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogNameIndexService nameIndex;
+    private final OrderService orderService;
+    private final DishService dishService;
+    private final IngredientService ingredientService;
+    private final OfferService offerService;
+    private final PricingMetrics pricingMetrics;
+    private final boolean enabled;
+    private final int iterations;
+    private final long maxMillis;
+    private final AtomicLong durationNanos = new AtomicLong();
+
+    public CatalogWarmUpService(
+            CatalogSnapshotService catalogSnapshotService,
+            CatalogNameIndexService nameIndex,
+            OrderService orderService,
+            DishService dishService,
+            IngredientService ingredientService,
+            OfferService offerService,
+            PricingMetrics pricingMetrics,
+            MeterRegistry meterRegistry,
+            @Value("${iglusoft.warm-up.enabled:true}") boolean enabled,
+            @Value("${iglusoft.warm-up.iterations:2000}") int iterations,
+            @Value("${iglusoft.warm-up.max-millis:30000}") long maxMillis) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.nameIndex = nameIndex;
+        this.orderService = orderService;
+        this.dishService = dishService;
+        this.ingredientService = ingredientService;
+        this.offerService = offerService;
+        this.pricingMetrics = pricingMetrics;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxMillis = maxMillis;
+
+        TimeGauge.builder("catalog.warmup.duration", durationNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .description("Duração do aquecimento executado na inicialização")
+                .register(meterRegistry);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!enabled)
+            return;
+
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+        var startNanos = System.nanoTime();
+        try {
+            var pricedOrders = warmUp(startNanos + TimeUnit.MILLISECONDS.toNanos(maxMillis));
+            durationNanos.set(System.nanoTime() - startNanos);
+            logger.info("Warm-up priced {} orders in {} ms.", pricedOrders, TimeUnit.NANOSECONDS.toMillis(durationNanos.get()));
+        } catch (RuntimeException e) {
+            durationNanos.set(System.nanoTime() - startNanos);
+            logger.warn("Warm-up failed; the application will accept traffic anyway.", e);
+        }
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    /**
+     * Executa o aquecimento e retorna a quantidade de pedidos sintéticos calculados.
+     *
+     * @param deadlineNanos O instante, em {@link System#nanoTime()}, em que o aquecimento deve parar.
+     */
+    int warmUp(long deadlineNanos) {
+        nameIndex.load();
+        var snapshot = catalogSnapshotService.getSnapshot();
+
+        var dishIds = snapshot.dishes().keySet().stream().sorted().toList();
+        var ingredientIds = snapshot.ingredients().keySet().stream().sorted().toList();
+        if (!ingredientIds.isEmpty())
+            ingredientService.findById(ingredientIds.get(0));
+        if (!snapshot.offers().isEmpty())
+            offerService.findOfferById(snapshot.offers().get(0).getId());
+        if (dishIds.isEmpty())
+            return 0;
+
+        dishService.findById(dishIds.get(0));
+        dishService.findSummaryById(dishIds.get(0));
+
+        return pricingMetrics.withoutRecording(() -> {
+            var priced = 0;
+            for (; priced < iterations && System.nanoTime() < deadlineNanos; priced++)
+                orderService.getOrderResponse(syntheticOrder(priced, dishIds, ingredientIds));
+            return priced;
+        });
+    }
+
+    /**
+     * Monta um pedido com até {@link #DISHES_PER_ORDER} lanches diferentes, alternando entre lanches sem adicionais e
+     * lanches com um ingrediente adicional em quantidades variadas, para que as promoções dos dois tipos de desconto
+     * sejam avaliadas.
+     */
+    private static List<DishOrderDto> syntheticOrder(int iteration, List<Long> dishIds, List<Long> ingredientIds) {
+        var dishCount = Math.min(DISHES_PER_ORDER, dishIds.size());
+        var order = new ArrayList<DishOrderDto>(dishCount);
+        for (var i = 0; i < dishCount; i++) {
+            var dishId = dishIds.get((iteration + i) % dishIds.size());
+            var extras = (iteration + i) % 2 == 0 || ingredientIds.isEmpty() ? List.<DishIngredientDto>of() : List.of(
+                    new DishIngredientDto(ingredientIds.get((iteration * 7 + i) % ingredientIds.size()), 1 + iteration % 4));
+            order.add(new DishOrderDto(dishId, extras));
+        }
+        return order;
+    }
+}
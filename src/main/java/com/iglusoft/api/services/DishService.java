@@ -1,48 +1,97 @@
 package com.iglusoft.api.services;
 
+import com.iglusoft.api.commons.ConstraintViolations;
 import com.iglusoft.api.commons.ObjectValidationResponse;
 import com.iglusoft.api.database.entities.Dish;
 import com.iglusoft.api.database.entities.DishIngredientQuantity;
+import com.iglusoft.api.database.entities.Ingredient;
 import com.iglusoft.api.database.repositories.DishRepository;
 import com.iglusoft.api.database.repositories.IngredientRepository;
+import com.iglusoft.api.dtos.DishDto;
 import com.iglusoft.api.dtos.NewEditDishDto;
+import com.iglusoft.api.dtos.NewEditDishIngredientQuantity;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
 import com.iglusoft.api.exceptions.BusinessException;
 import com.iglusoft.api.exceptions.NotFoundException;
 import com.iglusoft.api.interfaces.IValidatesObject;
+import com.iglusoft.api.jfr.CatalogMutationEvent;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class DishService implements IValidatesObject<Dish> {
     private final DishRepository dishRepository;
     private final IngredientRepository ingredientRepository;
+    private final CatalogChangeLogService catalogChangeLog;
+    private final CatalogNameIndexService nameIndex;
+    private final CatalogNegativeLookupCache negativeLookupCache;
+    private final EntityManager entityManager;
+    private final int listingChunkSize;
 
     public DishService(
             DishRepository dishRepository,
-            IngredientRepository ingredientRepository) {
+            IngredientRepository ingredientRepository,
+            CatalogChangeLogService catalogChangeLog,
+            CatalogNameIndexService nameIndex,
+            CatalogNegativeLookupCache negativeLookupCache,
+            EntityManager entityManager,
+            @Value("${iglusoft.catalog-listing.chunk-size:500}") int listingChunkSize) {
         this.dishRepository = dishRepository;
         this.ingredientRepository = ingredientRepository;
+        this.catalogChangeLog = catalogChangeLog;
+        this.nameIndex = nameIndex;
+        this.negativeLookupCache = negativeLookupCache;
+        this.entityManager = entityManager;
+        this.listingChunkSize = listingChunkSize;
     }
 
     public Dish findById(long id) {
-        return dishRepository.findById(id).orElseThrow(NotFoundException::new);
+        return negativeLookupCache.findOrThrow(CatalogEntityType.DISH, id, () -> dishRepository.findById(id));
+    }
+
+    /**
+     * Busca o lanche sem os ingredientes, sem carregar a entidade e sua lista de ingredientes.
+     */
+    public DishDto findSummaryById(long id) {
+        return negativeLookupCache.findOrThrow(CatalogEntityType.DISH, id, () -> dishRepository.findSummaryById(id));
     }
 
     @Transactional
     public Dish saveDish(NewEditDishDto newEditDishDto) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         boolean isEdit = newEditDishDto.id() != null;
         var dishToSave = isEdit ?
                 dishRepository.findById(newEditDishDto.id())
-                        .orElseThrow(NotFoundException::new) : new Dish();
+                        .orElseThrow(NotFoundException::instance) : new Dish();
 
         dishToSave.setName(newEditDishDto.name());
 
+        // Busca todos os ingredientes do prato em uma única consulta
+        var ingredientsById = this.ingredientRepository.findAllById(
+                newEditDishDto.ingredientsIds().stream().map(NewEditDishIngredientQuantity::ingredientId).toList()
+        ).stream().collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+
         dishToSave.getIngredients().clear();
         dishToSave.getIngredients().addAll(newEditDishDto.ingredientsIds().stream().map(it -> {
-            var ingredient = this.ingredientRepository.findById(it.ingredientId()).orElseThrow(NotFoundException::new);
+            var ingredient = ingredientsById.get(it.ingredientId());
+            if (ingredient == null)
+                throw NotFoundException.instance();
             return new DishIngredientQuantity(dishToSave, ingredient, it.quantity());
         }).toList());
 
@@ -51,19 +100,93 @@ public class DishService implements IValidatesObject<Dish> {
         if (response.isInvalid())
             throw new BusinessException(response.message());
 
-        return this.dishRepository.save(dishToSave);
+        Dish savedDish;
+        try {
+            // O flush faz a restrição unique do nome ser verificada aqui, e não somente no commit
+            savedDish = this.dishRepository.saveAndFlush(dishToSave);
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolationOf(e, Dish.NAME_CONSTRAINT))
+                throw e;
+            throw new BusinessException(String.format("Dish with name '%s' already exists.", dishToSave.getName()));
+        }
+        var changeType = isEdit ? CatalogChangeType.UPDATED : CatalogChangeType.CREATED;
+        catalogChangeLog.record(CatalogEntityType.DISH, savedDish.getId(), changeType);
+        nameIndex.recordSaved(CatalogEntityType.DISH, savedDish.getId(), savedDish.getName());
+
+        jfrEvent.end(CatalogEntityType.DISH, savedDish.getId(), changeType);
+
+        return savedDish;
     }
 
     public List<Dish> findAllDishes() {
-        return this.dishRepository.findAll();
+        return this.dishRepository.findAllWithIngredients();
+    }
+
+    /**
+     * Percorre todos os lanches em ordem de ID, em partes de {@code iglusoft.catalog-listing.chunk-size} lanches.
+     *
+     * @param action A ação executada para cada lanche, com os ingredientes já carregados.
+     *
+     * <p>
+     * Cada parte é lida com duas consultas: uma para os próximos IDs, a partir do último ID da parte anterior, e
+     * outra para os lanches desses IDs com seus ingredientes. Ao fim de cada parte, o contexto de persistência é
+     * limpo, então a memória usada depende do tamanho da parte e não do catálogo.
+     * </p>
+     *
+     * <p><strong>Decisões de Design:</strong></p>
+     * <ul>
+     *     <li>Um cursor sobre a consulta com {@code join fetch} devolveria uma linha por ingrediente e repetiria o
+     *     lanche em várias linhas; a paginação por ID mantém cada lanche inteiro dentro de uma única parte.</li>
+     *     <li>A paginação usa o último ID visto ({@code id > :after}) e não um deslocamento, então o custo de cada
+     *     parte não cresce à medida que a listagem avança.</li>
+     * </ul>
+     */
+    @Transactional
+    public void forEachDish(Consumer<Dish> action) {
+        var lastId = 0L;
+        List<Long> ids;
+        do {
+            ids = this.dishRepository.findIdsAfter(lastId, Limit.of(listingChunkSize));
+            if (ids.isEmpty())
+                return;
+
+            this.dishRepository.findAllWithIngredientsByIdIn(ids).forEach(action);
+            lastId = ids.get(ids.size() - 1);
+            entityManager.clear();
+        } while (ids.size() == listingChunkSize);
+    }
+
+    /**
+     * Igual a {@link #forEachDish(Consumer)}, mas sem os ingredientes: cada parte é lida com uma única consulta que
+     * não carrega as entidades.
+     */
+    @Transactional
+    public void forEachDishSummary(Consumer<DishDto> action) {
+        var lastId = 0L;
+        List<DishDto> dishes;
+        do {
+            dishes = this.dishRepository.findSummariesAfter(lastId, Limit.of(listingChunkSize));
+            if (dishes.isEmpty())
+                return;
+
+            dishes.forEach(action);
+            lastId = dishes.get(dishes.size() - 1).getId();
+        } while (dishes.size() == listingChunkSize);
     }
 
     @Transactional
     public void deleteDish(Long id) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         if (!this.dishRepository.existsById(id))
-            throw new NotFoundException();
+            throw NotFoundException.instance();
 
         this.dishRepository.deleteById(id);
+        catalogChangeLog.record(CatalogEntityType.DISH, id, CatalogChangeType.DELETED);
+        nameIndex.recordDeleted(CatalogEntityType.DISH, id);
+
+        jfrEvent.end(CatalogEntityType.DISH, id, CatalogChangeType.DELETED);
     }
 
     /**
@@ -109,53 +232,73 @@ public class DishService implements IValidatesObject<Dish> {
     }
 
     /**
-     * Valida um objeto {@link Dish} com base em várias regras de negócios.
+     * Valida uma lista de objetos {@link Dish} de uma vez, com base em várias regras de negócios.
      *
-     * @param dish O objeto {@link Dish} a ser validado.
-     * @return Um {@link ObjectValidationResponse} indicando se a validação foi bem-sucedida ou falhou,
-     *         juntamente com uma mensagem apropriada.
+     * @param dishes Os objetos {@link Dish} a serem validados.
+     * @return Uma lista de {@link ObjectValidationResponse}, na mesma ordem de {@code dishes}, indicando se a
+     *         validação de cada lanche foi bem-sucedida ou falhou, juntamente com uma mensagem apropriada.
      *
      * <p>
-     * Este método verifica se:
+     * Este método verifica, para cada lanche, se:
      * </p>
      * <ul>
      *     <li>O campo 'name' não está vazio.</li>
      *     <li>O campo 'totalPrice' é maior que zero.</li>
-     *     <li>Não existe outro prato com o mesmo nome e um ID diferente no repositório.</li>
+     *     <li>Não existe outro prato com o mesmo nome e um ID diferente no índice de nomes do catálogo, nem antes
+     *     dele na própria lista.</li>
+     *     <li>Todos os ingredientes referenciados existem.</li>
      * </ul>
      *
      * <p><strong>Exemplo de uso:</strong></p>
      * <pre>{@code
-     * Dish dish = new Dish();
-     * dish.setName("Pasta");
-     * dish.setTotalPrice(15L);
-     * dish.setId(1L);
-     *
-     * ObjectValidationResponse response = validate(dish);
-     * if (response.isValid()) {
-     *     System.out.println("Validation successful: " + response.getMessage());
-     * } else {
-     *     System.out.println("Validation failed: " + response.getMessage());
+     * List<ObjectValidationResponse> responses = validateAll(List.of(pasta, burger));
+     * for (int i = 0; i < responses.size(); i++) {
+     *     if (responses.get(i).isInvalid())
+     *         System.out.println("Dish " + i + " is invalid: " + responses.get(i).message());
      * }
      * }</pre>
      *
      * <p><strong>Decisões de Design:</strong></p>
      * <ul>
      *     <li>O uso de mensagens específicas de erro para fornecer feedback claro sobre falhas de validação.</li>
-     *     <li>A verificação de existência de um prato com o mesmo nome e ID diferente no repositório para garantir a unicidade do nome do prato.</li>
+     *     <li>A unicidade do nome é verificada no {@link CatalogNameIndexService}, em memória e sem consultar o banco de
+     *     dados; a restrição unique da coluna continua sendo a garantia final contra escritas concorrentes.</li>
+     *     <li>Os IDs dos ingredientes de todos os lanches são verificados juntos, em uma única passada pelo índice,
+     *     então o custo da validação não depende de uma consulta por lanche.</li>
      * </ul>
      */
     @Override
-    public ObjectValidationResponse validate(Dish dish) {
+    public List<ObjectValidationResponse> validateAll(List<Dish> dishes) {
+        var missingIngredientIds = nameIndex.findMissingIds(CatalogEntityType.INGREDIENT, dishes.stream()
+                .flatMap(dish -> dish.getIngredients().stream())
+                .map(it -> it.getIngredient() == null ? null : it.getIngredient().getId())
+                .collect(Collectors.toSet()));
+
+        var dishesByName = new HashMap<String, Dish>();
+        var responses = new ArrayList<ObjectValidationResponse>(dishes.size());
+        for (var dish : dishes) {
+            var sameNameDish = dishesByName.putIfAbsent(dish.getName(), dish);
+            responses.add(validate(dish, sameNameDish != null && sameNameDish != dish, missingIngredientIds));
+        }
+        return responses;
+    }
+
+    private ObjectValidationResponse validate(Dish dish, boolean nameRepeatedInBatch, Set<Long> missingIngredientIds) {
         if (dish.getName().isEmpty()) {
             return new ObjectValidationResponse(false, "Field 'name' cannot be empty.");
         }
         if (dish.getTotalPrice() <= 0) {
             return new ObjectValidationResponse(false, "Field 'totalPrice' cannot be less or equal than zero.");
         }
-        if (this.dishRepository.existsByNameAndIdNot(dish.getName(), dish.getId())) {
+        if (nameRepeatedInBatch || nameIndex.isNameTaken(CatalogEntityType.DISH, dish.getName(), dish.getId())) {
             return new ObjectValidationResponse(false, String.format("Dish with name '%s' already exists.", dish.getName()));
         }
+        for (var dishIngredientQuantity : dish.getIngredients()) {
+            var ingredient = dishIngredientQuantity.getIngredient();
+            var ingredientId = ingredient == null ? null : ingredient.getId();
+            if (missingIngredientIds.contains(ingredientId))
+                return new ObjectValidationResponse(false, String.format("Ingredient with id '%s' does not exist.", ingredientId));
+        }
 
         return new ObjectValidationResponse(true, "Validated successfully.");
     }
@@ -1,35 +1,60 @@
 package com.iglusoft.api.services;
 
+import com.iglusoft.api.commons.ConstraintViolations;
 import com.iglusoft.api.commons.ObjectValidationResponse;
 import com.iglusoft.api.dtos.NewEditIngredientDto;
 import com.iglusoft.api.database.entities.Ingredient;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
 import com.iglusoft.api.exceptions.BusinessException;
 import com.iglusoft.api.exceptions.NotFoundException;
 import com.iglusoft.api.interfaces.IValidatesObject;
+import com.iglusoft.api.jfr.CatalogMutationEvent;
 import com.iglusoft.api.database.repositories.DishIngredientQuantityRepository;
 import com.iglusoft.api.database.repositories.IngredientRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class IngredientService implements IValidatesObject<Ingredient> {
     private final IngredientRepository ingredientRepository;
     private final DishIngredientQuantityRepository dishIngredientQuantityRepository;
-
-    public IngredientService(IngredientRepository ingredientRepository, DishIngredientQuantityRepository dishIngredientQuantityRepository) {
+    private final CatalogChangeLogService catalogChangeLog;
+    private final CatalogNameIndexService nameIndex;
+    private final CatalogNegativeLookupCache negativeLookupCache;
+    private final EntityManager entityManager;
+
+    public IngredientService(
+            IngredientRepository ingredientRepository,
+            DishIngredientQuantityRepository dishIngredientQuantityRepository,
+            CatalogChangeLogService catalogChangeLog,
+            CatalogNameIndexService nameIndex,
+            CatalogNegativeLookupCache negativeLookupCache,
+            EntityManager entityManager) {
         this.ingredientRepository = ingredientRepository;
         this.dishIngredientQuantityRepository = dishIngredientQuantityRepository;
+        this.catalogChangeLog = catalogChangeLog;
+        this.nameIndex = nameIndex;
+        this.negativeLookupCache = negativeLookupCache;
+        this.entityManager = entityManager;
     }
 
     @Transactional
     public Ingredient saveIngredient(NewEditIngredientDto newEditIngredientDto) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         boolean isEdit = newEditIngredientDto.id() != null;
         var ingredientToSave = isEdit ?
                 ingredientRepository.findById(newEditIngredientDto.id())
-                        .orElseThrow(NotFoundException::new) : new Ingredient();
+                        .orElseThrow(NotFoundException::instance) : new Ingredient();
 
         ingredientToSave.setName(newEditIngredientDto.name());
         ingredientToSave.setSalePrice(newEditIngredientDto.salePrice());
@@ -38,75 +63,115 @@ public class IngredientService implements IValidatesObject<Ingredient> {
         if (validationResponse.isInvalid())
             throw new BusinessException(validationResponse.message());
 
-        return this.ingredientRepository.save(ingredientToSave);
+        Ingredient savedIngredient;
+        try {
+            // O flush faz a restrição unique do nome ser verificada aqui, e não somente no commit
+            savedIngredient = this.ingredientRepository.saveAndFlush(ingredientToSave);
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolationOf(e, Ingredient.NAME_CONSTRAINT))
+                throw e;
+            throw new BusinessException(String.format("Ingredient with name '%s' already exists.", ingredientToSave.getName()));
+        }
+        var changeType = isEdit ? CatalogChangeType.UPDATED : CatalogChangeType.CREATED;
+        catalogChangeLog.record(CatalogEntityType.INGREDIENT, savedIngredient.getId(), changeType);
+        nameIndex.recordSaved(CatalogEntityType.INGREDIENT, savedIngredient.getId(), savedIngredient.getName());
+
+        jfrEvent.end(CatalogEntityType.INGREDIENT, savedIngredient.getId(), changeType);
+
+        return savedIngredient;
     }
 
     public List<Ingredient> findAllIngredients() {
         return this.ingredientRepository.findAll();
     }
 
+    /**
+     * Percorre todos os ingredientes em ordem de ID, lendo-os com um cursor e desanexando cada um do contexto de
+     * persistência assim que {@code action} termina, para que a memória usada não cresça com o catálogo.
+     */
+    @Transactional
+    public void forEachIngredient(Consumer<Ingredient> action) {
+        try (var ingredients = this.ingredientRepository.streamAllByOrderById()) {
+            ingredients.forEach(ingredient -> {
+                action.accept(ingredient);
+                entityManager.detach(ingredient);
+            });
+        }
+    }
+
     public Ingredient findById(Long id) {
-        return this.ingredientRepository.findById(id).orElseThrow(NotFoundException::new);
+        return negativeLookupCache.findOrThrow(CatalogEntityType.INGREDIENT, id, () -> this.ingredientRepository.findById(id));
     }
 
     @Transactional
     public void deleteIngredient(Long id) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         if (!this.ingredientRepository.existsById(id))
-            throw new NotFoundException();
+            throw NotFoundException.instance();
 
         if (this.dishIngredientQuantityRepository.existsByIngredientId(id))
             throw new BusinessException(String.format("Cannot delete the ingredient with id '%d' because it is being used by a dish.", id));
 
         this.ingredientRepository.deleteById(id);
+        catalogChangeLog.record(CatalogEntityType.INGREDIENT, id, CatalogChangeType.DELETED);
+        nameIndex.recordDeleted(CatalogEntityType.INGREDIENT, id);
+
+        jfrEvent.end(CatalogEntityType.INGREDIENT, id, CatalogChangeType.DELETED);
     }
 
     /**
-     * Valida um objeto {@link Ingredient} com base em várias regras de negócios.
+     * Valida uma lista de objetos {@link Ingredient} de uma vez, com base em várias regras de negócios.
      *
-     * @param ingredient O objeto {@link Ingredient} a ser validado.
-     * @return Um {@link ObjectValidationResponse} indicando se a validação foi bem-sucedida ou falhou,
-     *         juntamente com uma mensagem apropriada.
+     * @param ingredients Os objetos {@link Ingredient} a serem validados.
+     * @return Uma lista de {@link ObjectValidationResponse}, na mesma ordem de {@code ingredients}, indicando se a
+     *         validação de cada ingrediente foi bem-sucedida ou falhou, juntamente com uma mensagem apropriada.
      *
      * <p>
-     * Este método verifica se:
+     * Este método verifica, para cada ingrediente, se:
      * </p>
      * <ul>
      *     <li>O campo 'name' não está vazio.</li>
      *     <li>O campo 'salePrice' é maior que zero.</li>
-     *     <li>Não existe outro ingrediente com o mesmo nome e um ID diferente no repositório.</li>
+     *     <li>Não existe outro ingrediente com o mesmo nome e um ID diferente no índice de nomes do catálogo, nem
+     *     antes dele na própria lista.</li>
      * </ul>
      *
      * <p><strong>Exemplo de uso:</strong></p>
      * <pre>{@code
-     * Ingredient ingredient = new Ingredient();
-     * ingredient.setName("Tomato");
-     * ingredient.setSalePrice(3L);
-     * ingredient.setId(1L);
-     *
-     * ObjectValidationResponse response = validate(ingredient);
-     * if (response.isValid()) {
-     *     System.out.println("Validation successful: " + response.getMessage());
-     * } else {
-     *     System.out.println("Validation failed: " + response.getMessage());
+     * List<ObjectValidationResponse> responses = validateAll(List.of(tomato, cheese));
+     * if (responses.stream().allMatch(ObjectValidationResponse::isValid)) {
+     *     System.out.println("All ingredients are valid.");
      * }
      * }</pre>
      *
      * <p><strong>Decisões de Design:</strong></p>
      * <ul>
      *     <li>O uso de mensagens específicas de erro para fornecer feedback claro sobre falhas de validação.</li>
-     *     <li>A verificação de existência de um ingrediente com o mesmo nome e ID diferente no repositório para garantir a unicidade do nome do ingrediente.</li>
-     *     <li>Uso de `Optional.ofNullable` para tratar o caso de ID nulo, garantindo que um valor padrão de 0 seja usado.</li>
+     *     <li>A unicidade do nome é verificada no {@link CatalogNameIndexService}, em memória e sem consultar o banco de
+     *     dados; a restrição unique da coluna continua sendo a garantia final contra escritas concorrentes.</li>
      * </ul>
      */
     @Override
-    public ObjectValidationResponse validate(Ingredient ingredient) {
+    public List<ObjectValidationResponse> validateAll(List<Ingredient> ingredients) {
+        var ingredientsByName = new HashMap<String, Ingredient>();
+        var responses = new ArrayList<ObjectValidationResponse>(ingredients.size());
+        for (var ingredient : ingredients) {
+            var sameNameIngredient = ingredientsByName.putIfAbsent(ingredient.getName(), ingredient);
+            responses.add(validate(ingredient, sameNameIngredient != null && sameNameIngredient != ingredient));
+        }
+        return responses;
+    }
+
+    private ObjectValidationResponse validate(Ingredient ingredient, boolean nameRepeatedInBatch) {
         if (ingredient.getName().isEmpty()) {
             return new ObjectValidationResponse(false, "Field 'name' cannot be empty.");
         }
         if (ingredient.getSalePrice() <= 0) {
             return new ObjectValidationResponse(false, "Field 'salePrice' cannot be less or equal than zero.");
         }
-        if (this.ingredientRepository.existsByNameAndIdNot(ingredient.getName(), Optional.ofNullable(ingredient.getId()).orElse(0L))) {
+        if (nameRepeatedInBatch || nameIndex.isNameTaken(CatalogEntityType.INGREDIENT, ingredient.getName(), ingredient.getId())) {
             return new ObjectValidationResponse(false, String.format("Ingredient with name '%s' already exists.", ingredient.getName()));
         }
 
@@ -0,0 +1,265 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.commons.StripedStockCounter;
+import com.iglusoft.api.database.entities.IngredientStock;
+import com.iglusoft.api.database.repositories.IngredientStockRepository;
+import com.iglusoft.api.exceptions.BusinessException;
+import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.tenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Controla o estoque dos ingredientes e reserva os ingredientes de cada pedido.
+ *
+ * <p>
+ * A tabela {@code INGREDIENT_STOCK} guarda o estoque ainda não entregue a nenhuma instância da aplicação. Cada instância
+ * retira do banco de dados um lote de {@code iglusoft.inventory.lease-size} unidades por vez
+ * ({@code quantity = quantity - lote where quantity >= lote}) e reserva os pedidos a partir desse lote, que fica em
+ * memória em um {@link StripedStockCounter}. As reservas e devoluções alteram somente o contador em memória; o saldo
+ * não usado volta ao banco de dados a cada {@code iglusoft.inventory.flush-interval-millis} e no encerramento da
+ * aplicação. Os ingredientes sem linha em {@code INGREDIENT_STOCK} não têm o estoque controlado e podem ser pedidos
+ * sem limite.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * inventoryService.restock(2L, 100);
+ * inventoryService.reserve(Map.of(2L, 5, 3L, 1)); // BusinessException se algum ingrediente não tiver saldo
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>Um contador com lock por linha de {@code Ingredient} faria todos os pedidos com queijo esperarem uns pelos
+ *     outros. Com o contador dividido em faixas e sem locks, pedidos simultâneos do mesmo ingrediente normalmente
+ *     alteram posições de memória diferentes.</li>
+ *     <li>A reserva de um pedido é tudo ou nada: os ingredientes são retirados um a um e, se algum não tiver saldo,
+ *     os já retirados são devolvidos antes de recusar o pedido. Enquanto isso, outro pedido pode ver o saldo
+ *     temporariamente menor e ser recusado também; o estoque nunca é vendido além do disponível.</li>
+ *     <li>Uma unidade só é reservada depois de sair do banco de dados por uma atualização condicional, então várias
+ *     instâncias nunca vendem juntas mais do que o estoque. O banco de dados é consultado uma vez por lote, e não uma
+ *     vez por pedido.</li>
+ *     <li>Um lote parado em uma instância não pode ser usado pelas outras até voltar ao banco de dados, então perto do
+ *     fim do estoque uma instância pode recusar um pedido que outra ainda atenderia. O tamanho do lote limita o saldo
+ *     retido em cada instância, e a devolução periódica limita o tempo.</li>
+ *     <li>O banco de dados recebe somente retiradas e devoluções ({@code quantity = quantity +/- lote}), e nunca o
+ *     saldo em memória, então uma reposição gravada diretamente no banco de dados não é sobrescrita. Se a aplicação
+ *     parar sem encerrar normalmente, o saldo não usado dos lotes em memória é perdido.</li>
+ *     <li>A primeira reposição de um ingrediente insere a sua linha em {@code INGREDIENT_STOCK}. Se duas instâncias
+ *     fazem isso ao mesmo tempo, a chave primária recusa a segunda inserção, e essa reposição é somada à linha já
+ *     inserida.</li>
+ *     <li>Os IDs dos ingredientes são únicos entre os restaurantes, então os contadores são indexados somente pelo
+ *     ID; os pedidos só chegam aqui com ingredientes encontrados no catálogo do restaurante atual.</li>
+ * </ul>
+ */
+@Service
+public class InventoryService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    private final IngredientStockRepository ingredientStockRepository;
+    private final IngredientService ingredientService;
+    private final int stripes;
+    private final long leaseSize;
+    private final Map<Long, TrackedStock> stocks = new ConcurrentHashMap<>();
+    private final Counter acceptedReservations;
+    private final Counter rejectedReservations;
+
+    public InventoryService(
+            IngredientStockRepository ingredientStockRepository,
+            IngredientService ingredientService,
+            MeterRegistry meterRegistry,
+            @Value("${iglusoft.inventory.stripes:0}") int stripes,
+            @Value("${iglusoft.inventory.lease-size:50}") long leaseSize) {
+        this.ingredientStockRepository = ingredientStockRepository;
+        this.ingredientService = ingredientService;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.leaseSize = Math.max(leaseSize, 1L);
+
+        Gauge.builder("inventory.ingredients.tracked", stocks, Map::size)
+                .description("Ingredientes com o estoque controlado")
+                .register(meterRegistry);
+        this.acceptedReservations = Counter.builder("inventory.reservations")
+                .description("Reservas de ingredientes dos pedidos")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.rejectedReservations = Counter.builder("inventory.reservations")
+                .description("Reservas de ingredientes dos pedidos")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+
+        trackNewIngredients();
+    }
+
+    /**
+     * Reserva as quantidades de todos os ingredientes de um pedido.
+     *
+     * @param quantities A quantidade total de cada ingrediente no pedido, pelo ID do ingrediente.
+     * @throws BusinessException Se algum ingrediente com estoque controlado não tiver saldo suficiente; nesse caso
+     *                           nenhum ingrediente fica reservado.
+     */
+    public void reserve(Map<Long, Integer> quantities) {
+        var reserved = new ArrayList<Map.Entry<Long, Integer>>(quantities.size());
+        for (var entry : quantities.entrySet()) {
+            var stock = stocks.get(entry.getKey());
+            if (stock == null || entry.getValue() <= 0)
+                continue;
+
+            if (!stock.available().tryTake(entry.getValue()) && !takeWithLease(entry.getKey(), stock, entry.getValue())) {
+                reserved.forEach(it -> release(it.getKey(), it.getValue()));
+                rejectedReservations.increment();
+                throw new BusinessException(String.format("Insufficient stock for ingredient %d.", entry.getKey()));
+            }
+            reserved.add(entry);
+        }
+        acceptedReservations.increment();
+    }
+
+    /**
+     * Devolve ao estoque as quantidades reservadas por {@link #reserve(Map)}.
+     */
+    public void release(Map<Long, Integer> quantities) {
+        quantities.forEach(this::release);
+    }
+
+    /**
+     * Acrescenta unidades ao estoque de um ingrediente, passando a controlar o seu estoque se ainda não era controlado.
+     * A reposição é gravada no banco de dados imediatamente e fica disponível para todas as instâncias.
+     *
+     * @return O saldo disponível depois da reposição.
+     * @throws NotFoundException Se o ingrediente não existir no restaurante atual.
+     */
+    public long restock(long ingredientId, long amount) {
+        if (amount <= 0)
+            throw new BusinessException("The restocked amount must be positive.");
+        ingredientService.findById(ingredientId);
+
+        if (ingredientStockRepository.addToQuantity(ingredientId, amount) == 0)
+            insertStock(ingredientId, amount);
+        stocks.computeIfAbsent(ingredientId, this::newTrackedStock);
+        return getAvailable(ingredientId);
+    }
+
+    /**
+     * Passa a controlar o estoque de um ingrediente. Se outra instância, ou outra thread, inseriu a linha do
+     * ingrediente entre a atualização e a inserção, a chave primária recusa a segunda inserção e a reposição é somada
+     * à linha já existente.
+     */
+    private void insertStock(long ingredientId, long amount) {
+        try {
+            ingredientStockRepository.insert(ingredientId, TenantContext.current(), amount);
+        } catch (DataIntegrityViolationException e) {
+            if (ingredientStockRepository.addToQuantity(ingredientId, amount) == 0)
+                throw e;
+        }
+    }
+
+    /**
+     * Retorna o saldo disponível de um ingrediente para esta instância: o saldo do lote em memória mais o estoque
+     * ainda no banco de dados. Os lotes em memória das outras instâncias não são contados.
+     *
+     * @throws NotFoundException Se o ingrediente não existir no restaurante atual ou não tiver o estoque controlado.
+     */
+    public long getAvailable(long ingredientId) {
+        ingredientService.findById(ingredientId);
+        var stock = stocks.get(ingredientId);
+        if (stock == null)
+            throw NotFoundException.instance();
+        var stored = ingredientStockRepository.findById(ingredientId).map(IngredientStock::getQuantity).orElse(0L);
+        return stock.available().sum() + stored;
+    }
+
+    /**
+     * Devolve ao banco de dados o saldo não usado dos lotes em memória, para que as outras instâncias possam usá-lo,
+     * e passa a controlar os ingredientes repostos por outras instâncias. Um saldo que não pôde ser devolvido volta ao
+     * lote em memória e é devolvido na próxima vez.
+     */
+    @Scheduled(
+            initialDelayString = "${iglusoft.inventory.flush-interval-millis:1000}",
+            fixedDelayString = "${iglusoft.inventory.flush-interval-millis:1000}")
+    public void flush() {
+        stocks.forEach((ingredientId, stock) -> {
+            var unused = stock.available().sum();
+            if (unused <= 0 || !stock.available().tryTake(unused))
+                return;
+            try {
+                ingredientStockRepository.addToQuantity(ingredientId, unused);
+            } catch (RuntimeException e) {
+                stock.available().add(unused);
+                logger.warn("Failed to return the stock of ingredient {}", ingredientId, e);
+            }
+        });
+        trackNewIngredients();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void release(Long ingredientId, Integer quantity) {
+        var stock = stocks.get(ingredientId);
+        if (stock == null || quantity <= 0)
+            return;
+        stock.available().add(quantity);
+    }
+
+    /**
+     * Retira um novo lote do banco de dados e reserva {@code quantity} unidades a partir dele. Perto do fim do
+     * estoque, quando o banco de dados não tem um lote inteiro, retira somente o que falta para o pedido.
+     *
+     * <p>
+     * Uma thread por ingrediente retira o lote; as outras esperam e reservam a partir do lote já retirado, em vez de
+     * retirarem um lote cada.
+     * </p>
+     */
+    private boolean takeWithLease(Long ingredientId, TrackedStock stock, long quantity) {
+        stock.leaseLock().lock();
+        try {
+            if (stock.available().tryTake(quantity))
+                return true;
+
+            var missing = quantity - stock.available().sum();
+            var lease = Math.max(leaseSize, missing);
+            if (ingredientStockRepository.takeFromQuantity(ingredientId, lease) == 0) {
+                lease = missing;
+                if (ingredientStockRepository.takeFromQuantity(ingredientId, lease) == 0)
+                    return false;
+            }
+            stock.available().add(lease);
+            return stock.available().tryTake(quantity);
+        } finally {
+            stock.leaseLock().unlock();
+        }
+    }
+
+    private void trackNewIngredients() {
+        ingredientStockRepository.findAllInAllTenants()
+                .forEach(row -> stocks.computeIfAbsent(row.getIngredientId(), this::newTrackedStock));
+    }
+
+    private TrackedStock newTrackedStock(Long ingredientId) {
+        return new TrackedStock(new StripedStockCounter(stripes));
+    }
+
+    /**
+     * O saldo do lote de um ingrediente em memória e o lock de quem retira um novo lote do banco de dados.
+     */
+    private record TrackedStock(StripedStockCounter available, ReentrantLock leaseLock) {
+        TrackedStock(StripedStockCounter available) {
+            this(available, new ReentrantLock());
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.commons.MultiProducerRingBuffer;
+import com.iglusoft.api.config.KitchenProperties;
+import com.iglusoft.api.dtos.KitchenTicketDto;
+import com.iglusoft.api.dtos.OrderDishResponseDto;
+import com.iglusoft.api.dtos.OrderIngredientResponseDto;
+import com.iglusoft.api.dtos.OrderResponseDto;
+import com.iglusoft.api.exceptions.BusinessException;
+import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.tenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Envia os itens de cada pedido às estações da cozinha (chapa, fritadeira, montagem) e às telas de cada estação.
+ *
+ * <p>
+ * Os pedidos são publicados em um {@link MultiProducerRingBuffer}, um item por lanche do pedido. Cada estação tem a
+ * sua própria thread, que lê os itens em lotes de até {@code iglusoft.kitchen.batch-size} e envia às telas da estação
+ * somente os itens com ingredientes preparados por ela, configurados em {@code iglusoft.kitchen.stations.*}. A
+ * estação de montagem ({@code iglusoft.kitchen.assembly-station}) recebe todos os itens.
+ * </p>
+ *
+ * <p>
+ * As telas recebem os itens via Server-Sent Events, cada uma somente os do seu restaurante (tenant). Como no
+ * {@link CatalogChangeStreamService}, cada tela tem uma fila limitada esvaziada por um pequeno grupo de threads de
+ * escrita, e uma tela que não acompanha os itens é desconectada, sem atrasar a estação.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var response = orderService.placeOrder(order);
+ * kitchenDispatchService.dispatch(TenantContext.current(), response);
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>Uma fila com lock faria as requisições de pedido disputarem o mesmo lock com as estações no horário de
+ *     pico. Na fila circular, publicar é um compare-and-set e as posições são pré-alocadas, sem criar objetos por
+ *     item.</li>
+ *     <li>As estações com itens pendentes leem a fila sem pausa; sem itens, a pausa dobra até
+ *     {@code iglusoft.kitchen.max-idle-micros}, e um novo pedido acorda as estações imediatamente. Como o pedido
+ *     acorda as estações, a pausa máxima não atrasa os itens e pode ser longa, sem manter uma thread por estação
+ *     acordando à toa. A latência até a tela é medida em {@code kitchen.ticket.latency}, com histograma limitado a 1
+ *     segundo.</li>
+ *     <li>Todas as posições de um pedido são reservadas de uma vez, então uma estação nunca recebe só parte de um
+ *     pedido. Um pedido com mais lanches que a fila tem posições é recusado antes de ser aceito
+ *     ({@link #checkOrderSize(int)}).</li>
+ *     <li>Com a fila cheia por mais de {@code iglusoft.kitchen.publish-timeout-millis}, os itens do pedido são
+ *     descartados e contados em {@code kitchen.tickets.dropped}, em vez de segurar a requisição do cliente; o pedido
+ *     em si já foi aceito e reservado.</li>
+ * </ul>
+ */
+@Service
+public class KitchenDispatchService {
+    public static final String TICKET_EVENT = "kitchen-ticket";
+
+    private static final Logger logger = LoggerFactory.getLogger(KitchenDispatchService.class);
+    private static final long MIN_IDLE_NANOS = 1_000L;
+    private static final int MAX_STATIONS = Long.SIZE;
+
+    private final MultiProducerRingBuffer<TicketSlot> ring;
+    private final Map<String, Station> stations = new LinkedHashMap<>();
+    private final Map<String, Long> ingredientStations = new HashMap<>();
+    private final long assemblyMask;
+    private final int batchSize;
+    private final long publishTimeoutNanos;
+    private final long maxIdleNanos;
+    private final int feedBufferSize;
+    private final long feedTimeoutMillis;
+    private final AtomicLong orderNumbers = new AtomicLong();
+    private final Counter droppedTickets;
+    private final Counter droppedSubscribers;
+    private final ExecutorService writers;
+
+    private volatile boolean running = true;
+
+    public KitchenDispatchService(KitchenProperties properties, MeterRegistry meterRegistry) {
+        this.batchSize = properties.batchSize();
+        this.publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.publishTimeoutMillis());
+        this.maxIdleNanos = Math.max(MIN_IDLE_NANOS, TimeUnit.MICROSECONDS.toNanos(properties.maxIdleMicros()));
+        this.feedBufferSize = properties.feedBufferSize();
+        this.feedTimeoutMillis = properties.feedTimeoutMillis();
+
+        var assemblyStation = properties.assemblyStation().toLowerCase(Locale.ROOT);
+        var stationNames = new ArrayList<String>();
+        stationNames.add(assemblyStation);
+        properties.stations().keySet().stream()
+                .map(it -> it.toLowerCase(Locale.ROOT))
+                .filter(it -> !stationNames.contains(it))
+                .forEach(stationNames::add);
+        if (stationNames.size() > MAX_STATIONS)
+            throw new IllegalStateException(String.format("At most %d kitchen stations are supported.", MAX_STATIONS));
+
+        for (var index = 0; index < stationNames.size(); index++)
+            stations.put(stationNames.get(index), new Station(index, stationNames.get(index), meterRegistry));
+        this.assemblyMask = stations.get(assemblyStation).mask();
+        properties.stations().forEach((station, ingredients) -> {
+            var mask = stations.get(station.toLowerCase(Locale.ROOT)).mask();
+            ingredients.forEach(ingredient -> ingredientStations.merge(normalize(ingredient), mask, (a, b) -> a | b));
+        });
+
+        this.ring = new MultiProducerRingBuffer<>(properties.ringSize(), TicketSlot::new, stations.size());
+
+        Gauge.builder("kitchen.ring.backlog", ring, MultiProducerRingBuffer::backlog)
+                .description("Itens publicados que a estação mais lenta ainda não leu")
+                .register(meterRegistry);
+        Gauge.builder("kitchen.feed.subscribers", stations, it -> it.values().stream().mapToInt(station -> station.subscribers.size()).sum())
+                .description("Telas conectadas às estações da cozinha")
+                .register(meterRegistry);
+        this.droppedTickets = Counter.builder("kitchen.tickets.dropped")
+                .description("Itens de pedido descartados com a fila da cozinha cheia")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("kitchen.feed.dropped")
+                .description("Telas desconectadas por não acompanharem os itens da estação")
+                .register(meterRegistry);
+
+        var threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(2, runnable -> daemon(runnable, "kitchen-feed-writer-" + threadCount.incrementAndGet()));
+        stations.values().forEach(station -> {
+            station.thread = daemon(() -> runStation(station), "kitchen-station-" + station.name);
+            station.thread.start();
+        });
+    }
+
+    /**
+     * Verifica se um pedido com {@code dishCount} lanches cabe na fila da cozinha. Deve ser chamado antes de aceitar
+     * o pedido.
+     *
+     * @throws BusinessException Se o pedido tiver mais lanches do que a fila tem posições.
+     */
+    public void checkOrderSize(int dishCount) {
+        if (dishCount > ring.size())
+            throw new BusinessException(String.format("An order cannot have more than %d dishes.", ring.size()));
+    }
+
+    /**
+     * Envia os lanches do pedido às estações da cozinha.
+     *
+     * @param tenantId O restaurante do pedido.
+     * @param order    O pedido calculado.
+     * @return O número do pedido na cozinha, ou {@code -1} se os itens foram descartados com a fila cheia.
+     */
+    public long dispatch(String tenantId, OrderResponseDto order) {
+        var dishes = order.dishes();
+        if (dishes.isEmpty() || !running)
+            return -1;
+
+        var orderNumber = orderNumbers.incrementAndGet();
+        // O pedido inteiro é reservado de uma vez: ou todos os itens chegam às estações, ou nenhum
+        var first = dishes.size() > ring.size() ? -1 : ring.claim(dishes.size(), publishTimeoutNanos);
+        if (first < 0) {
+            droppedTickets.increment(dishes.size());
+            logger.warn("Kitchen ring buffer has no room, dropped {} items of order {}", dishes.size(), orderNumber);
+            return -1;
+        }
+
+        var stationsToWake = 0L;
+        var publishedNanos = System.nanoTime();
+        for (var i = 0; i < dishes.size(); i++) {
+            var dish = dishes.get(i);
+            var slot = ring.get(first + i);
+            slot.orderNumber = orderNumber;
+            slot.tenantId = tenantId;
+            slot.dish = dish;
+            slot.stationMask = route(dish);
+            slot.publishedNanos = publishedNanos;
+            stationsToWake |= slot.stationMask;
+        }
+        ring.publish(first, first + dishes.size() - 1);
+
+        wake(stationsToWake);
+        return orderNumber;
+    }
+
+    /**
+     * Conecta uma tela à estação informada, para receber os itens do restaurante atual a partir de agora.
+     *
+     * @throws NotFoundException Se a estação não existir.
+     */
+    public SseEmitter subscribe(String stationName) {
+        var station = stations.get(stationName.toLowerCase(Locale.ROOT));
+        if (station == null)
+            throw NotFoundException.instance();
+
+        var subscriber = new FeedSubscriber(new SseEmitter(feedTimeoutMillis), feedBufferSize, TenantContext.current());
+        subscriber.emitter.onCompletion(() -> station.subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> station.subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> station.subscribers.remove(subscriber));
+        station.subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    public Set<String> getStations() {
+        return stations.keySet();
+    }
+
+    @Scheduled(
+            initialDelayString = "${iglusoft.kitchen.heartbeat-millis:15000}",
+            fixedDelayString = "${iglusoft.kitchen.heartbeat-millis:15000}")
+    public void sendHeartbeat() {
+        // Mantém a conexão aberta em proxies e detecta telas que já se desconectaram
+        stations.values().forEach(station -> station.subscribers.forEach(it -> enqueue(station, it, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        for (var station : stations.values()) {
+            LockSupport.unpark(station.thread);
+            station.thread.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        writers.shutdownNow();
+        stations.values().forEach(station -> station.subscribers.forEach(it -> it.emitter.complete()));
+    }
+
+    /**
+     * Retorna as estações que devem receber o lanche: a montagem e as que preparam algum dos seus ingredientes.
+     */
+    private long route(OrderDishResponseDto dish) {
+        var mask = assemblyMask;
+        for (var ingredient : dish.ingredients())
+            mask |= ingredientStations.getOrDefault(normalize(ingredient.name()), 0L);
+        return mask;
+    }
+
+    private void wake(long stationMask) {
+        for (var station : stations.values()) {
+            if ((stationMask & station.mask()) != 0)
+                LockSupport.unpark(station.thread);
+        }
+    }
+
+    private void runStation(Station station) {
+        var idleNanos = MIN_IDLE_NANOS;
+        while (running) {
+            int drained;
+            try {
+                drained = ring.drain(station.index, batchSize, station::onEvent);
+            } catch (RuntimeException e) {
+                logger.warn("Kitchen station {} failed to handle a batch", station.name, e);
+                station.pending.clear();
+                continue;
+            }
+
+            if (drained > 0) {
+                idleNanos = MIN_IDLE_NANOS;
+            } else {
+                LockSupport.parkNanos(idleNanos);
+                idleNanos = Math.min(idleNanos * 2, maxIdleNanos);
+            }
+        }
+    }
+
+    private void enqueue(Station station, FeedSubscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            drop(station, subscriber);
+            return;
+        }
+        if (subscriber.writing.compareAndSet(false, true))
+            writers.execute(() -> write(station, subscriber));
+    }
+
+    private void write(Station station, FeedSubscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null)
+                subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Kitchen screen disconnected: {}", e.getMessage());
+            station.subscribers.remove(subscriber);
+            subscriber.dropped = true;
+            subscriber.queue.clear();
+            return;
+        } finally {
+            subscriber.writing.set(false);
+        }
+
+        // Um item pode ter entrado na fila depois do último poll e antes de liberar a escrita
+        if (!subscriber.queue.isEmpty() && subscriber.writing.compareAndSet(false, true))
+            writers.execute(() -> write(station, subscriber));
+    }
+
+    private void drop(Station station, FeedSubscriber subscriber) {
+        if (subscriber.dropped)
+            return;
+
+        subscriber.dropped = true;
+        station.subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        droppedSubscribers.increment();
+        subscriber.emitter.complete();
+    }
+
+    private static String normalize(String ingredientName) {
+        return ingredientName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Uma posição da fila circular, reaproveitada a cada volta. Os campos são escritos pelo produtor antes de
+     * {@link MultiProducerRingBuffer#publish(long, long)} e só são lidos pelas estações depois dele.
+     */
+    private static final class TicketSlot {
+        private long orderNumber;
+        private String tenantId;
+        private OrderDishResponseDto dish;
+        private long stationMask;
+        private long publishedNanos;
+    }
+
+    private record PendingTicket(String tenantId, KitchenTicketDto ticket, long publishedNanos) {
+    }
+
+    private final class Station {
+        private final int index;
+        private final String name;
+        private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Timer latency;
+        private final DistributionSummary batchSizes;
+
+        // Usado somente pela thread da estação
+        private final List<PendingTicket> pending = new ArrayList<>();
+        private Thread thread;
+
+        private Station(int index, String name, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.name = name;
+            this.latency = Timer.builder("kitchen.ticket.latency")
+                    .description("Tempo entre a publicação do pedido e o envio do item às telas da estação")
+                    .tag("station", name)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .minimumExpectedValue(Duration.ofNanos(MIN_IDLE_NANOS))
+                    .maximumExpectedValue(Duration.ofSeconds(1))
+                    .register(meterRegistry);
+            this.batchSizes = DistributionSummary.builder("kitchen.batch.size")
+                    .description("Itens lidos da fila de uma vez pela estação")
+                    .tag("station", name)
+                    .register(meterRegistry);
+        }
+
+        private long mask() {
+            return 1L << index;
+        }
+
+        private void onEvent(TicketSlot slot, long sequence, boolean endOfBatch) {
+            if ((slot.stationMask & mask()) != 0)
+                pending.add(new PendingTicket(slot.tenantId, new KitchenTicketDto(slot.orderNumber, name, slot.dish.name(), ingredientsOf(slot.dish)), slot.publishedNanos));
+            if (endOfBatch)
+                flush();
+        }
+
+        private List<OrderIngredientResponseDto> ingredientsOf(OrderDishResponseDto dish) {
+            if (mask() == assemblyMask)
+                return dish.ingredients();
+            return dish.ingredients().stream()
+                    .filter(it -> (ingredientStations.getOrDefault(normalize(it.name()), 0L) & mask()) != 0)
+                    .toList();
+        }
+
+        private void flush() {
+            if (pending.isEmpty())
+                return;
+
+            batchSizes.record(pending.size());
+            var byTenant = pending.stream().collect(Collectors.groupingBy(PendingTicket::tenantId));
+            for (var subscriber : subscribers) {
+                for (var ticket : byTenant.getOrDefault(subscriber.tenantId, List.of())) {
+                    if (subscriber.dropped)
+                        break;
+                    enqueue(this, subscriber, SseEmitter.event().name(TICKET_EVENT).data(ticket.ticket()));
+                }
+            }
+
+            var now = System.nanoTime();
+            pending.forEach(it -> latency.record(now - it.publishedNanos(), TimeUnit.NANOSECONDS));
+            pending.clear();
+        }
+    }
+
+    private static final class FeedSubscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final String tenantId;
+        private volatile boolean dropped;
+
+        private FeedSubscriber(SseEmitter emitter, int bufferSize, String tenantId) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.tenantId = tenantId;
+        }
+    }
+}
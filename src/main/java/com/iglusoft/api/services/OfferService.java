@@ -8,34 +8,56 @@ import com.iglusoft.api.database.repositories.OfferRepository;
 import com.iglusoft.api.dtos.DishOrderDto;
 import com.iglusoft.api.dtos.NewEditOffer;
 import com.iglusoft.api.dtos.NewEditOfferIngredientMinQuantityDto;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
 import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.jfr.CatalogMutationEvent;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class OfferService {
     private final OfferRepository offerRepository;
     private final OfferIngredientMinQuantityRepository offerIngredientMinQuantityRepository;
     private final IngredientService ingredientService;
+    private final CatalogChangeLogService catalogChangeLog;
+    private final CatalogNegativeLookupCache negativeLookupCache;
+    private final EntityManager entityManager;
+    private final int listingChunkSize;
 
     public OfferService(
             OfferRepository offerRepository,
             OfferIngredientMinQuantityRepository offerIngredientMinQuantityRepository,
-            IngredientService ingredientService) {
+            IngredientService ingredientService,
+            CatalogChangeLogService catalogChangeLog,
+            CatalogNegativeLookupCache negativeLookupCache,
+            EntityManager entityManager,
+            @Value("${iglusoft.catalog-listing.chunk-size:500}") int listingChunkSize) {
         this.offerRepository = offerRepository;
         this.offerIngredientMinQuantityRepository = offerIngredientMinQuantityRepository;
         this.ingredientService = ingredientService;
+        this.catalogChangeLog = catalogChangeLog;
+        this.negativeLookupCache = negativeLookupCache;
+        this.entityManager = entityManager;
+        this.listingChunkSize = listingChunkSize;
     }
 
     @Transactional
     public Offer saveOffer(NewEditOffer newEditOffer) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         boolean isEdit = newEditOffer.id() != null;
 
         var offerToSave = isEdit ?
                 offerRepository.findById(newEditOffer.id())
-                        .orElseThrow(NotFoundException::new) : new Offer();
+                        .orElseThrow(NotFoundException::instance) : new Offer();
 
         offerToSave.setName(newEditOffer.name());
         offerToSave.setDiscountAmount(newEditOffer.discountAmount());
@@ -47,24 +69,92 @@ public class OfferService {
         populateOfferIngredientList(offerToSave, offerToSave.getRequiredIngredients(), newEditOffer.requiredIngredients());
         populateOfferIngredientList(offerToSave, offerToSave.getExcludedIngredients(), newEditOffer.excludedIngredients());
 
-        return offerRepository.save(offerToSave);
+        var savedOffer = offerRepository.save(offerToSave);
+        var changeType = isEdit ? CatalogChangeType.UPDATED : CatalogChangeType.CREATED;
+        catalogChangeLog.record(CatalogEntityType.OFFER, savedOffer.getId(), changeType);
+
+        jfrEvent.end(CatalogEntityType.OFFER, savedOffer.getId(), changeType);
+
+        return savedOffer;
     }
 
+    @Transactional
     public List<Offer> findAllOffers() {
-        return offerRepository.findAll();
+        offerRepository.findAllWithRequiredIngredients();
+        return offerRepository.findAllWithExcludedIngredients();
+    }
+
+    /**
+     * Percorre todas as promoções em ordem de ID, em partes, com as duas listas de ingredientes carregadas.
+     *
+     * @see DishService#forEachDish(Consumer)
+     */
+    @Transactional
+    public void forEachOffer(Consumer<Offer> action) {
+        forEachOffer(true, true, action);
+    }
+
+    /**
+     * Percorre todas as promoções em ordem de ID, em partes, carregando somente as listas de ingredientes pedidas.
+     *
+     * @param withRequiredIngredients Se os ingredientes obrigatórios devem ser carregados.
+     * @param withExcludedIngredients Se os ingredientes excluídos devem ser carregados.
+     * @param action                  A ação executada para cada promoção. As listas não pedidas não devem ser acessadas.
+     *
+     * <p>
+     * Cada lista pedida custa uma consulta por parte; sem nenhuma lista, cada parte é lida com uma única consulta.
+     * </p>
+     *
+     * @see DishService#forEachDish(Consumer)
+     */
+    @Transactional
+    public void forEachOffer(boolean withRequiredIngredients, boolean withExcludedIngredients, Consumer<Offer> action) {
+        var lastId = 0L;
+        int pageSize;
+        do {
+            List<Offer> offers;
+            if (withRequiredIngredients || withExcludedIngredients) {
+                var ids = offerRepository.findIdsAfter(lastId, Limit.of(listingChunkSize));
+                if (ids.isEmpty())
+                    return;
+
+                // Quando as duas listas são pedidas, a segunda consulta completa as instâncias lidas pela primeira
+                offers = withRequiredIngredients ? offerRepository.findAllWithRequiredIngredientsByIdIn(ids) : List.of();
+                if (withExcludedIngredients)
+                    offers = offerRepository.findAllWithExcludedIngredientsByIdIn(ids);
+                pageSize = ids.size();
+                lastId = ids.get(ids.size() - 1);
+            } else {
+                offers = offerRepository.findAllAfter(lastId, Limit.of(listingChunkSize));
+                if (offers.isEmpty())
+                    return;
+
+                pageSize = offers.size();
+                lastId = offers.get(offers.size() - 1).getId();
+            }
+
+            offers.forEach(action);
+            entityManager.clear();
+        } while (pageSize == listingChunkSize);
     }
 
     public Offer findOfferById(long id) {
-        return offerRepository.findById(id).orElseThrow(NotFoundException::new);
+        return negativeLookupCache.findOrThrow(CatalogEntityType.OFFER, id, () -> offerRepository.findById(id));
     }
 
     @Transactional
     public void deleteOffer(Long id) {
+        var jfrEvent = new CatalogMutationEvent();
+        jfrEvent.begin();
+
         if (!offerRepository.existsById(id))
-            throw new NotFoundException();
+            throw NotFoundException.instance();
 
         offerIngredientMinQuantityRepository.deleteAllByOfferId(id);
         offerRepository.deleteById(id);
+        catalogChangeLog.record(CatalogEntityType.OFFER, id, CatalogChangeType.DELETED);
+
+        jfrEvent.end(CatalogEntityType.OFFER, id, CatalogChangeType.DELETED);
     }
 
     /**
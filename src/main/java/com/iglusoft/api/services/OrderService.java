@@ -1,8 +1,14 @@
 package com.iglusoft.api.services;
 
+import com.iglusoft.api.database.entities.Dish;
+import com.iglusoft.api.database.entities.Ingredient;
 import com.iglusoft.api.database.entities.Offer;
 import com.iglusoft.api.database.entities.OfferIngredientMinQuantity;
 import com.iglusoft.api.dtos.*;
+import com.iglusoft.api.jfr.OrderPricingEvent;
+import com.iglusoft.api.metrics.JdbcStatementCounter;
+import com.iglusoft.api.metrics.PricingMetrics;
+import com.iglusoft.api.metrics.PricingStage;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -12,13 +18,24 @@ import java.util.concurrent.atomic.AtomicLong;
 public class OrderService {
 
     private final DishService dishService;
-    private final OfferService offerService;
     private final IngredientService ingredientService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final InventoryService inventoryService;
+    private final OutboxService outboxService;
+    private final PricingMetrics pricingMetrics;
 
-    OrderService(DishService dishService, OfferService offerService, IngredientService ingredientService) {
+    OrderService(DishService dishService,
+                 IngredientService ingredientService,
+                 CatalogSnapshotService catalogSnapshotService,
+                 InventoryService inventoryService,
+                 OutboxService outboxService,
+                 PricingMetrics pricingMetrics) {
         this.dishService = dishService;
-        this.offerService = offerService;
         this.ingredientService = ingredientService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.inventoryService = inventoryService;
+        this.outboxService = outboxService;
+        this.pricingMetrics = pricingMetrics;
     }
 
     /**
@@ -32,26 +49,98 @@ public class OrderService {
      * </p>
      * <ul>
      *     <li>Para cada prato no pedido, calcula o preço final do prato usando {@link #calculateDishOrderFinalPrice(DishOrderDto)}.</li>
-     *     <li>Armazena o preço final calculado de cada prato em um mapa, onde a chave é o ID do prato.</li>
+     *     <li>Armazena o preço final calculado de cada prato em uma lista, na ordem do pedido.</li>
      *     <li>Calcula o preço total do pedido somando os preços finais de todos os pratos.</li>
      *     <li>Retorna um objeto {@link OrderResponseDto} contendo o preço total do pedido e os detalhes de cada prato.</li>
      * </ul>
      *
      * <p><strong>Decisões de Design:</strong></p>
      * <ul>
-     *     <li>Uso de um mapa para armazenar os preços finais calculados de cada prato, facilitando a recuperação dos detalhes de cada prato pelo ID do prato.</li>
+     *     <li>Cada item do pedido é calculado e cobrado separadamente, inclusive um mesmo lanche repetido em vários itens, da mesma forma que os ingredientes de todos os itens são somados na reserva do estoque em {@link #placeOrder(List)}.</li>
      *     <li>Utilização de um loop tradicional para iterar sobre cada prato no pedido, uma vez que não é necessário processar os elementos em paralelo ou modificar a coleção original.</li>
      *     <li>Calculo do preço total do pedido usando streams e a função de soma {@link LongStream#sum()} para uma implementação concisa e eficiente.</li>
      *     <li>Utilização de objetos DTO para representar os detalhes do pedido e dos pratos, promovendo uma comunicação clara e desacoplada.</li>
      * </ul>
      */
     public OrderResponseDto getOrderResponse(List<DishOrderDto> orders) {
-        var dishIdToTotalPriceMap = new HashMap<Long, OrderDishResponseDto>();
+        return priceOrder(orders, null);
+    }
+
+
+    /**
+     * Calcula o pedido como {@link #getOrderResponse(List)}, reserva no {@link InventoryService} os ingredientes de
+     * todos os pratos e grava o evento {@link OutboxService#ORDER_PLACED} no outbox.
+     *
+     * @param orders Uma lista de objetos {@link DishOrderDto} contendo as informações de cada prato no pedido.
+     * @return Um objeto {@link OrderResponseDto} contendo o preço total do pedido e os detalhes de cada prato.
+     * @throws com.iglusoft.api.exceptions.BusinessException Se algum ingrediente não tiver estoque suficiente; nesse
+     *                                                       caso nenhum ingrediente fica reservado.
+     *
+     * <p>
+     * As quantidades reservadas são as de {@link #combineIngredientQuantities(List, List)}, somadas entre todos os
+     * pratos do pedido, e a reserva é feita somente depois do cálculo, então um pedido com um lanche ou ingrediente
+     * inexistente não reserva nada.
+     * </p>
+     *
+     * <p>
+     * Os pedidos não são gravados em uma tabela própria; o evento no outbox é o registro do pedido aceito. Se ele não
+     * puder ser gravado, a reserva é devolvida e o pedido é recusado, então todo pedido reservado chega aos sistemas
+     * externos.
+     * </p>
+     */
+    public OrderResponseDto placeOrder(List<DishOrderDto> orders) {
+        var orderIngredientQuantities = new HashMap<Long, Integer>();
+        var response = priceOrder(orders, orderIngredientQuantities);
+        inventoryService.reserve(orderIngredientQuantities);
+
+        try {
+            var orderId = UUID.randomUUID().toString();
+            outboxService.append(OutboxService.ORDER_AGGREGATE, orderId, OutboxService.ORDER_PLACED, new OrderPlacedEventDto(orderId, response));
+        } catch (RuntimeException e) {
+            inventoryService.release(orderIngredientQuantities);
+            throw e;
+        }
+        return response;
+    }
+
+
+    /**
+     * Calcula o pedido e, quando {@code orderIngredientQuantities} é informado, acumula nele a quantidade total de
+     * cada ingrediente do pedido.
+     */
+    private OrderResponseDto priceOrder(List<DishOrderDto> orders, Map<Long, Integer> orderIngredientQuantities) {
+        var jfrEvent = new OrderPricingEvent();
+        jfrEvent.begin();
+        var startNanos = System.nanoTime();
+        var startAllocatedBytes = pricingMetrics.currentThreadAllocatedBytes();
+        var startStatements = JdbcStatementCounter.current();
+
+        var trackedJfrEvent = jfrEvent.isEnabled() ? jfrEvent : null;
+        var dishResponses = new ArrayList<OrderDishResponseDto>(orders.size());
         for (DishOrderDto order : orders) {
-            dishIdToTotalPriceMap.put(order.dishId(), calculateDishOrderFinalPrice(order));
+            dishResponses.add(calculateDishOrderFinalPrice(order, trackedJfrEvent, orderIngredientQuantities));
+        }
+        var totalPrice = dishResponses.stream().mapToLong(OrderDishResponseDto::salePrice).sum();
+        var response = new OrderResponseDto(totalPrice, dishResponses);
+
+        pricingMetrics.recordOrder(
+                System.nanoTime() - startNanos,
+                startAllocatedBytes < 0 ? -1L : pricingMetrics.currentThreadAllocatedBytes() - startAllocatedBytes,
+                JdbcStatementCounter.current() - startStatements);
+
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit() && pricingMetrics.isRecording()) {
+            jfrEvent.dishCount = orders.size();
+            // O nome do ingrediente é único no restaurante, então identifica o ingrediente repetido em vários lanches
+            jfrEvent.ingredientCount = (int) response.dishes().stream()
+                    .flatMap(it -> it.ingredients().stream())
+                    .map(OrderIngredientResponseDto::name)
+                    .distinct()
+                    .count();
+            jfrEvent.totalPrice = totalPrice;
+            jfrEvent.commit();
         }
-        var totalPrice = dishIdToTotalPriceMap.values().stream().mapToLong(OrderDishResponseDto::salePrice).sum();
-        return new OrderResponseDto(totalPrice, new ArrayList<>(dishIdToTotalPriceMap.values()));
+        return response;
     }
 
 
@@ -65,16 +154,20 @@ public class OrderService {
      * Este método realiza as seguintes operações:
      * </p>
      * <ul>
-     *     <li>Obtém o objeto {@link Dish} correspondente ao ID do prato no pedido usando {@link DishService#findById(Long)}.</li>
+     *     <li>Obtém o objeto {@link Dish} correspondente ao ID do prato no pedido a partir do {@link CatalogSnapshot}, recorrendo a {@link DishService#findById(long)} somente se ele não estiver na fotografia.</li>
      *     <li>Obtém a lista original de ingredientes do prato e as quantidades associadas, mapeando-as para objetos {@link DishIngredientDto} usando {@link Stream#map(Function)}.</li>
      *     <li>Combina as quantidades de ingredientes originais do prato com as quantidades de ingredientes selecionadas no pedido usando {@link #combineIngredientQuantities(List, List)}.</li>
-     *     <li>Calcula o preço total de todos os ingredientes sem desconto usando {@link #calculateAllIngredientsTotal(List)}.</li>
-     *     <li>Obtém uma lista de ofertas válidas aplicáveis ao pedido, excluindo as que possuem ingredientes excluídos e garantindo que todos os ingredientes necessários estejam presentes usando {@link #getValidOffersForIngredientsList(List)}.</li>
+     *     <li>Calcula o preço total de todos os ingredientes sem desconto usando {@link #calculateAllIngredientsTotal(CatalogSnapshot, List)}.</li>
+     *     <li>Obtém uma lista de ofertas válidas aplicáveis ao pedido, excluindo as que possuem ingredientes excluídos e garantindo que todos os ingredientes necessários estejam presentes usando {@link #getValidOffersForIngredientsList(CatalogSnapshot, List)}.</li>
      *     <li>Para cada oferta válida, calcula o valor do desconto e ajusta o preço total do prato, garantindo que o preço final não seja negativo.</li>
      *     <li>Mapeia os detalhes dos ingredientes no pedido para objetos {@link OrderIngredientResponseDto}, contendo o nome do ingrediente e sua quantidade.</li>
      *     <li>Retorna um objeto {@link OrderDishResponseDto} contendo o nome do prato, o preço final e os detalhes dos ingredientes no pedido.</li>
      * </ul>
      *
+     * <p>
+     * A duração de cada etapa é registrada em {@link PricingMetrics}, assim como a duração do cálculo de cada desconto por {@code DiscountType}.
+     * </p>
+     *
      * <p><strong>Decisões de Design:</strong></p>
      * <ul>
      *     <li>Uso de métodos auxiliares para modularizar a lógica e promover a reutilização de código.</li>
@@ -83,32 +176,88 @@ public class OrderService {
      * </ul>
      */
     public OrderDishResponseDto calculateDishOrderFinalPrice(DishOrderDto order) {
-        var dish = dishService.findById(order.dishId());
+        return calculateDishOrderFinalPrice(order, null, null);
+    }
+
+
+    /**
+     * Calcula o preço final de um prato, acumulando no evento do JFR, quando informado, a quantidade de promoções
+     * aceitas, e em {@code orderIngredientQuantities}, quando informado, a quantidade de cada ingrediente do prato.
+     */
+    private OrderDishResponseDto calculateDishOrderFinalPrice(DishOrderDto order, OrderPricingEvent jfrEvent, Map<Long, Integer> orderIngredientQuantities) {
+        var stageStart = System.nanoTime();
+        var snapshot = catalogSnapshotService.getSnapshot();
+        var dish = findDish(snapshot, order.dishId());
         var originalDishIngredients = dish.getIngredients().stream().map(it -> new DishIngredientDto(it.getIngredient().getId(), it.getQuantity())).toList();
+        stageStart = recordStage(PricingStage.DISH_LOAD, stageStart);
 
         // Lista final de ingredientes usados
         var ingredientQuantities = combineIngredientQuantities(originalDishIngredients, order.ingredients());
-        final var ingredientsTotalNoDiscount = calculateAllIngredientsTotal(ingredientQuantities);
+        if (orderIngredientQuantities != null)
+            ingredientQuantities.forEach(it -> orderIngredientQuantities.merge(it.ingredientId(), it.quantity(), Integer::sum));
+        stageStart = recordStage(PricingStage.INGREDIENT_COMBINING, stageStart);
+
+        final var ingredientsTotalNoDiscount = calculateAllIngredientsTotal(snapshot, ingredientQuantities);
         var dishTotalPrice = new AtomicLong(ingredientsTotalNoDiscount);
+        stageStart = recordStage(PricingStage.BASE_TOTAL, stageStart);
 
-        var validOffers = getValidOffersForIngredientsList(ingredientQuantities);
+        var validOffers = getValidOffersForIngredientsList(snapshot, ingredientQuantities);
+        stageStart = recordStage(PricingStage.OFFER_FILTERING, stageStart);
+        if (jfrEvent != null)
+            jfrEvent.offersMatched += validOffers.size();
 
         validOffers.forEach(offer -> {
+            var discountStart = System.nanoTime();
             var discountAmount = offer.getDiscountType().calculateDiscountAmount.apply(ingredientsTotalNoDiscount, offer, ingredientQuantities);
             dishTotalPrice.set(Math.max(dishTotalPrice.get() - discountAmount, 0L));
+            pricingMetrics.recordDiscount(offer.getDiscountType(), System.nanoTime() - discountStart);
+            if (discountAmount > 0)
+                pricingMetrics.offerDiscountApplied(offer);
         });
 
+        stageStart = System.nanoTime();
         var ingredientDetails = ingredientQuantities.stream().map(it -> {
-            var ingredient = ingredientService.findById(it.ingredientId());
+            var ingredient = findIngredient(snapshot, it.ingredientId());
             return new OrderIngredientResponseDto(ingredient.getName(), it.quantity());
         }).toList();
-        return new OrderDishResponseDto(dish.getName(), dishTotalPrice.get(), ingredientDetails);
+        var response = new OrderDishResponseDto(dish.getName(), dishTotalPrice.get(), ingredientDetails);
+        recordStage(PricingStage.RESPONSE_ASSEMBLY, stageStart);
+        return response;
+    }
+
+
+    /**
+     * Registra a duração de uma etapa do cálculo e retorna o instante em que a próxima etapa começa.
+     */
+    private long recordStage(PricingStage stage, long stageStart) {
+        var now = System.nanoTime();
+        pricingMetrics.recordStage(stage, now - stageStart);
+        return now;
+    }
+
+
+    /**
+     * Busca o lanche na fotografia do catálogo, consultando o banco de dados somente quando ele não está presente nela.
+     */
+    private Dish findDish(CatalogSnapshot snapshot, Long dishId) {
+        var dish = snapshot.findDish(dishId);
+        return dish != null ? dish : dishService.findById(dishId);
+    }
+
+
+    /**
+     * Busca o ingrediente na fotografia do catálogo, consultando o banco de dados somente quando ele não está presente nela.
+     */
+    private Ingredient findIngredient(CatalogSnapshot snapshot, Long ingredientId) {
+        var ingredient = snapshot.findIngredient(ingredientId);
+        return ingredient != null ? ingredient : ingredientService.findById(ingredientId);
     }
 
 
     /**
      * Retorna uma lista de ofertas válidas com base na lista de quantidades de ingredientes do prato.
      *
+     * @param snapshot             A fotografia do catálogo usada no cálculo.
      * @param ingredientQuantities Uma lista de objetos {@link DishIngredientDto} que representam as quantidades de ingredientes no pedido de prato.
      * @return Uma lista de objetos {@link Offer} que representam as ofertas válidas para a lista de quantidades de ingredientes do prato.
      *
@@ -116,7 +265,7 @@ public class OrderService {
      * Este método realiza as seguintes operações:
      * </p>
      * <ul>
-     *     <li>Obtém todas as ofertas disponíveis usando {@link OfferService#findAllOffers()}.</li>
+     *     <li>Obtém todas as ofertas disponíveis a partir do {@link CatalogSnapshot}.</li>
      *     <li>Filtra as ofertas com base em dois critérios:
      *         <ul>
      *             <li>Exclui as ofertas que contêm ingredientes excluídos pelo pedido de prato usando {@link #ingredientListContainsAnyOfferExcludedIngredient(Offer, List)}.</li>
@@ -135,7 +284,7 @@ public class OrderService {
      *     new DishIngredientDto(3L, 1)
      * );
      *
-     * List<Offer> validOffers = getValidOffersForIngredientsList(ingredientQuantities);
+     * List<Offer> validOffers = getValidOffersForIngredientsList(catalogSnapshotService.getSnapshot(), ingredientQuantities);
      * System.out.println("Valid Offers: " + validOffers);
      * }</pre>
      *
@@ -146,10 +295,12 @@ public class OrderService {
      *     {@link #ingredientListContainsAllOfferRequiredIngredients(Offer, List)} para verificar se as ofertas são válidas.</li>
      * </ul>
      */
-    private List<Offer> getValidOffersForIngredientsList(List<DishIngredientDto> ingredientQuantities) {
-        return offerService.findAllOffers().stream()
+    private List<Offer> getValidOffersForIngredientsList(CatalogSnapshot snapshot, List<DishIngredientDto> ingredientQuantities) {
+        return snapshot.offers().stream()
+                .peek(pricingMetrics::offerEvaluated)
                 .filter(offer -> !ingredientListContainsAnyOfferExcludedIngredient(offer, ingredientQuantities))
                 .filter(offer -> ingredientListContainsAllOfferRequiredIngredients(offer, ingredientQuantities))
+                .peek(pricingMetrics::offerMatched)
                 .toList();
     }
 
@@ -367,6 +518,7 @@ public class OrderService {
     /**
      * Calcula o preço total de todos os ingredientes de um prato com base nos dados fornecidos.
      *
+     * @param snapshot           A fotografia do catálogo usada para obter os preços dos ingredientes.
      * @param dishIngredientDtos Uma lista de objetos {@link DishIngredientDto} que contêm os IDs e as quantidades dos ingredientes.
      * @return O preço total de todos os ingredientes do prato.
      *
@@ -376,7 +528,7 @@ public class OrderService {
      * <ul>
      *     <li>Cria uma variável {@link AtomicLong} para armazenar o preço total.</li>
      *     <li>Itera sobre cada objeto {@link DishIngredientDto} na lista fornecida.</li>
-     *     <li>Para cada objeto, busca o ingrediente pelo ID usando o serviço {@code ingredientService}.</li>
+     *     <li>Para cada objeto, busca o ingrediente pelo ID na fotografia do catálogo, recorrendo ao serviço {@code ingredientService} somente se ele não estiver nela.</li>
      *     <li>Adiciona o preço de venda do ingrediente multiplicado pela quantidade ao preço total.</li>
      * </ul>
      *
@@ -387,22 +539,22 @@ public class OrderService {
      *     new DishIngredientDto(2L, 3)
      * );
      *
-     * Long total = calculateAllIngredientsTotal(dishIngredients);
+     * Long total = calculateAllIngredientsTotal(catalogSnapshotService.getSnapshot(), dishIngredients);
      * System.out.println("Total Price: " + total);  // Exibe o preço total calculado
      * }</pre>
      *
      * <p><strong>Decisões de Design:</strong></p>
      * <ul>
      *     <li>Uso de {@link AtomicLong} para manipulação segura de threads ao calcular o preço total.</li>
-     *     <li>Busca de ingredientes usando o serviço {@code ingredientService} para garantir que os dados estejam atualizados e corretos.</li>
+     *     <li>Busca de ingredientes na fotografia do catálogo, que é descartada a cada alteração confirmada, evitando uma consulta ao banco por ingrediente.</li>
      *     <li>Uso de `forEach` para iterar sobre a lista de ingredientes e calcular o preço total de forma eficiente.</li>
      * </ul>
      */
-    private Long calculateAllIngredientsTotal(List<DishIngredientDto> dishIngredientDtos) {
+    private Long calculateAllIngredientsTotal(CatalogSnapshot snapshot, List<DishIngredientDto> dishIngredientDtos) {
         AtomicLong totalPrice = new AtomicLong(0L);
 
         dishIngredientDtos.forEach(dto -> {
-            var ingredient = ingredientService.findById(dto.ingredientId());
+            var ingredient = findIngredient(snapshot, dto.ingredientId());
             totalPrice.addAndGet(ingredient.getSalePrice() * dto.quantity());
         });
 
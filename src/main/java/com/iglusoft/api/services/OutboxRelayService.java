@@ -0,0 +1,172 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.entities.OutboxEvent;
+import com.iglusoft.api.database.repositories.OutboxEventRepository;
+import com.iglusoft.api.interfaces.IOutboxSink;
+import com.iglusoft.api.outbox.OutboxMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Envia os eventos pendentes do outbox ao {@link IOutboxSink} configurado, em lotes.
+ *
+ * <p>
+ * A cada {@code iglusoft.outbox.poll-millis}, os eventos mais antigos de todos os restaurantes são lidos em lotes de
+ * até {@code iglusoft.outbox.batch-size}, enviados e então removidos da tabela, até o outbox ficar vazio ou até
+ * {@code iglusoft.outbox.max-batches-per-run} lotes. Se o envio falhar, os eventos continuam no outbox e o mesmo lote
+ * é enviado de novo na próxima vez.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * // Envia imediatamente o que estiver pendente, sem esperar o próximo intervalo
+ * var delivered = outboxRelayService.relay();
+ * }</pre>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>A entrega é pelo menos uma vez: o evento só é removido depois que o destino confirma o lote, então uma
+ *     falha entre o envio e a remoção faz o lote ser enviado de novo. Os sistemas externos descartam as repetições
+ *     pelo {@link OutboxMessage#id()}.</li>
+ *     <li>Os lotes são enviados por uma única thread, em ordem de ID, e um lote que falha bloqueia os seguintes, então
+ *     os eventos de um mesmo agregado nunca são entregues fora de ordem. Os eventos do catálogo são gravados no
+ *     commit, um commit por vez (veja o {@link CatalogChangeLogService}), e as alterações de uma mesma entidade em
+ *     instâncias diferentes são serializadas pelo lock da linha da entidade.</li>
+ *     <li>Enviar em lotes divide o custo de cada envio (uma gravação em disco ou uma ida à rede) entre todos os
+ *     eventos do lote. A vazão, o tamanho dos lotes e o atraso entre a gravação e a entrega ficam em
+ *     {@code outbox.events.published}, {@code outbox.batch.size} e {@code outbox.delivery.lag}.</li>
+ *     <li>Com várias instâncias, somente uma deve ter {@code iglusoft.outbox.relay-enabled=true}; duas instâncias
+ *     enviando ao mesmo tempo não perdem eventos, mas os repetem.</li>
+ * </ul>
+ */
+@Service
+public class OutboxRelayService {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final IOutboxSink sink;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final boolean enabled;
+    private final ReentrantLock relayLock = new ReentrantLock();
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final Clock clock = Clock.systemUTC();
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+    private final DistributionSummary batchSizes;
+    private final Timer publishDuration;
+    private final Timer deliveryLag;
+
+    public OutboxRelayService(
+            OutboxEventRepository outboxEventRepository,
+            IOutboxSink sink,
+            MeterRegistry meterRegistry,
+            @Value("${iglusoft.outbox.batch-size:500}") int batchSize,
+            @Value("${iglusoft.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${iglusoft.outbox.relay-enabled:true}") boolean enabled) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("The outbox batch size must be positive.");
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.enabled = enabled;
+
+        Gauge.builder("outbox.events.pending", pendingEvents, AtomicLong::get)
+                .description("Eventos no outbox ainda não entregues, contados no último envio")
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("outbox.events.published")
+                .description("Eventos do outbox entregues ao destino")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("outbox.batches.failed")
+                .description("Lotes do outbox que não puderam ser entregues e serão enviados de novo")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.batch.size")
+                .description("Eventos por lote entregue")
+                .register(meterRegistry);
+        this.publishDuration = Timer.builder("outbox.publish.duration")
+                .description("Tempo de envio de um lote ao destino")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("outbox.delivery.lag")
+                .description("Tempo entre a gravação do evento no outbox e a sua entrega")
+                .publishPercentiles(0.5, 0.99)
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${iglusoft.outbox.poll-millis:500}",
+            fixedDelayString = "${iglusoft.outbox.poll-millis:500}")
+    public void scheduledRelay() {
+        if (enabled)
+            relay();
+    }
+
+    /**
+     * Envia os eventos pendentes, em lotes e em ordem.
+     *
+     * @return A quantidade de eventos entregues. Um lote que falhou não é contado e interrompe o envio.
+     */
+    public int relay() {
+        relayLock.lock();
+        try {
+            var delivered = 0;
+            for (var batch = 0; batch < maxBatchesPerRun; batch++) {
+                var events = outboxEventRepository.findOldestInAllTenants(batchSize);
+                if (events.isEmpty())
+                    break;
+                if (!publish(events))
+                    break;
+
+                delivered += events.size();
+                if (events.size() < batchSize)
+                    break;
+            }
+            pendingEvents.set(outboxEventRepository.countInAllTenants());
+            return delivered;
+        } catch (RuntimeException e) {
+            // Uma falha não pode cancelar os próximos envios; os eventos continuam no outbox
+            logger.warn("Failed to relay outbox events: {}", e.getMessage());
+            return 0;
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    private boolean publish(List<OutboxEvent> events) {
+        var messages = events.stream().map(OutboxMessage::new).toList();
+        var startNanos = System.nanoTime();
+        try {
+            sink.publish(messages);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            logger.warn("Outbox sink rejected a batch of {} events starting at {}: {}", messages.size(), messages.get(0).id(), e.getMessage());
+            return false;
+        }
+        publishDuration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        // Se a remoção falhar, o lote é entregue de novo na próxima vez
+        outboxEventRepository.deleteAllInAllTenantsByIdIn(messages.stream().map(OutboxMessage::id).toList());
+
+        var now = clock.instant();
+        messages.forEach(it -> deliveryLag.record(Duration.between(it.createdAt(), now)));
+        publishedEvents.increment(messages.size());
+        batchSizes.record(messages.size());
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package com.iglusoft.api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.database.entities.OutboxEvent;
+import com.iglusoft.api.database.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+
+/**
+ * Grava os eventos destinados aos sistemas externos (fidelidade, contabilidade) na tabela {@code OUTBOX_EVENT}.
+ *
+ * <p>
+ * O evento é gravado na transação de quem o chama, junto com a alteração que o gerou: ou os dois são confirmados, ou
+ * nenhum. O envio é feito depois, em lotes, pelo {@link OutboxRelayService}, então uma falha ou lentidão dos sistemas
+ * externos não atrasa nem desfaz a requisição.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * @Transactional
+ * public void cancelOrder(Order order) {
+ *     orderRepository.save(order.cancel());
+ *     outboxService.append(OutboxService.ORDER_AGGREGATE, order.getId(), "CANCELLED", new OrderCancelledDto(order));
+ * }
+ * }</pre>
+ */
+@Service
+public class OutboxService {
+    public static final String ORDER_AGGREGATE = "ORDER";
+    public static final String ORDER_PLACED = "PLACED";
+    public static final String CATALOG_AGGREGATE = "CATALOG";
+    public static final String CATALOG_IMPORTED = "IMPORTED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter appendedEvents;
+    private final Clock clock = Clock.systemUTC();
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.appendedEvents = Counter.builder("outbox.events.appended")
+                .description("Eventos gravados no outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava um evento no outbox do restaurante atual.
+     *
+     * @param aggregateType O tipo do agregado, como {@code DISH} ou {@link #ORDER_AGGREGATE}.
+     * @param aggregateId   O ID do agregado; os eventos de um mesmo agregado são entregues na ordem em que foram gravados.
+     * @param eventType     O tipo do evento.
+     * @param payload       O conteúdo do evento, convertido para JSON.
+     *
+     * <p>
+     * Deve ser chamado dentro da transação que fez a alteração; sem uma transação, o evento é gravado na sua própria.
+     * </p>
+     */
+    @Transactional
+    public OutboxEvent append(String aggregateType, String aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the outbox event payload.", e);
+        }
+
+        var event = outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, json, clock.instant()));
+        appendedEvents.increment();
+        return event;
+    }
+}
@@ -0,0 +1,55 @@
+package com.iglusoft.api.synthetic;
+
+import com.iglusoft.api.services.CatalogSnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grava um catálogo do {@link SyntheticCatalogGenerator} num arquivo de fotografia, que pode ser importado na
+ * inicialização com {@code iglusoft.catalog-snapshot.load-on-startup=true}.
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * java -Dloader.main=com.iglusoft.api.synthetic.SyntheticCatalogCli \
+ *      -cp target/iglu-soft-test-0.0.1-SNAPSHOT.jar org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      --seed=42 --ingredients=10000 --dishes=100000 --offers=5000 --output=catalog.snapshot
+ * }</pre>
+ */
+public final class SyntheticCatalogCli {
+
+    private SyntheticCatalogCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var options = parse(args);
+        var defaults = SyntheticCatalogGenerator.Settings.defaults(42L);
+        var settings = new SyntheticCatalogGenerator.Settings(
+                Long.parseLong(options.getOrDefault("seed", Long.toString(defaults.seed()))),
+                Integer.parseInt(options.getOrDefault("ingredients", Integer.toString(defaults.ingredients()))),
+                Integer.parseInt(options.getOrDefault("dishes", Integer.toString(defaults.dishes()))),
+                Integer.parseInt(options.getOrDefault("offers", Integer.toString(defaults.offers()))));
+        var output = Path.of(options.getOrDefault("output", "catalog.snapshot"));
+
+        var startNanos = System.nanoTime();
+        var contents = SyntheticCatalogGenerator.generate(settings);
+        var checksum = CatalogSnapshotFile.write(contents, output);
+
+        System.out.printf("Wrote %d ingredients, %d dishes and %d offers to %s (crc32c %s) in %d ms.%n",
+                contents.ingredients().size(), contents.dishes().size(), contents.offers().size(),
+                output.toAbsolutePath(), Long.toHexString(checksum), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0)
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
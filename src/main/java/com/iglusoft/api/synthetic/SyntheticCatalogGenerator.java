@@ -0,0 +1,135 @@
+package com.iglusoft.api.synthetic;
+
+import com.iglusoft.api.enums.DiscountType;
+import com.iglusoft.api.services.CatalogSnapshotFile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Gera catálogos sintéticos grandes e realistas para testes de carga e benchmarks.
+ *
+ * <p>
+ * A geração é determinística: a mesma {@link Settings} produz sempre o mesmo catálogo, com os mesmos IDs, em
+ * qualquer JVM. O resultado está no formato do {@link CatalogSnapshotFile}, então pode ser carregado direto no banco
+ * de dados com o {@link com.iglusoft.api.services.CatalogSnapshotFileService#replaceCatalog}, ou gravado num arquivo
+ * pelo {@link SyntheticCatalogCli} e importado na inicialização.
+ * </p>
+ *
+ * <p>
+ * Os ingredientes são escolhidos com popularidade de Zipf, como num cardápio real em que queijo e hambúrguer
+ * aparecem em quase tudo. A quantidade de ingredientes por lanche é assimétrica: a maioria tem poucos ingredientes
+ * e alguns têm muitos, até {@link #MAX_DISH_INGREDIENTS}. Metade das promoções é de cada {@link DiscountType}; as
+ * promoções percentuais têm ingredientes obrigatórios e excluídos, e as de quantidade exigem um mínimo de um
+ * ingrediente e cobram por uma unidade a menos.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var contents = SyntheticCatalogGenerator.generate(SyntheticCatalogGenerator.Settings.defaults(42L));
+ * catalogSnapshotFileService.replaceCatalog(contents);
+ * var workload = new SyntheticOrderWorkload(contents, 42L);
+ * orderService.getOrderResponse(workload.nextOrder());
+ * }</pre>
+ */
+public final class SyntheticCatalogGenerator {
+    public static final int MAX_DISH_INGREDIENTS = 12;
+
+    private static final double INGREDIENT_POPULARITY_EXPONENT = 1.0;
+    private static final double MEAN_EXTRA_DISH_INGREDIENTS = 2.5;
+
+    private SyntheticCatalogGenerator() {
+    }
+
+    /**
+     * O tamanho e a semente de um catálogo sintético.
+     *
+     * @param seed        A semente que determina todo o catálogo.
+     * @param ingredients A quantidade de ingredientes.
+     * @param dishes      A quantidade de lanches.
+     * @param offers      A quantidade de promoções.
+     */
+    public record Settings(long seed, int ingredients, int dishes, int offers) {
+        public Settings {
+            if (ingredients < 2 || dishes < 1 || offers < 0)
+                throw new IllegalArgumentException("A synthetic catalog needs at least 2 ingredients and 1 dish");
+        }
+
+        /**
+         * O tamanho usado nos testes de carga: 10 mil ingredientes, 100 mil lanches e 5 mil promoções.
+         */
+        public static Settings defaults(long seed) {
+            return new Settings(seed, 10_000, 100_000, 5_000);
+        }
+    }
+
+    public static CatalogSnapshotFile.Contents generate(Settings settings) {
+        var random = new SplittableRandom(settings.seed());
+        // Cada seção usa o seu próprio gerador, então mudar a quantidade de promoções não muda os lanches
+        var ingredientRandom = random.split();
+        var dishRandom = random.split();
+        var offerRandom = random.split();
+
+        var ingredients = new ArrayList<CatalogSnapshotFile.IngredientRow>(settings.ingredients());
+        for (var i = 1; i <= settings.ingredients(); i++)
+            ingredients.add(new CatalogSnapshotFile.IngredientRow(i, String.format("Ingredient %05d", i), 20 + ingredientRandom.nextInt(481)));
+
+        var popularity = new ZipfianSampler(settings.ingredients(), INGREDIENT_POPULARITY_EXPONENT);
+
+        var dishes = new ArrayList<CatalogSnapshotFile.DishRow>(settings.dishes());
+        var dishIngredientId = 0L;
+        for (var i = 1; i <= settings.dishes(); i++) {
+            var count = 1 + Math.min(MAX_DISH_INGREDIENTS - 1, (int) (-Math.log(1.0 - dishRandom.nextDouble()) * MEAN_EXTRA_DISH_INGREDIENTS));
+            var quantities = new ArrayList<CatalogSnapshotFile.DishIngredientRow>(count);
+            var totalPrice = 0L;
+            for (var ingredientIndex : distinctIngredients(popularity, dishRandom, count, Set.of())) {
+                var roll = dishRandom.nextDouble();
+                var quantity = roll < 0.75 ? 1 : roll < 0.95 ? 2 : 3;
+                quantities.add(new CatalogSnapshotFile.DishIngredientRow(++dishIngredientId, ingredientIndex + 1L, quantity));
+                totalPrice += ingredients.get(ingredientIndex).salePrice() * quantity;
+            }
+            dishes.add(new CatalogSnapshotFile.DishRow(i, String.format("Dish %06d", i), totalPrice, quantities));
+        }
+
+        var offers = new ArrayList<CatalogSnapshotFile.OfferRow>(settings.offers());
+        var offerIngredientId = 0L;
+        for (var i = 1; i <= settings.offers(); i++) {
+            var required = new ArrayList<CatalogSnapshotFile.OfferIngredientRow>();
+            var excluded = new ArrayList<CatalogSnapshotFile.OfferIngredientRow>();
+
+            if (i % 2 == 1) {
+                var requiredIndexes = distinctIngredients(popularity, offerRandom, 1 + offerRandom.nextInt(2), Set.of());
+                for (var index : requiredIndexes)
+                    required.add(new CatalogSnapshotFile.OfferIngredientRow(++offerIngredientId, index + 1L, 1, 1));
+                for (var index : distinctIngredients(popularity, offerRandom, offerRandom.nextInt(2), requiredIndexes))
+                    excluded.add(new CatalogSnapshotFile.OfferIngredientRow(++offerIngredientId, index + 1L, 1, 1));
+                offers.add(new CatalogSnapshotFile.OfferRow(i, String.format("Offer %05d", i),
+                        DiscountType.DISH_TOTAL_PRICE_PERCENTAGE_DISCOUNT, 5L + offerRandom.nextInt(26), required, excluded));
+            } else {
+                var minQuantity = 2 + offerRandom.nextInt(3);
+                var index = popularity.next(offerRandom);
+                required.add(new CatalogSnapshotFile.OfferIngredientRow(++offerIngredientId, index + 1L, minQuantity, minQuantity - 1));
+                offers.add(new CatalogSnapshotFile.OfferRow(i, String.format("Offer %05d", i),
+                        DiscountType.INGREDIENT_QUANTITY_DISCOUNT, null, required, excluded));
+            }
+        }
+
+        return new CatalogSnapshotFile.Contents(0L, 0L, ingredients, dishes, offers);
+    }
+
+    /**
+     * Sorteia {@code count} ingredientes diferentes pela popularidade, ignorando os de {@code except}.
+     */
+    private static Set<Integer> distinctIngredients(ZipfianSampler popularity, SplittableRandom random, int count, Set<Integer> except) {
+        var available = popularity.size() - except.size();
+        var selected = new LinkedHashSet<Integer>();
+        while (selected.size() < Math.min(count, available)) {
+            var index = popularity.next(random);
+            if (!except.contains(index))
+                selected.add(index);
+        }
+        return selected;
+    }
+}
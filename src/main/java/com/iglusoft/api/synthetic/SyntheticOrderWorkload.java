@@ -0,0 +1,78 @@
+package com.iglusoft.api.synthetic;
+
+import com.iglusoft.api.dtos.DishIngredientDto;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.services.CatalogSnapshotFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Gera pedidos sintéticos sobre um catálogo do {@link SyntheticCatalogGenerator}, com popularidade de Zipf entre os
+ * lanches: poucos lanches concentram a maior parte dos pedidos, como num cardápio real.
+ *
+ * <p>
+ * A sequência de pedidos é determinada pela semente. As posições de popularidade são embaralhadas pela mesma
+ * semente, para que os lanches mais pedidos não sejam simplesmente os de menor ID.
+ * </p>
+ *
+ * <p>
+ * Cada pedido tem de 1 a 3 lanches; um em cada cinco lanches leva um ingrediente adicional, escolhido também pela
+ * popularidade. Uma instância não é thread-safe: cada thread de um teste de carga deve usar a sua, com sementes
+ * diferentes.
+ * </p>
+ */
+public final class SyntheticOrderWorkload {
+    public static final double DEFAULT_DISH_POPULARITY_EXPONENT = 1.0;
+
+    private final SplittableRandom random;
+    private final long[] dishIdsByRank;
+    private final long[] ingredientIdsByRank;
+    private final ZipfianSampler dishPopularity;
+    private final ZipfianSampler ingredientPopularity;
+
+    public SyntheticOrderWorkload(CatalogSnapshotFile.Contents contents, long seed) {
+        this(contents, seed, DEFAULT_DISH_POPULARITY_EXPONENT);
+    }
+
+    public SyntheticOrderWorkload(CatalogSnapshotFile.Contents contents, long seed, double dishPopularityExponent) {
+        this.random = new SplittableRandom(seed);
+        this.dishIdsByRank = shuffledIds(contents.dishes().stream().mapToLong(CatalogSnapshotFile.DishRow::id).toArray(), random);
+        this.ingredientIdsByRank = shuffledIds(contents.ingredients().stream().mapToLong(CatalogSnapshotFile.IngredientRow::id).toArray(), random);
+        this.dishPopularity = new ZipfianSampler(dishIdsByRank.length, dishPopularityExponent);
+        this.ingredientPopularity = new ZipfianSampler(ingredientIdsByRank.length, 1.0);
+    }
+
+    public List<DishOrderDto> nextOrder() {
+        var roll = random.nextDouble();
+        var dishCount = roll < 0.6 ? 1 : roll < 0.9 ? 2 : 3;
+
+        var order = new ArrayList<DishOrderDto>(dishCount);
+        for (var i = 0; i < dishCount; i++) {
+            var dishId = dishIdsByRank[dishPopularity.next(random)];
+            var extras = random.nextInt(5) == 0
+                    ? List.of(new DishIngredientDto(ingredientIdsByRank[ingredientPopularity.next(random)], 1 + random.nextInt(3)))
+                    : List.<DishIngredientDto>of();
+            order.add(new DishOrderDto(dishId, extras));
+        }
+        return order;
+    }
+
+    /**
+     * Retorna o ID do lanche na posição de popularidade informada, sendo {@code 0} o mais pedido.
+     */
+    public long dishIdAtRank(int rank) {
+        return dishIdsByRank[rank];
+    }
+
+    private static long[] shuffledIds(long[] ids, SplittableRandom random) {
+        for (var i = ids.length - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,48 @@
+package com.iglusoft.api.synthetic;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Sorteia posições de {@code 0} a {@code n - 1} segundo uma distribuição de Zipf: a posição {@code k} é sorteada com
+ * probabilidade proporcional a {@code 1 / (k + 1)^exponent}.
+ *
+ * <p>
+ * A distribuição acumulada é calculada uma única vez no construtor e cada sorteio é uma busca binária nela, então a
+ * mesma instância pode ser compartilhada entre threads, cada uma com o seu {@link SplittableRandom}.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var sampler = new ZipfianSampler(100_000, 1.0);
+ * var random = new SplittableRandom(42L);
+ * int rank = sampler.next(random); // 0 é a posição mais popular
+ * }</pre>
+ */
+public final class ZipfianSampler {
+    private final double[] cumulative;
+
+    public ZipfianSampler(int n, double exponent) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n must be positive");
+
+        cumulative = new double[n];
+        var total = 0.0;
+        for (var k = 0; k < n; k++) {
+            total += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        for (var k = 0; k < n; k++)
+            cumulative[k] /= total;
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    public int next(SplittableRandom random) {
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        var rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.iglusoft.api.tenancy;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Guarda o restaurante (tenant) da thread atual. Todas as consultas às entidades do catálogo e todas as caches em
+ * memória do catálogo usam o tenant atual.
+ *
+ * <p>
+ * Nas requisições HTTP, o tenant é definido pelo {@link com.iglusoft.api.filters.TenantFilter}. Nas demais threads,
+ * como as tarefas agendadas e o aquecimento, o tenant é o {@link #DEFAULT_TENANT}, a menos que o código o troque
+ * explicitamente com {@link #call(String, Supplier)}.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var snapshot = TenantContext.call("restaurant-42", catalogSnapshotService::getSnapshot);
+ * }</pre>
+ */
+public final class TenantContext {
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Pattern VALID_TENANT = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * Retorna o tenant da thread atual, ou o {@link #DEFAULT_TENANT} se nenhum foi definido.
+     */
+    public static String current() {
+        var tenantId = CURRENT.get();
+        return tenantId == null ? DEFAULT_TENANT : tenantId;
+    }
+
+    /**
+     * Indica se o texto pode ser usado como identificador de tenant: de 1 a 64 letras, dígitos, {@code -} ou
+     * {@code _}.
+     */
+    public static boolean isValid(String tenantId) {
+        return tenantId != null && VALID_TENANT.matcher(tenantId).matches();
+    }
+
+    /**
+     * Define o tenant da thread atual até o {@link Scope} ser fechado, quando o tenant anterior é restaurado.
+     */
+    public static Scope open(String tenantId) {
+        var previous = CURRENT.get();
+        CURRENT.set(tenantId);
+        return () -> {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        };
+    }
+
+    /**
+     * Executa {@code action} com o tenant informado, restaurando o tenant anterior ao final.
+     *
+     * <p>
+     * A sessão do Hibernate fixa o tenant ao ser aberta, então o tenant não deve ser trocado dentro de uma transação
+     * já iniciada.
+     * </p>
+     */
+    public static <T> T call(String tenantId, Supplier<T> action) {
+        var scope = open(tenantId);
+        try {
+            return action.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Igual a {@link #call(String, Supplier)}, para ações sem retorno.
+     */
+    public static void run(String tenantId, Runnable action) {
+        call(tenantId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * O período em que um tenant está definido na thread, aberto por {@link #open(String)}.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.iglusoft.api.tenancy;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Informa ao Hibernate o tenant de cada sessão, lido do {@link TenantContext}.
+ *
+ * <p>
+ * As entidades do catálogo têm uma coluna {@code tenant_id} anotada com {@code @TenantId}: o Hibernate a preenche
+ * nas inserções e a inclui como filtro em todas as consultas, inclusive nas consultas JPQL dos repositórios, então
+ * um restaurante nunca lê nem altera o catálogo de outro. Consultas nativas não são filtradas.
+ * </p>
+ */
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TenantContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
@@ -0,0 +1,106 @@
+package com.iglusoft.api.tenancy;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Guarda um valor por tenant, criado sob demanda, mantendo no máximo {@code maxTenants} valores. Ao passar do limite,
+ * o valor do tenant acessado há mais tempo é descartado e criado de novo no próximo acesso.
+ *
+ * <p>
+ * Usado pelas caches do catálogo para que uma única instância atenda centenas de restaurantes com memória limitada:
+ * somente os restaurantes com movimento recente ficam carregados.
+ * </p>
+ *
+ * <p><strong>Decisões de Design:</strong></p>
+ * <ul>
+ *     <li>O LRU é aproximado: cada acesso apenas grava o instante do acesso no valor, sem lock e sem reordenar uma
+ *     lista, e a busca pelo mais antigo é feita somente quando um tenant novo é carregado. As leituras, que são a
+ *     maioria, continuam sem contenção.</li>
+ *     <li>O valor descartado não é fechado nem avisado; quem ainda o tiver em mãos continua usando-o até terminar.</li>
+ * </ul>
+ *
+ * @param <V> O tipo do valor guardado por tenant.
+ */
+public final class TenantLruCache<V> {
+    private final int maxTenants;
+    private final Function<String, V> factory;
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public TenantLruCache(int maxTenants, Function<String, V> factory) {
+        if (maxTenants < 1)
+            throw new IllegalArgumentException("maxTenants must be positive");
+        this.maxTenants = maxTenants;
+        this.factory = factory;
+    }
+
+    /**
+     * Retorna o valor do tenant atual do {@link TenantContext}.
+     */
+    public V current() {
+        return get(TenantContext.current());
+    }
+
+    /**
+     * Retorna o valor do tenant, criando-o se ainda não existir.
+     */
+    public V get(String tenantId) {
+        var entry = entries.get(tenantId);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(tenantId, it -> new Entry<>(factory.apply(it)));
+            evictIfFull();
+        }
+        entry.lastAccessNanos = System.nanoTime();
+        return entry.value;
+    }
+
+    /**
+     * Retorna o valor do tenant somente se ele já estiver carregado, sem criá-lo nem contar como acesso.
+     */
+    public Optional<V> peek(String tenantId) {
+        var entry = entries.get(tenantId);
+        return entry == null ? Optional.empty() : Optional.of(entry.value);
+    }
+
+    public void forEach(BiConsumer<String, V> action) {
+        entries.forEach((tenantId, entry) -> action.accept(tenantId, entry.value));
+    }
+
+    /**
+     * Descarta os valores de todos os tenants.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > maxTenants) {
+            String oldestTenant = null;
+            Entry<V> oldest = null;
+            for (var candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccessNanos - oldest.lastAccessNanos < 0) {
+                    oldestTenant = candidate.getKey();
+                    oldest = candidate.getValue();
+                }
+            }
+            if (oldest == null)
+                return;
+            entries.remove(oldestTenant, oldest);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
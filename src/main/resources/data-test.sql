@@ -13,4 +13,20 @@ INSERT INTO DISH_INGREDIENT_QUANTITY(dish_id, ingredient_id, quantity) VALUES
     (1, 5, 4),
     (1, 3, 7),
     (1, 2, 5),
-    (2, 1, 5);
\ No newline at end of file
+    (2, 1, 5);
+
+INSERT INTO OFFER(name, discount_type, discount_amount) VALUES
+    ('Test Offer A', 'DISH_TOTAL_PRICE_PERCENTAGE_DISCOUNT', 10),
+    ('Test Offer B', 'INGREDIENT_QUANTITY_DISCOUNT', NULL);
+
+INSERT INTO OFFER_INGREDIENT_MIN_QUANTITY(offer_id, ingredient_id, min_quantity, paid_quantity) VALUES
+    (1, 4, 1, 1),
+    (1, 5, 1, 1),
+    (2, 4, 3, 2);
+
+INSERT INTO OFFER_REQUIRED_INGREDIENTS(offer_id, required_ingredients_id) VALUES
+    (1, 1),
+    (2, 3);
+
+INSERT INTO OFFER_EXCLUDED_INGREDIENTS(offer_id, excluded_ingredients_id) VALUES
+    (1, 2);
@@ -0,0 +1,99 @@
+package com.iglusoft.api.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // Com o limite atingido e a fila cheia, a requisicao deve ser rejeitada imediatamente
+    @Test
+    void assertRejectsWhenLimitAndQueueAreExhausted() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 4, 0, 50, 100, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, true);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    // Requisicoes lentas ou com erro reduzem o limite, respeitando o limite minimo
+    @Test
+    void assertLimitDecreasesOnSlowOrFailedRequests() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 8, 2, 16, 0, 0, 100, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, true);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+        assertEquals(2, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    // Uma rajada de requisicoes lentas que estavam em andamento juntas deve reduzir o limite uma unica vez
+    @Test
+    void assertBurstOfSlowRequestsDecreasesLimitOnce() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 16, 1, 16, 0, 0, 100, 0.5);
+        for (var i = 0; i < 8; i++)
+            assertTrue(limiter.tryAcquire());
+
+        for (var i = 0; i < 8; i++)
+            limiter.release(SLOW, true);
+        assertEquals(8, limiter.getLimit());
+
+        // Uma requisicao lenta iniciada depois da janela reduz o limite de novo
+        limiter.tryAcquire();
+        limiter.release(SLOW, true);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    // Requisicoes rapidas com o limite em uso aumentam o limite ate o maximo
+    @Test
+    void assertLimitIncreasesWhileSaturatedAndFast() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 3, 0, 0, 100, 0.5);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(3, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    // Uma requisicao na fila deve receber a vaga assim que ela for liberada
+    @Test
+    void assertQueuedRequestAcquiresReleasedPermit() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 1, 5_000, 100, 0.5);
+        assertTrue(limiter.tryAcquire());
+
+        var waiter = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            limiter.release(FAST, true);
+        });
+        waiter.start();
+
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1, limiter.getInFlight());
+        waiter.join();
+    }
+}
@@ -0,0 +1,103 @@
+package com.iglusoft.api.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultiProducerRingBufferTests {
+
+    private static final class Slot {
+        private long value;
+    }
+
+    // Cada consumidor deve receber todos os eventos de todos os produtores, uma unica vez e em ordem de sequencia
+    @Test
+    void assertEveryConsumerReceivesEveryEventOnce() throws InterruptedException {
+        var ring = new MultiProducerRingBuffer<>(64, Slot::new, 2);
+        var producers = 8;
+        var eventsPerProducer = 10_000;
+        var total = producers * eventsPerProducer;
+
+        var sums = new long[2];
+        var counts = new long[2];
+        var consumersDone = new CountDownLatch(2);
+        for (var consumer = 0; consumer < 2; consumer++) {
+            var index = consumer;
+            var thread = new Thread(() -> {
+                var expectedSequence = new long[]{0};
+                while (counts[index] < total) {
+                    ring.drain(index, 16, (slot, sequence, endOfBatch) -> {
+                        assertEquals(expectedSequence[0]++, sequence);
+                        sums[index] += slot.value;
+                        counts[index]++;
+                    });
+                }
+                consumersDone.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        var producersDone = new CountDownLatch(producers);
+        for (var producer = 0; producer < producers; producer++) {
+            var thread = new Thread(() -> {
+                for (var i = 1; i <= eventsPerProducer; i++) {
+                    var sequence = ring.claim(1, TimeUnit.SECONDS.toNanos(5));
+                    ring.get(sequence).value = i;
+                    ring.publish(sequence, sequence);
+                }
+                producersDone.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        assertTrue(producersDone.await(30, TimeUnit.SECONDS));
+        assertTrue(consumersDone.await(30, TimeUnit.SECONDS));
+        var expectedSum = (long) producers * eventsPerProducer * (eventsPerProducer + 1) / 2;
+        assertEquals(expectedSum, sums[0]);
+        assertEquals(expectedSum, sums[1]);
+        assertEquals(0, ring.backlog());
+    }
+
+    // Com a fila cheia por causa do consumidor mais lento, a reserva deve desistir depois do tempo informado
+    @Test
+    void assertClaimTimesOutWhileSlowestConsumerLags() {
+        var ring = new MultiProducerRingBuffer<>(4, Slot::new, 2);
+        var first = ring.claim(4, 0);
+        ring.publish(first, first + 3);
+        assertEquals(4, ring.drain(0, 16, (slot, sequence, endOfBatch) -> {
+        }));
+
+        assertEquals(-1, ring.claim(1, TimeUnit.MILLISECONDS.toNanos(10)));
+
+        ring.drain(1, 1, (slot, sequence, endOfBatch) -> {
+        });
+        assertEquals(4, ring.claim(1, 0));
+    }
+
+    // Um lote deve parar no primeiro evento ainda nao publicado e respeitar o tamanho maximo
+    @Test
+    void assertDrainStopsAtUnpublishedEventAndBatchLimit() {
+        var ring = new MultiProducerRingBuffer<>(16, Slot::new, 1);
+        var first = ring.claim(6, 0);
+        ring.publish(first, first + 1);
+        ring.publish(first + 3, first + 5);
+
+        var endOfBatch = new AtomicBoolean();
+        assertEquals(2, ring.drain(0, 16, (slot, sequence, end) -> endOfBatch.set(end)));
+        assertTrue(endOfBatch.get());
+
+        ring.publish(first + 2, first + 2);
+        assertEquals(2, ring.drain(0, 2, (slot, sequence, end) -> {
+        }));
+        assertEquals(2, ring.drain(0, 2, (slot, sequence, end) -> {
+        }));
+        assertEquals(0, ring.backlog());
+    }
+}
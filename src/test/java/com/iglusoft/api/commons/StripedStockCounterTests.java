@@ -0,0 +1,87 @@
+package com.iglusoft.api.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedStockCounterTests {
+
+    // Uma retirada maior que o saldo deve ser recusada sem alterar o contador
+    @Test
+    void assertRejectsTakeLargerThanBalance() {
+        var counter = new StripedStockCounter(4);
+        counter.add(5);
+
+        assertFalse(counter.tryTake(6));
+        assertEquals(5, counter.sum());
+        assertTrue(counter.tryTake(5));
+        assertEquals(0, counter.sum());
+    }
+
+    // O saldo espalhado entre as faixas de varias threads deve ser juntado para cobrir uma retirada grande
+    @Test
+    void assertCollectsBalanceFromAllStripes() throws InterruptedException {
+        var counter = new StripedStockCounter(8);
+        var executor = Executors.newFixedThreadPool(16);
+        try {
+            var done = new CountDownLatch(16);
+            for (var i = 0; i < 16; i++)
+                executor.execute(() -> {
+                    counter.add(10);
+                    done.countDown();
+                });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            shutdown(executor);
+        }
+
+        assertEquals(8, counter.stripes());
+        assertTrue(counter.tryTake(155));
+        assertEquals(5, counter.sum());
+        assertFalse(counter.tryTake(6));
+    }
+
+    // Com 32 threads disputando o mesmo estoque, nenhuma unidade pode ser vendida alem do saldo
+    @Test
+    void assertNeverOversellsUnderContention() throws InterruptedException {
+        var counter = new StripedStockCounter(16);
+        counter.add(10_000);
+        var taken = new AtomicLong();
+        var executor = Executors.newFixedThreadPool(32);
+        try {
+            var done = new CountDownLatch(32);
+            for (var i = 0; i < 32; i++) {
+                var amount = 1 + i % 3;
+                executor.execute(() -> {
+                    for (var j = 0; j < 1_000; j++) {
+                        if (counter.tryTake(amount))
+                            taken.addAndGet(amount);
+                        // Devolucoes concorrentes, como as de uma reserva desfeita
+                        if (j % 10 == 0 && counter.tryTake(1))
+                            counter.add(1);
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            shutdown(executor);
+        }
+
+        assertEquals(10_000, taken.get() + counter.sum());
+        assertTrue(counter.sum() >= 0);
+    }
+
+    private static void shutdown(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
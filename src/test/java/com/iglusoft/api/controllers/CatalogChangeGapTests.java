@@ -0,0 +1,137 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.dtos.IngredientDto;
+import com.iglusoft.api.services.CatalogChangeLogService;
+import com.iglusoft.api.services.CatalogChangeStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+
+// As alteracoes de outra instancia sao simuladas com insercoes diretas no historico, com a sequencia escolhida pelo teste
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogchangegaptest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        "iglusoft.invalidation.gap-timeout-millis=60000"
+})
+public class CatalogChangeGapTests {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private CatalogChangeLogService catalogChangeLogService;
+
+    @Autowired
+    private CatalogChangeStreamService catalogChangeStreamService;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    // A sincronizacao incremental nao deve passar de uma sequencia que outra instancia ainda nao confirmou
+    @Test
+    void assertDeltaSyncStopsBeforePendingGap() {
+        var since = seedHistory();
+
+        insertChange(since + 2, 2L, Instant.now());
+        var pending = catalogChangeLogService.getChangesSince(since);
+        assertEquals(since, pending.sequence());
+        assertTrue(pending.ingredients().isEmpty());
+
+        insertChange(since + 1, 1L, Instant.now());
+        var delivered = catalogChangeLogService.getChangesSince(since);
+        assertEquals(since + 2, delivered.sequence());
+        assertEquals(List.of(1L, 2L), delivered.ingredients().stream().map(IngredientDto::getId).sorted().toList());
+    }
+
+    // Uma lacuna seguida de uma alteracao gravada antes do prazo deve ser considerada uma transacao desfeita
+    @Test
+    void assertDeltaSyncSkipsExpiredGap() {
+        var since = seedHistory();
+
+        insertChange(since + 2, 3L, Instant.now().minus(Duration.ofMinutes(5)));
+
+        assertEquals(since + 2, catalogChangeLogService.getChangesSince(since).sequence());
+    }
+
+    // O fluxo deve reter a alteracao posterior a lacuna ate a lacuna aparecer, e entao enviar as duas em ordem
+    @Test
+    void assertStreamHoldsBackChangesAfterPendingGap() throws Exception {
+        var since = seedHistory();
+        var subscribers = catalogChangeStreamService.getSubscriberCount();
+        var result = mockMvc.perform(get("/catalog/changes/stream").header("Last-Event-ID", since))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // A inscricao e registrada pela thread de despacho; as alteracoes abaixo devem chegar depois dela
+        var deadline = System.currentTimeMillis() + 5000;
+        while (catalogChangeStreamService.getSubscriberCount() == subscribers && System.currentTimeMillis() < deadline)
+            Thread.sleep(20);
+
+        insertChange(since + 2, 2L, Instant.now());
+        catalogChangeStreamService.dispatchChanges();
+        // O heartbeat e enviado pela thread de despacho depois do despacho acima terminar
+        catalogChangeStreamService.sendHeartbeat();
+        awaitContent(result, "heartbeat");
+        insertChange(since + 1, 1L, Instant.now());
+        catalogChangeStreamService.dispatchChanges();
+
+        awaitContent(result, "id:" + (since + 1));
+        awaitContent(result, "id:" + (since + 2));
+        var content = result.getResponse().getContentAsString();
+        assertTrue(content.indexOf("id:" + (since + 1)) < content.indexOf("id:" + (since + 2)));
+    }
+
+    /**
+     * Grava uma alteracao depois da ultima do historico e retorna a sua sequencia. O historico nao pode estar vazio,
+     * senao a primeira alteracao parece uma poda do historico.
+     */
+    private long seedHistory() {
+        var sequence = catalogChangeRepository.findLastSequenceInAllTenants() + 1;
+        insertChange(sequence, 1L, Instant.now());
+        return sequence;
+    }
+
+    private void insertChange(long id, long ingredientId, Instant changedAt) {
+        jdbcTemplate.update(
+                "INSERT INTO CATALOG_CHANGE(id, tenant_id, entity_type, entity_id, change_type, changed_at, origin_node) VALUES (?, 'default', 'INGREDIENT', ?, 'UPDATED', ?, 'other-node')",
+                id, ingredientId, Timestamp.from(changedAt));
+    }
+
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        var deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Expected event containing " + expected + " but received: " + result.getResponse().getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.services.IngredientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static com.iglusoft.api.support.SqlStatementRecorder.assertMaxStatements;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties")
+public class CatalogControllerTests {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    // Uma requisicao condicional com o ETag atual deve receber 304 sem consultar o banco de dados
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients", "/ingredients/1", "/dishes", "/dishes/1", "/offers", "/offers/1"})
+    void assertConditionalGetReturnsNotModifiedWithoutQueries(String path) throws Exception {
+        var eTag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        assertMaxStatements(0, () -> {
+            try {
+                mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    // Uma escrita no catalogo deve gerar um novo ETag, invalidando as copias dos clientes
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients", "/dishes", "/offers"})
+    void assertCatalogWriteChangesETag(String path) throws Exception {
+        var eTag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        ingredientService.saveIngredient(new NewEditIngredientDto(null, "ETag Ingredient " + path, 15L));
+
+        var newETag = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+    }
+
+    // Uma segunda leitura da mesma versao deve ser servida pelo cache de respostas, sem consultar o banco de dados
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients", "/ingredients/1", "/dishes", "/dishes/1", "/offers", "/offers/1"})
+    void assertRepeatedGetIsServedFromResponseCache(String path) throws Exception {
+        var body = mockMvc.perform(get(path)).andReturn().getResponse().getContentAsByteArray();
+
+        assertMaxStatements(0, () -> {
+            try {
+                mockMvc.perform(get(path))
+                        .andExpect(status().isOk())
+                        .andExpect(content().bytes(body));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    // A resposta compactada deve ter o mesmo conteudo da resposta em JSON puro, com um ETag proprio
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients", "/dishes/1", "/offers"})
+    void assertGzipResponseMatchesRawResponse(String path) throws Exception {
+        var raw = mockMvc.perform(get(path))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse();
+
+        var gzipped = mockMvc.perform(get(path).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andReturn().getResponse();
+
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(raw.getContentAsByteArray(), gzip.readAllBytes());
+        }
+        assertNotEquals(raw.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+    }
+
+    // Depois de uma escrita, a lista servida pelo cache deve conter o novo ingrediente
+    @Test
+    void assertResponseCacheIsRebuiltAfterCatalogWrite() throws Exception {
+        var name = "Cached Ingredient";
+        mockMvc.perform(get("/ingredients")).andExpect(status().isOk());
+
+        ingredientService.saveIngredient(new NewEditIngredientDto(null, name, 15L));
+
+        mockMvc.perform(get("/ingredients"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(name)));
+    }
+
+    // Um cliente inscrito deve receber as alteracoes feitas depois da inscricao
+    @Test
+    void assertCatalogChangeIsPushedToSubscriber() throws Exception {
+        var lastSequence = catalogChangeRepository.findLastSequence();
+        var result = mockMvc.perform(get("/catalog/changes/stream").header("Last-Event-ID", lastSequence))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var ingredient = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Streamed Ingredient", 15L));
+
+        awaitContent(result, "\"entityId\":" + ingredient.getId());
+        assertTrue(result.getResponse().getContentAsString().contains("id:" + (lastSequence + 1)));
+    }
+
+    // Na reconexao, as alteracoes posteriores ao Last-Event-ID devem ser reenviadas
+    @Test
+    void assertMissedChangesAreReplayedFromLastEventId() throws Exception {
+        var lastSequence = catalogChangeRepository.findLastSequence();
+        var ingredient = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Replayed Ingredient", 15L));
+
+        var result = mockMvc.perform(get("/catalog/changes/stream").header("Last-Event-ID", lastSequence))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        awaitContent(result, "\"entityId\":" + ingredient.getId());
+    }
+
+    // Somente os campos pedidos devem aparecer na resposta, e as colecoes nao expandidas devem ser omitidas
+    @Test
+    void assertSparseFieldsetTrimsResponse() throws Exception {
+        mockMvc.perform(get("/dishes").param("fields", "name,id,totalPrice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").exists())
+                .andExpect(jsonPath("$[0].totalPrice").exists())
+                .andExpect(jsonPath("$[0].ingredients").doesNotExist());
+
+        mockMvc.perform(get("/offers/1").param("expand", "requiredIngredients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.discountType").exists())
+                .andExpect(jsonPath("$.requiredIngredients").isArray())
+                .andExpect(jsonPath("$.excludedIngredients").doesNotExist());
+
+        mockMvc.perform(get("/dishes/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients").isArray());
+    }
+
+    // Um campo desconhecido deve ser rejeitado
+    @ParameterizedTest
+    @ValueSource(strings = {"/dishes?fields=id,secret", "/offers?expand=name", "/ingredients/1?fields=price"})
+    void assertUnknownFieldIsRejected(String path) throws Exception {
+        mockMvc.perform(get(path))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").isString());
+    }
+
+    // Buscas repetidas pelo mesmo ID inexistente devem ser respondidas sem consultar o banco de dados
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients/987654", "/dishes/987654", "/offers/987654"})
+    void assertRepeatedMissIsServedFromNegativeLookupCache(String path) throws Exception {
+        mockMvc.perform(get(path))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+
+        assertMaxStatements(0, () -> {
+            try {
+                mockMvc.perform(get(path)).andExpect(status().isNotFound());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        var deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Expected event containing " + expected + " but received: " + result.getResponse().getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+}
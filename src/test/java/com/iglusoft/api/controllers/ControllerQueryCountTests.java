@@ -0,0 +1,87 @@
+package com.iglusoft.api.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.stream.Stream;
+
+import static com.iglusoft.api.support.SqlStatementRecorder.assertMaxStatements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties")
+public class ControllerQueryCountTests {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        // Carrega a fotografia do catalogo antes das medicoes
+        mockMvc.perform(orderRequest());
+    }
+
+    /**
+     * O método {@code assertEndpointStatementCountIsBounded} garante que cada endpoint executa no máximo um número fixo de comandos SQL.
+     *
+     * <p>
+     * O limite não depende da quantidade de registros no banco de dados, então uma consulta por item (N+1) adicionada
+     * em um repositório faz este teste falhar, exibindo os comandos executados.
+     * </p>
+     *
+     * @param requestBuilder A requisição a ser executada.
+     * @param maxStatements  O número máximo de comandos SQL permitidos.
+     */
+    @ParameterizedTest
+    @MethodSource("provideRequests")
+    void assertEndpointStatementCountIsBounded(RequestBuilder requestBuilder, int maxStatements) {
+        assertMaxStatements(maxStatements, () -> {
+            try {
+                mockMvc.perform(requestBuilder).andExpect(status().is2xxSuccessful());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static Stream<Arguments> provideRequests() {
+        return Stream.of(
+            Arguments.of(get("/ingredients"), 1),
+            Arguments.of(get("/ingredients/1"), 1),
+            Arguments.of(get("/dishes"), 2),
+            Arguments.of(get("/dishes/1"), 1),
+            Arguments.of(get("/offers"), 3),
+            Arguments.of(get("/offers/1"), 3),
+            Arguments.of(get("/dishes").param("fields", "id,name,totalPrice"), 1),
+            Arguments.of(get("/dishes/1").param("expand", ""), 1),
+            Arguments.of(get("/offers").param("expand", ""), 1),
+            Arguments.of(get("/offers").param("expand", "requiredIngredients"), 2),
+            Arguments.of(get("/offers/1").param("fields", "id,name,discountType,discountAmount"), 1),
+            // O calculo do pedido e feito na fotografia do catalogo; o unico comando e a gravacao do evento no outbox
+            Arguments.of(orderRequest(), 1)
+        );
+    }
+
+    private static RequestBuilder orderRequest() {
+        return post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"dishId\": 1, \"ingredients\": [{\"ingredientId\": 1, \"quantity\": 1}]}, {\"dishId\": 2, \"ingredients\": []}]");
+    }
+}
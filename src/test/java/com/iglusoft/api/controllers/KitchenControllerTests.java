@@ -0,0 +1,129 @@
+package com.iglusoft.api.controllers;
+
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.OrderResponseDto;
+import com.iglusoft.api.services.KitchenDispatchService;
+import com.iglusoft.api.services.OrderService;
+import com.iglusoft.api.tenancy.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:kitchentest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        "iglusoft.kitchen.stations.grill=Ingredient A",
+        "iglusoft.kitchen.stations.fryer=Ingredient C",
+        "iglusoft.kitchen.ring-size=8"
+})
+public class KitchenControllerTests {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private KitchenDispatchService kitchenDispatchService;
+
+    @Autowired
+    private OrderService orderService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    // Cada lanche do pedido deve chegar a montagem e somente as estacoes que preparam algum dos seus ingredientes
+    @Test
+    void assertOrderIsRoutedToStationsByIngredient() throws Exception {
+        var grill = subscribe("grill");
+        var fryer = subscribe("fryer");
+        var assembly = subscribe("assembly");
+
+        // O lanche 2 usa somente o ingrediente A; o lanche 1 usa os ingredientes B, C e E
+        placeOrder(2L);
+        awaitContent(grill, "\"dish\":\"Test Dish B\"");
+        awaitContent(assembly, "\"dish\":\"Test Dish B\"");
+
+        placeOrder(1L);
+        awaitContent(fryer, "\"dish\":\"Test Dish A\"");
+        awaitContent(fryer, "\"ingredients\":[{\"name\":\"Ingredient C\",\"quantity\":7}]");
+        awaitContent(assembly, "\"dish\":\"Test Dish A\"");
+
+        // As estacoes leem os itens em ordem, entao a fritadeira ja passou pelo primeiro pedido
+        assertFalse(fryer.getResponse().getContentAsString().contains("Test Dish B"));
+    }
+
+    // Uma tela deve receber somente os itens do seu restaurante
+    @Test
+    void assertScreenReceivesOnlyItsTenantTickets() throws Exception {
+        var assembly = subscribe("assembly");
+        var order = orderService.getOrderResponse(List.of(new DishOrderDto(2L, List.of())));
+
+        var otherTenantOrder = kitchenDispatchService.dispatch("other-restaurant", order);
+        var ownOrder = kitchenDispatchService.dispatch(TenantContext.DEFAULT_TENANT, order);
+
+        awaitContent(assembly, "\"orderNumber\":" + ownOrder);
+        assertFalse(assembly.getResponse().getContentAsString().contains("\"orderNumber\":" + otherTenantOrder + ","));
+    }
+
+    // Um pedido com mais lanches que a fila deve ser recusado inteiro, sem chegar em parte as estacoes
+    @Test
+    void assertOrderLargerThanRingIsRejected() throws Exception {
+        var lines = String.join(",", Collections.nCopies(9, "{\"dishId\":2,\"ingredients\":[]}"));
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content("[" + lines + "]"))
+                .andExpect(status().isBadRequest());
+
+        var order = orderService.getOrderResponse(List.of(new DishOrderDto(2L, List.of())));
+        var oversized = new OrderResponseDto(order.totalPrice() * 9, Collections.nCopies(9, order.dishes().get(0)));
+        assertEquals(-1, kitchenDispatchService.dispatch(TenantContext.DEFAULT_TENANT, oversized));
+    }
+
+    // Uma estacao desconhecida deve retornar 404
+    @Test
+    void assertUnknownStationReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/kitchen/stations/oven/stream")).andExpect(status().isNotFound());
+    }
+
+    private MvcResult subscribe(String station) throws Exception {
+        return mockMvc.perform(get("/kitchen/stations/" + station + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private void placeOrder(long dishId) throws Exception {
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"dishId\":" + dishId + ",\"ingredients\":[]}]"))
+                .andExpect(status().isOk());
+    }
+
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        var deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Expected event containing " + expected + " but received: " + result.getResponse().getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+}
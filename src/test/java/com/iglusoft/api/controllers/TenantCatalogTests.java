@@ -0,0 +1,145 @@
+package com.iglusoft.api.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.exceptions.NotFoundException;
+import com.iglusoft.api.filters.TenantFilter;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import com.iglusoft.api.services.IngredientService;
+import com.iglusoft.api.services.OrderService;
+import com.iglusoft.api.tenancy.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+// Os restaurantes criados aqui nao devem aparecer nos outros testes, entao estes testes usam um banco de dados proprio
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:tenantcatalogtest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        "iglusoft.tenancy.max-cached-tenants=2"
+})
+public class TenantCatalogTests {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private TenantFilter tenantFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private OrderService orderService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(tenantFilter).build();
+    }
+
+    // Cada restaurante deve ter o seu proprio catalogo: nomes iguais sao aceitos e um nao enxerga o outro
+    @Test
+    void assertTenantsHaveIsolatedCatalogs() throws Exception {
+        var body = objectMapper.writeValueAsBytes(new NewEditIngredientDto(null, "Tenant Ingredient", 15L));
+        var created = mockMvc.perform(post("/ingredients").header("X-Tenant-Id", "restaurant-a")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+        mockMvc.perform(post("/ingredients").header("X-Tenant-Id", "restaurant-b")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+
+        var id = objectMapper.readTree(created.getResponse().getContentAsByteArray()).get("id").asLong();
+        mockMvc.perform(get("/ingredients/" + id).header("X-Tenant-Id", "restaurant-a")).andExpect(status().isOk());
+        mockMvc.perform(get("/ingredients/" + id).header("X-Tenant-Id", "restaurant-b")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/ingredients/" + id)).andExpect(status().isNotFound());
+    }
+
+    // As leituras do catalogo podem ficar em caches compartilhados, entao devem variar pelo cabecalho do restaurante
+    @Test
+    void assertCatalogResponsesVaryByTenant() throws Exception {
+        for (var path : new String[]{"/ingredients", "/dishes"}) {
+            mockMvc.perform(get(path).header("X-Tenant-Id", "restaurant-a"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString("X-Tenant-Id"))));
+        }
+    }
+
+    // Um identificador de restaurante invalido deve ser rejeitado antes de chegar ao controller
+    @Test
+    void assertInvalidTenantIsRejected() throws Exception {
+        mockMvc.perform(get("/ingredients").header("X-Tenant-Id", "../other")).andExpect(status().isBadRequest());
+    }
+
+    // Uma escrita em um restaurante nao deve descartar a fotografia dos outros
+    @Test
+    void assertWriteInvalidatesOnlyItsTenantSnapshot() {
+        var defaultSnapshot = catalogSnapshotService.getSnapshot();
+        var otherSnapshot = TenantContext.call("restaurant-c", catalogSnapshotService::getSnapshot);
+        assertTrue(otherSnapshot.ingredients().isEmpty());
+        assertNotEquals(defaultSnapshot.version(), otherSnapshot.version());
+
+        var created = TenantContext.call("restaurant-c",
+                () -> ingredientService.saveIngredient(new NewEditIngredientDto(null, "Tenant C Ingredient", 15L)));
+
+        assertEquals(defaultSnapshot, catalogSnapshotService.peekSnapshot().orElseThrow());
+        assertTrue(TenantContext.call("restaurant-c", catalogSnapshotService::peekSnapshot).isEmpty());
+        assertTrue(TenantContext.call("restaurant-c", catalogSnapshotService::getSnapshot).containsIngredient(created.getId()));
+        assertFalse(catalogSnapshotService.getSnapshot().containsIngredient(created.getId()));
+    }
+
+    // O pedido deve usar o catalogo do restaurante atual, mesmo com o catalogo padrao ja em memoria
+    @Test
+    void assertOrderUsesCurrentTenant() {
+        var order = List.of(new DishOrderDto(1L, List.of()));
+        orderService.getOrderResponse(order);
+
+        assertThrows(NotFoundException.class, () -> TenantContext.call("restaurant-g", () -> orderService.getOrderResponse(order)));
+    }
+
+    // Com o limite de restaurantes em memoria atingido, o menos usado deve ser descartado e carregado de novo
+    @Test
+    void assertLeastRecentlyUsedTenantSnapshotIsEvicted() throws InterruptedException {
+        var first = TenantContext.call("restaurant-d", catalogSnapshotService::getSnapshot);
+        Thread.sleep(1);
+        TenantContext.call("restaurant-e", catalogSnapshotService::getSnapshot);
+        Thread.sleep(1);
+        TenantContext.call("restaurant-f", catalogSnapshotService::getSnapshot);
+
+        assertTrue(TenantContext.call("restaurant-d", catalogSnapshotService::peekSnapshot).isEmpty());
+        var reloaded = TenantContext.call("restaurant-d", catalogSnapshotService::getSnapshot);
+        assertTrue(reloaded.version() > first.version());
+    }
+}
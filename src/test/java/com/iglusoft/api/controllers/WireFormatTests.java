@@ -0,0 +1,160 @@
+package com.iglusoft.api.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.dtos.DishDto;
+import com.iglusoft.api.dtos.DishIngredientDto;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.OrderResponseDto;
+import com.iglusoft.api.services.DishService;
+import com.iglusoft.api.services.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties")
+public class WireFormatTests {
+
+    private static final List<DishOrderDto> ORDER = List.of(
+            new DishOrderDto(1L, List.of(new DishIngredientDto(1L, 1))),
+            new DishOrderDto(2L, List.of(new DishIngredientDto(1L, 5), new DishIngredientDto(2L, 5), new DishIngredientDto(3L, 1)))
+    );
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DishService dishService;
+
+    private MockMvc mockMvc;
+    private ObjectMapper cborMapper;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        cborMapper = cborHttpMessageConverter.getObjectMapper();
+    }
+
+    // Um pedido enviado e recebido em CBOR deve ter o mesmo resultado do pedido em JSON
+    @Test
+    void assertCborOrderRoundTripEqualsJsonOrder() throws Exception {
+        var json = mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonMapper.writeValueAsBytes(ORDER)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var cbor = mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(ORDER)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var jsonResponse = jsonMapper.readValue(json, OrderResponseDto.class);
+        assertEquals(jsonResponse, cborMapper.readValue(cbor, OrderResponseDto.class));
+        assertTrue(cbor.length < json.length);
+    }
+
+    // Sem preferencia explicita pelo CBOR, o JSON continua sendo o formato padrao
+    @Test
+    void assertJsonRemainsDefaultFormat() throws Exception {
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.ALL)
+                        .content(jsonMapper.writeValueAsBytes(ORDER)))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/dishes").header(HttpHeaders.ACCEPT, "application/json, application/cbor"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    // As leituras do catalogo em CBOR devem ter o mesmo conteudo das leituras em JSON, com um ETag proprio
+    @ParameterizedTest
+    @ValueSource(strings = {"/ingredients", "/ingredients/1", "/dishes", "/dishes/1", "/offers", "/offers/1"})
+    void assertCborCatalogResponseEqualsJsonResponse(String path) throws Exception {
+        var json = mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        var cbor = mockMvc.perform(get(path).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse();
+
+        assertEquals(jsonMapper.readTree(json.getContentAsByteArray()), cborMapper.readTree(cbor.getContentAsByteArray()));
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Compara o tamanho e o custo de codificação e decodificação de JSON e CBOR para um pedido e para a listagem de
+     * lanches. Não roda por padrão; execute com {@code mvn test -Dtest=WireFormatTests -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkWireFormats() throws Exception {
+        var orderResponse = orderService.getOrderResponse(ORDER);
+        var dishes = dishService.findAllDishes().stream().map(DishDto::new).toList();
+
+        System.out.printf("%-10s %-6s %10s %14s %14s%n", "payload", "format", "bytes", "encode ns/op", "decode ns/op");
+        benchmark("order", orderResponse, new TypeReference<OrderResponseDto>() {});
+        benchmark("dishes", dishes, new TypeReference<List<DishDto>>() {});
+    }
+
+    private <T> void benchmark(String payload, T value, TypeReference<T> type) throws Exception {
+        for (var format : List.of("json", "cbor")) {
+            var mapper = format.equals("json") ? jsonMapper : cborMapper;
+            var bytes = mapper.writeValueAsBytes(value);
+
+            var iterations = 200_000;
+            // Aquecimento do JIT antes das medicoes
+            for (int i = 0; i < iterations; i++)
+                mapper.readValue(mapper.writeValueAsBytes(value), type);
+
+            var start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                mapper.writeValueAsBytes(value);
+            var encode = (System.nanoTime() - start) / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                mapper.readValue(bytes, type);
+            var decode = (System.nanoTime() - start) / iterations;
+
+            System.out.printf("%-10s %-6s %10d %14d %14d%n", payload, format, bytes.length, encode, decode);
+        }
+    }
+}
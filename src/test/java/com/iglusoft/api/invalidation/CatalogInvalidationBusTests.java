@@ -0,0 +1,133 @@
+package com.iglusoft.api.invalidation;
+
+import com.iglusoft.api.IgluSoftTestApplication;
+import com.iglusoft.api.database.repositories.CatalogChangeRepository;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.services.CatalogNameIndexService;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import com.iglusoft.api.services.IngredientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+// Duas instancias da aplicacao no mesmo banco de dados, cada uma com as suas caches em memoria
+public class CatalogInvalidationBusTests {
+    private static final long TIMEOUT_MILLIS = 5_000L;
+
+    // Uma alteracao feita em uma instancia deve chegar a outra pelo historico de alteracoes do banco de dados
+    @Test
+    void assertDatabaseBusPropagatesChanges() throws InterruptedException {
+        assertChangesPropagate("invalidationdatabasetest", "--iglusoft.invalidation.bus=database", "--iglusoft.invalidation.poll-millis=100");
+    }
+
+    // Uma alteracao feita em uma instancia deve chegar a outra pelo canal em memoria
+    @Test
+    void assertMemoryBusPropagatesChanges() throws InterruptedException {
+        assertChangesPropagate("invalidationmemorytest", "--iglusoft.invalidation.bus=memory", "--iglusoft.invalidation.channel=invalidationmemorytest");
+    }
+
+    // Uma alteracao com sequencia menor que fica visivel depois de uma maior, por um commit mais lento, nao deve ser perdida
+    @Test
+    void assertDatabaseBusDeliversChangesCommittedOutOfOrder() {
+        var node = start("invalidationgaptest", "gap-node", true, "--iglusoft.invalidation.bus=memory");
+        try {
+            var repository = node.getBean(CatalogChangeRepository.class);
+            var jdbcTemplate = node.getBean(JdbcTemplate.class);
+            var received = new ArrayList<Long>();
+            // O historico nao pode estar vazio, senao a primeira alteracao parece uma poda do historico
+            var last = repository.findLastSequenceInAllTenants() + 1;
+            insertChange(jdbcTemplate, last, 0L);
+            try (var bus = new DatabaseCatalogInvalidationBus(repository, "gap-node", 3_600_000L, 60_000L)) {
+                bus.subscribe(invalidation -> received.add(invalidation.entityId()));
+
+                insertChange(jdbcTemplate, last + 2, 2L);
+                bus.poll();
+                insertChange(jdbcTemplate, last + 1, 1L);
+                bus.poll();
+                bus.poll();
+
+                assertEquals(List.of(2L, 1L), received);
+            }
+        } finally {
+            node.close();
+        }
+    }
+
+    private static void insertChange(JdbcTemplate jdbcTemplate, long id, long entityId) {
+        jdbcTemplate.update(
+                "INSERT INTO CATALOG_CHANGE(id, tenant_id, entity_type, entity_id, change_type, changed_at, origin_node) VALUES (?, 'default', 'INGREDIENT', ?, 'UPDATED', CURRENT_TIMESTAMP, 'other-node')",
+                id, entityId);
+    }
+
+    private static void assertChangesPropagate(String database, String... busArgs) throws InterruptedException {
+        var nodeA = start(database, "node-a", true, busArgs);
+        try {
+            var nodeB = start(database, "node-b", false, busArgs);
+            try {
+                var snapshotB = nodeB.getBean(CatalogSnapshotService.class);
+                var nameIndexB = nodeB.getBean(CatalogNameIndexService.class);
+                snapshotB.getSnapshot();
+                assertFalse(nameIndexB.isNameTaken(CatalogEntityType.INGREDIENT, "Invalidation Ingredient", null));
+
+                var created = nodeA.getBean(IngredientService.class)
+                        .saveIngredient(new NewEditIngredientDto(null, "Invalidation Ingredient", 10L));
+
+                assertTrue(await(() -> nameIndexB.isNameTaken(CatalogEntityType.INGREDIENT, "Invalidation Ingredient", null)));
+                assertTrue(await(() -> snapshotB.getSnapshot().containsIngredient(created.getId())));
+
+                nodeA.getBean(IngredientService.class).deleteIngredient(created.getId());
+
+                assertTrue(await(() -> !nameIndexB.isNameTaken(CatalogEntityType.INGREDIENT, "Invalidation Ingredient", null)));
+                assertTrue(await(() -> !snapshotB.getSnapshot().containsIngredient(created.getId())));
+            } finally {
+                nodeB.close();
+            }
+        } finally {
+            nodeA.close();
+        }
+    }
+
+    /**
+     * Inicia uma instancia da aplicacao. Somente a primeira cria as tabelas e carrega os dados de teste; a segunda
+     * usa o mesmo banco de dados como ele esta.
+     */
+    private static ConfigurableApplicationContext start(String database, String nodeId, boolean initializeDatabase, String... busArgs) {
+        var args = new ArrayList<>(List.of(
+                "--spring.config.location=classpath:test.properties",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jmx.enabled=false",
+                "--iglusoft.warm-up.enabled=false",
+                "--iglusoft.invalidation.node-id=" + nodeId));
+        if (!initializeDatabase) {
+            args.add("--spring.jpa.hibernate.ddl-auto=none");
+            args.add("--spring.sql.init.mode=never");
+        }
+        args.addAll(List.of(busArgs));
+
+        return new SpringApplicationBuilder(IgluSoftTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean())
+                return true;
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
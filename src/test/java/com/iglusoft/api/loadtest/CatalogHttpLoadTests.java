@@ -0,0 +1,203 @@
+package com.iglusoft.api.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.dtos.NewEditDishDto;
+import com.iglusoft.api.dtos.NewEditDishIngredientQuantity;
+import com.iglusoft.api.dtos.NewEditOffer;
+import com.iglusoft.api.dtos.NewEditOfferIngredientMinQuantityDto;
+import com.iglusoft.api.enums.DiscountType;
+import com.iglusoft.api.services.CatalogSnapshotFile;
+import com.iglusoft.api.services.CatalogSnapshotFileService;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import com.iglusoft.api.synthetic.SyntheticCatalogGenerator;
+import com.iglusoft.api.synthetic.SyntheticOrderWorkload;
+import com.iglusoft.api.synthetic.ZipfianSampler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Teste de carga da API HTTP sobre um catálogo sintético grande.
+ *
+ * <p>
+ * Fica fora do {@code ./mvnw test} e é executado com {@code ./mvnw test -Pload-test}. A carga e os SLOs são
+ * configurados por propriedades do sistema, por exemplo
+ * {@code ./mvnw test -Pload-test -Dloadtest.rate=500 -Dloadtest.slo.orders.p99-millis=50}:
+ * </p>
+ * <ul>
+ *     <li>{@code loadtest.seed}, {@code loadtest.ingredients}, {@code loadtest.dishes} e {@code loadtest.offers}:
+ *     o catálogo gerado pelo {@link SyntheticCatalogGenerator}.</li>
+ *     <li>{@code loadtest.rate}, {@code loadtest.warm-up-seconds} e {@code loadtest.duration-seconds}: a taxa de
+ *     chegada, em requisições por segundo, e a duração do aquecimento e da medição.</li>
+ *     <li>{@code loadtest.write-ratio}: a fração das requisições que cria lanches e promoções.</li>
+ *     <li>{@code loadtest.slo.<endpoint>.p99-millis}, {@code loadtest.slo.<endpoint>.p999-millis} e
+ *     {@code loadtest.slo.max-error-ratio}: os limites que fazem o teste falhar.</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:httploadtest;DB_CLOSE_DELAY=-1"
+})
+public class CatalogHttpLoadTests {
+    private static final String ORDERS = "orders";
+    private static final String DISH = "dish";
+    private static final String INGREDIENT = "ingredient";
+    private static final String OFFERS = "offers";
+    private static final String SAVE_DISH = "save-dish";
+    private static final String SAVE_OFFER = "save-offer";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogSnapshotFileService catalogSnapshotFileService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private int writes;
+
+    // A API deve sustentar a carga mista na taxa configurada dentro dos SLOs de cada endpoint
+    @Test
+    void assertMixedWorkloadMeetsLatencySlos() throws InterruptedException {
+        var seed = Long.getLong("loadtest.seed", 42L);
+        var defaults = SyntheticCatalogGenerator.Settings.defaults(seed);
+        var contents = SyntheticCatalogGenerator.generate(new SyntheticCatalogGenerator.Settings(
+                seed,
+                Integer.getInteger("loadtest.ingredients", defaults.ingredients()),
+                Integer.getInteger("loadtest.dishes", defaults.dishes()),
+                Integer.getInteger("loadtest.offers", defaults.offers())));
+        catalogSnapshotFileService.replaceCatalog(contents);
+        catalogSnapshotService.getSnapshot();
+
+        var generator = new FixedRateLoadGenerator(
+                HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build(),
+                doubleProperty("loadtest.rate", 200.0),
+                Duration.ofSeconds(Long.getLong("loadtest.warm-up-seconds", 10L)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30L)),
+                Integer.getInteger("loadtest.max-outstanding", 1024));
+        var reports = generator.run(requests(contents, seed, doubleProperty("loadtest.write-ratio", 0.002)));
+
+        var violations = new ArrayList<String>();
+        System.out.printf("%n%-12s %9s %7s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (var report : reports.values()) {
+            System.out.printf(Locale.ROOT, "%-12s %9d %7d %10.1f %10.2f %10.2f %10.2f%n", report.endpoint(), report.requests(),
+                    report.errors(), report.throughput(), report.p50() / 1000.0, report.p99() / 1000.0, report.p999() / 1000.0);
+
+            checkSlo(violations, report, "p99", report.p99(), defaultSlo(report.endpoint(), false));
+            checkSlo(violations, report, "p999", report.p999(), defaultSlo(report.endpoint(), true));
+            var maxErrorRatio = doubleProperty("loadtest.slo.max-error-ratio", 0.001);
+            if (report.errorRatio() > maxErrorRatio)
+                violations.add(String.format(Locale.ROOT, "%s error ratio %.4f > %.4f", report.endpoint(), report.errorRatio(), maxErrorRatio));
+        }
+
+        assertTrue(violations.isEmpty(), "SLOs breached: " + violations);
+    }
+
+    /**
+     * Monta a carga mista: cotações de pedidos, leituras do catálogo e, ocasionalmente, criação de lanches e
+     * promoções. Todos os sorteios usam a mesma semente, então a sequência de requisições é sempre a mesma.
+     */
+    private Supplier<FixedRateLoadGenerator.Request> requests(CatalogSnapshotFile.Contents contents, long seed, double writeRatio) {
+        var random = new SplittableRandom(seed);
+        var orders = new SyntheticOrderWorkload(contents, seed);
+        var ingredientPopularity = new ZipfianSampler(contents.ingredients().size(), 1.0);
+        var dishPopularity = new ZipfianSampler(contents.dishes().size(), 1.0);
+
+        return () -> {
+            var roll = random.nextDouble();
+            if (roll < writeRatio / 2)
+                return post(SAVE_DISH, "/dishes", newDish(contents, ingredientPopularity, random));
+            if (roll < writeRatio)
+                return post(SAVE_OFFER, "/offers", newOffer(contents, ingredientPopularity, random));
+            if (roll < 0.70)
+                return post(ORDERS, "/orders", orders.nextOrder());
+            if (roll < 0.85)
+                return get(DISH, "/dishes/" + contents.dishes().get(dishPopularity.next(random)).id());
+            if (roll < 0.95)
+                return get(INGREDIENT, "/ingredients/" + contents.ingredients().get(ingredientPopularity.next(random)).id());
+            return get(OFFERS, "/offers");
+        };
+    }
+
+    private NewEditDishDto newDish(CatalogSnapshotFile.Contents contents, ZipfianSampler ingredientPopularity, SplittableRandom random) {
+        var ingredientIds = new LinkedHashSet<Long>();
+        while (ingredientIds.size() < Math.min(3, contents.ingredients().size()))
+            ingredientIds.add(contents.ingredients().get(ingredientPopularity.next(random)).id());
+        return new NewEditDishDto(null, "Load Dish " + (++writes),
+                ingredientIds.stream().map(id -> new NewEditDishIngredientQuantity(1, id)).toList());
+    }
+
+    private NewEditOffer newOffer(CatalogSnapshotFile.Contents contents, ZipfianSampler ingredientPopularity, SplittableRandom random) {
+        var required = new NewEditOfferIngredientMinQuantityDto();
+        required.setIngredientId(contents.ingredients().get(ingredientPopularity.next(random)).id());
+        required.setMinQuantity(3);
+        required.setPaidQuantity(2);
+        return new NewEditOffer(null, "Load Offer " + (++writes), List.of(required), List.of(),
+                DiscountType.INGREDIENT_QUANTITY_DISCOUNT, null);
+    }
+
+    private FixedRateLoadGenerator.Request get(String endpoint, String path) {
+        return new FixedRateLoadGenerator.Request(endpoint, HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    private FixedRateLoadGenerator.Request post(String endpoint, String path, Object body) {
+        try {
+            return new FixedRateLoadGenerator.Request(endpoint, HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void checkSlo(List<String> violations, FixedRateLoadGenerator.EndpointReport report, String percentile, long actualMicros, long defaultMillis) {
+        var limitMillis = Long.getLong("loadtest.slo." + report.endpoint() + "." + percentile + "-millis", defaultMillis);
+        if (actualMicros > limitMillis * 1000)
+            violations.add(String.format(Locale.ROOT, "%s %s %.2f ms > %d ms", report.endpoint(), percentile, actualMicros / 1000.0, limitMillis));
+    }
+
+    /**
+     * Os SLOs padrão: leituras e cotações devem responder rápido; escritas podem esperar pelo commit e pela
+     * invalidação das caches.
+     */
+    private static long defaultSlo(String endpoint, boolean p999) {
+        return switch (endpoint) {
+            case ORDERS -> p999 ? 250L : 100L;
+            case SAVE_DISH, SAVE_OFFER -> p999 ? 5000L : 2000L;
+            default -> p999 ? 200L : 50L;
+        };
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        var value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,142 @@
+package com.iglusoft.api.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Dispara requisições HTTP numa taxa de chegada fixa e mede a latência de cada endpoint.
+ *
+ * <p>
+ * A latência é medida a partir do instante em que a requisição deveria ter sido enviada, e não de quando ela foi
+ * enviada de fato. Se o servidor ficar lento e o disparo atrasar, o atraso entra na latência das requisições
+ * seguintes, evitando a omissão coordenada de um gerador que espera cada resposta antes de enviar a próxima.
+ * </p>
+ *
+ * <p>
+ * O número de requisições em andamento é limitado; uma requisição que não pode ser enviada por causa do limite é
+ * contada como erro, em vez de atrasar o disparo das próximas.
+ * </p>
+ */
+final class FixedRateLoadGenerator {
+
+    /**
+     * Uma requisição a ser enviada, com o nome do endpoint em que a latência será agrupada.
+     */
+    record Request(String endpoint, HttpRequest httpRequest) {
+    }
+
+    /**
+     * O resultado de um endpoint. As latências estão em microssegundos.
+     */
+    record EndpointReport(String endpoint, int requests, int errors, double throughput, long p50, long p99, long p999) {
+
+        double errorRatio() {
+            return requests == 0 ? 0.0 : (double) errors / requests;
+        }
+    }
+
+    private final HttpClient client;
+    private final double ratePerSecond;
+    private final Duration warmUp;
+    private final Duration duration;
+    private final int maxOutstanding;
+
+    FixedRateLoadGenerator(HttpClient client, double ratePerSecond, Duration warmUp, Duration duration, int maxOutstanding) {
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+        this.warmUp = warmUp;
+        this.duration = duration;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * Executa a carga e retorna o resultado de cada endpoint, ordenado pelo nome.
+     *
+     * @param requests Fornece a próxima requisição. É chamado sempre pela mesma thread.
+     */
+    Map<String, EndpointReport> run(Supplier<Request> requests) throws InterruptedException {
+        var recorders = new ConcurrentHashMap<String, Recorder>();
+        var outstanding = new Semaphore(maxOutstanding);
+        var intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+
+        var start = System.nanoTime();
+        var measureFrom = start + warmUp.toNanos();
+        var end = measureFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            var intended = start + i * intervalNanos;
+            if (intended >= end)
+                break;
+
+            var wait = intended - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+
+            var request = requests.get();
+            var recorder = intended >= measureFrom ? recorders.computeIfAbsent(request.endpoint(), it -> new Recorder()) : null;
+            if (!outstanding.tryAcquire()) {
+                if (recorder != null)
+                    recorder.error();
+                continue;
+            }
+
+            client.sendAsync(request.httpRequest(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                outstanding.release();
+                if (recorder == null)
+                    return;
+                if (error != null || response.statusCode() >= 400)
+                    recorder.error();
+                else
+                    recorder.record(System.nanoTime() - intended);
+            });
+        }
+
+        // Espera as requisições em andamento terminarem antes de calcular o resultado
+        outstanding.tryAcquire(maxOutstanding, 30, TimeUnit.SECONDS);
+
+        var seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        var reports = new TreeMap<String, EndpointReport>();
+        recorders.forEach((endpoint, recorder) -> reports.put(endpoint, recorder.report(endpoint, seconds)));
+        return reports;
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long latencyNanos) {
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latencyNanos;
+        }
+
+        synchronized void error() {
+            errors++;
+        }
+
+        synchronized EndpointReport report(String endpoint, double seconds) {
+            var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new EndpointReport(endpoint, count + errors, errors, count / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0)
+                return 0L;
+            var index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+        }
+    }
+}
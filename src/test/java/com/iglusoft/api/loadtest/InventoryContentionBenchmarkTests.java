@@ -0,0 +1,176 @@
+package com.iglusoft.api.loadtest;
+
+import com.iglusoft.api.commons.StripedStockCounter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Benchmark de disputa do estoque de um único ingrediente, comparando o {@link StripedStockCounter} com um contador
+ * com lock e com um único {@link AtomicLong}.
+ *
+ * <p>
+ * Fica fora do {@code ./mvnw test} e é executado com {@code ./mvnw test -Pload-test}. Cada thread reserva e devolve
+ * unidades do mesmo ingrediente, como pedidos simultâneos de lanches com queijo, durante o tempo configurado:
+ * </p>
+ * <ul>
+ *     <li>{@code loadtest.inventory.threads}: a quantidade de threads, por padrão 32.</li>
+ *     <li>{@code loadtest.inventory.warm-up-seconds} e {@code loadtest.inventory.duration-seconds}: a duração do
+ *     aquecimento e da medição de cada contador.</li>
+ * </ul>
+ */
+@Tag("load")
+public class InventoryContentionBenchmarkTests {
+    private static final long INITIAL_STOCK = 1_000_000L;
+
+    /**
+     * As operações comparadas: retirar uma unidade, se houver saldo, e devolver unidades.
+     */
+    private interface StockCounter {
+        boolean tryTake(long amount);
+
+        void add(long amount);
+
+        long sum();
+    }
+
+    // Sob disputa de 32 ou mais threads, nenhum contador pode vender alem do saldo, e o resultado de cada um e exibido
+    @Test
+    void assertStripedCounterUnderContention() throws InterruptedException {
+        var threads = Integer.getInteger("loadtest.inventory.threads", 32);
+        var warmUp = Duration.ofSeconds(Long.getLong("loadtest.inventory.warm-up-seconds", 2L));
+        var duration = Duration.ofSeconds(Long.getLong("loadtest.inventory.duration-seconds", 5L));
+        assertTrue(threads >= 32, "The contention benchmark needs at least 32 threads");
+
+        var counters = List.of(
+                new Candidate("striped", stripedCounter()),
+                new Candidate("atomic", atomicCounter()),
+                new Candidate("locked", lockedCounter()));
+
+        System.out.printf("%n%-10s %8s %16s%n", "counter", "threads", "ops/s");
+        for (var candidate : counters) {
+            candidate.counter().add(INITIAL_STOCK);
+            run(candidate.counter(), threads, warmUp);
+            var operations = run(candidate.counter(), threads, duration);
+            System.out.printf(Locale.ROOT, "%-10s %8d %16.0f%n", candidate.name(), threads,
+                    operations / (duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1)));
+
+            assertEquals(INITIAL_STOCK, candidate.counter().sum(), candidate.name() + " lost or created stock");
+        }
+    }
+
+    /**
+     * Executa as threads durante {@code duration}. Cada thread retira de 1 a 3 unidades e as devolve logo em
+     * seguida, então o saldo no final deve ser o saldo inicial.
+     *
+     * @return A quantidade de retiradas feitas.
+     */
+    private static long run(StockCounter counter, int threads, Duration duration) throws InterruptedException {
+        var operations = new LongAdder();
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        var deadline = new AtomicLong();
+
+        for (var i = 0; i < threads; i++) {
+            var amount = 1 + i % 3;
+            var worker = new Thread(() -> {
+                try {
+                    start.await();
+                    var count = 0L;
+                    while (System.nanoTime() < deadline.get()) {
+                        if (counter.tryTake(amount)) {
+                            counter.add(amount);
+                            count++;
+                        }
+                    }
+                    operations.add(count);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "inventory-benchmark-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        deadline.set(System.nanoTime() + duration.toNanos());
+        start.countDown();
+        assertTrue(done.await(duration.toSeconds() + 30, TimeUnit.SECONDS), "The benchmark threads did not finish");
+        return operations.sum();
+    }
+
+    private static StockCounter stripedCounter() {
+        var counter = new StripedStockCounter(Runtime.getRuntime().availableProcessors() * 2);
+        return new StockCounter() {
+            public boolean tryTake(long amount) {
+                return counter.tryTake(amount);
+            }
+
+            public void add(long amount) {
+                counter.add(amount);
+            }
+
+            public long sum() {
+                return counter.sum();
+            }
+        };
+    }
+
+    private static StockCounter atomicCounter() {
+        var counter = new AtomicLong();
+        return new StockCounter() {
+            public boolean tryTake(long amount) {
+                long current;
+                while ((current = counter.get()) >= amount) {
+                    if (counter.compareAndSet(current, current - amount))
+                        return true;
+                }
+                return false;
+            }
+
+            public void add(long amount) {
+                counter.addAndGet(amount);
+            }
+
+            public long sum() {
+                return counter.get();
+            }
+        };
+    }
+
+    private static StockCounter lockedCounter() {
+        return new StockCounter() {
+            private long balance;
+
+            public synchronized boolean tryTake(long amount) {
+                if (balance < amount)
+                    return false;
+                balance -= amount;
+                return true;
+            }
+
+            public synchronized void add(long amount) {
+                balance += amount;
+            }
+
+            public synchronized long sum() {
+                return balance;
+            }
+        };
+    }
+
+    private record Candidate(String name, StockCounter counter) {
+    }
+}
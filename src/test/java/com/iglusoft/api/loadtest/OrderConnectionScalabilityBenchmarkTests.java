@@ -0,0 +1,247 @@
+package com.iglusoft.api.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.services.CatalogSnapshotFileService;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import com.iglusoft.api.synthetic.SyntheticCatalogGenerator;
+import com.iglusoft.api.synthetic.SyntheticOrderWorkload;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Benchmark de escalabilidade de conexões de {@code POST /orders}, com cada vez mais conexões simultâneas.
+ *
+ * <p>
+ * Fica fora do {@code ./mvnw test} e é executado com {@code ./mvnw test -Pload-test}. Cada conexão envia um pedido,
+ * espera a resposta e envia o próximo, então o número de conexões é o número de pedidos em andamento. Cada quantidade
+ * de conexões é medida com a fotografia do catálogo em memória e com a fotografia descartada periodicamente, para que
+ * parte dos pedidos precise carregá-la do banco de dados:
+ * </p>
+ * <ul>
+ *     <li>{@code loadtest.orders.connections}: as quantidades de conexões, separadas por vírgula, por padrão
+ *     {@code 16,64,256,1024}.</li>
+ *     <li>{@code loadtest.orders.warm-up-seconds} e {@code loadtest.orders.duration-seconds}: a duração do
+ *     aquecimento e da medição de cada execução.</li>
+ *     <li>{@code loadtest.orders.invalidate-millis}: o intervalo entre os descartes da fotografia nas execuções sem
+ *     a fotografia em memória.</li>
+ *     <li>{@code loadtest.seed}, {@code loadtest.ingredients}, {@code loadtest.dishes} e {@code loadtest.offers}:
+ *     o catálogo gerado pelo {@link SyntheticCatalogGenerator}, menor que o do teste de carga para que a fotografia
+ *     seja recarregada várias vezes durante a medição.</li>
+ *     <li>{@code loadtest.orders.max-error-ratio}: a fração de erros que faz o teste falhar.</li>
+ * </ul>
+ *
+ * <p>
+ * Além da vazão e da latência, é exibido o maior número de threads vivas na JVM durante a medição, que mostra
+ * quantas threads o servidor precisou para manter as conexões abertas. O cliente HTTP roda na mesma JVM com o mesmo
+ * número de threads em todas as execuções, então a diferença entre elas vem do servidor.
+ * </p>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderconnectionbenchmark;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        // O controle de admissão recusaria o excesso de conexões antes de chegar ao endpoint medido
+        "iglusoft.admission.enabled=false",
+        "server.tomcat.max-connections=8192",
+        "server.tomcat.accept-count=1024"
+})
+public class OrderConnectionScalabilityBenchmarkTests {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogSnapshotFileService catalogSnapshotFileService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * O resultado de uma execução. As latências estão em microssegundos.
+     */
+    private record RunReport(int requests, int errors, double throughput, long p50, long p99, int peakThreads) {
+
+        double errorRatio() {
+            return requests == 0 ? 0.0 : (double) errors / requests;
+        }
+    }
+
+    // O endpoint deve atender todas as quantidades de conexoes, e o resultado de cada uma e exibido
+    @Test
+    void assertOrdersScaleWithConnections() throws Exception {
+        var seed = Long.getLong("loadtest.seed", 42L);
+        var contents = SyntheticCatalogGenerator.generate(new SyntheticCatalogGenerator.Settings(
+                seed,
+                Integer.getInteger("loadtest.ingredients", 1_000),
+                Integer.getInteger("loadtest.dishes", 5_000),
+                Integer.getInteger("loadtest.offers", 200)));
+        catalogSnapshotFileService.replaceCatalog(contents);
+
+        var connectionCounts = Arrays.stream(System.getProperty("loadtest.orders.connections", "16,64,256,1024").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        var warmUp = Duration.ofSeconds(Long.getLong("loadtest.orders.warm-up-seconds", 2L));
+        var duration = Duration.ofSeconds(Long.getLong("loadtest.orders.duration-seconds", 5L));
+        var invalidateMillis = Long.getLong("loadtest.orders.invalidate-millis", 500L);
+        var maxErrorRatio = Double.parseDouble(System.getProperty("loadtest.orders.max-error-ratio", "0.001"));
+
+        var workload = new SyntheticOrderWorkload(contents, seed);
+        var bodies = new ArrayList<byte[]>();
+        for (var i = 0; i < 10_000; i++)
+            bodies.add(body(workload.nextOrder()));
+
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        var violations = new ArrayList<String>();
+        System.out.printf("%n%-8s %11s %9s %7s %10s %10s %10s %8s%n",
+                "catalog", "connections", "requests", "errors", "req/s", "p50 ms", "p99 ms", "threads");
+        for (var connections : connectionCounts) {
+            for (var cold : new boolean[]{false, true}) {
+                catalogSnapshotService.getSnapshot();
+                var invalidator = cold ? startInvalidator(invalidateMillis) : null;
+                try {
+                    run(client, bodies, connections, warmUp);
+                    var report = run(client, bodies, connections, duration);
+                    System.out.printf(Locale.ROOT, "%-8s %11d %9d %7d %10.1f %10.2f %10.2f %8d%n",
+                            cold ? "cold" : "warm", connections, report.requests(), report.errors(),
+                            report.throughput(), report.p50() / 1000.0, report.p99() / 1000.0, report.peakThreads());
+                    if (report.errorRatio() > maxErrorRatio)
+                        violations.add(String.format(Locale.ROOT, "%d connections (%s) error ratio %.4f > %.4f",
+                                connections, cold ? "cold" : "warm", report.errorRatio(), maxErrorRatio));
+                } finally {
+                    if (invalidator != null)
+                        invalidator.interrupt();
+                }
+            }
+        }
+
+        assertTrue(violations.isEmpty(), "Error ratio exceeded: " + violations);
+    }
+
+    /**
+     * Mantém {@code connections} pedidos em andamento durante {@code duration}: cada resposta dispara o envio do
+     * próximo pedido pela mesma conexão lógica, sem ocupar uma thread do cliente enquanto espera.
+     */
+    private RunReport run(HttpClient client, List<byte[]> bodies, int connections, Duration duration) throws InterruptedException {
+        var threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        var latencies = new long[connections][];
+        var counts = new int[connections];
+        var errors = new AtomicInteger();
+        var next = new AtomicLong();
+        var done = new CountDownLatch(connections);
+        var deadline = System.nanoTime() + duration.toNanos();
+
+        for (var i = 0; i < connections; i++) {
+            latencies[i] = new long[1024];
+            send(client, bodies, next, deadline, i, latencies, counts, errors, done);
+        }
+
+        assertTrue(done.await(duration.toSeconds() + 60, TimeUnit.SECONDS), "The benchmark connections did not finish");
+        var peakThreads = threads.getPeakThreadCount();
+
+        var total = Arrays.stream(counts).sum();
+        var sorted = new long[total];
+        var offset = 0;
+        for (var i = 0; i < connections; i++) {
+            System.arraycopy(latencies[i], 0, sorted, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(sorted);
+        var seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        return new RunReport(total + errors.get(), errors.get(), total / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), peakThreads);
+    }
+
+    /**
+     * Envia um pedido da conexão {@code connection} e, ao receber a resposta, registra a latência e envia o próximo,
+     * até o fim da medição. Uma conexão só tem um pedido em andamento, então as suas latências não precisam de lock.
+     */
+    private void send(HttpClient client, List<byte[]> bodies, AtomicLong next, long deadline, int connection,
+                      long[][] latencies, int[] counts, AtomicInteger errors, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+
+        var body = bodies.get((int) (next.getAndIncrement() % bodies.size()));
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        var start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null || response.statusCode() >= 400) {
+                errors.incrementAndGet();
+            } else {
+                if (counts[connection] == latencies[connection].length)
+                    latencies[connection] = Arrays.copyOf(latencies[connection], counts[connection] * 2);
+                latencies[connection][counts[connection]++] = System.nanoTime() - start;
+            }
+            send(client, bodies, next, deadline, connection, latencies, counts, errors, done);
+        });
+    }
+
+    /**
+     * Descarta a fotografia do catálogo a cada {@code intervalMillis} até ser interrompida, para que os pedidos
+     * seguintes precisem carregá-la do banco de dados.
+     */
+    private Thread startInvalidator(long intervalMillis) {
+        var invalidator = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(intervalMillis);
+                    catalogSnapshotService.invalidateAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "order-benchmark-invalidator");
+        invalidator.setDaemon(true);
+        invalidator.start();
+        return invalidator;
+    }
+
+    private byte[] body(Object order) {
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0L;
+        var index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,39 @@
+package com.iglusoft.api.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class JdbcStatementMetricsFilterTests {
+
+    // As requisicoes da mesma rota devem ser registradas no mesmo medidor, e rotas diferentes em medidores proprios
+    @Test
+    void assertRequestsOfTheSameRouteShareOneSummary() throws ServletException, IOException {
+        var registry = new SimpleMeterRegistry();
+        var filter = new JdbcStatementMetricsFilter(registry);
+
+        filter.doFilter(request("GET", "/dishes/{id}"), new MockHttpServletResponse(), new MockFilterChain());
+        var summary = registry.get("http.server.requests.jdbc.statements").tag("method", "GET").tag("uri", "/dishes/{id}").summary();
+        filter.doFilter(request("GET", "/dishes/{id}"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(request("POST", "/dishes"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(summary, registry.get("http.server.requests.jdbc.statements").tag("method", "GET").tag("uri", "/dishes/{id}").summary());
+        assertEquals(2, summary.count());
+        assertEquals(2, registry.find("http.server.requests.jdbc.statements").summaries().size());
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        var request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,53 @@
+package com.iglusoft.api.metrics;
+
+import com.iglusoft.api.database.entities.Offer;
+import com.iglusoft.api.enums.CatalogChangeType;
+import com.iglusoft.api.enums.CatalogEntityType;
+import com.iglusoft.api.events.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PricingMetricsTests {
+
+    // Depois do limite de promocoes, as novas devem ser somadas em offer=other, sem criar novos medidores
+    @Test
+    void assertOfferCountersAreBounded() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = new PricingMetrics(registry, 2);
+
+        for (var id = 1L; id <= 5; id++)
+            metrics.offerEvaluated(offer(id));
+        metrics.offerEvaluated(offer(1L));
+
+        assertEquals(2, registry.get("order.pricing.offers").tag("offer", "1").tag("outcome", "evaluated").counter().count());
+        assertEquals(3, registry.get("order.pricing.offers").tag("offer", "other").tag("outcome", "evaluated").counter().count());
+        assertNull(registry.find("order.pricing.offers").tag("offer", "3").counter());
+        assertEquals(9, registry.find("order.pricing.offers").counters().size());
+    }
+
+    // Os contadores de uma promocao removida devem sair do registro e liberar a vaga para outra promocao
+    @Test
+    void assertDeletedOfferCountersAreRemoved() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = new PricingMetrics(registry, 1);
+        metrics.offerEvaluated(offer(1L));
+
+        metrics.onCatalogChanged(new CatalogChangedEvent(CatalogEntityType.OFFER, 1L, CatalogChangeType.UPDATED));
+        assertEquals(1, registry.get("order.pricing.offers").tag("offer", "1").tag("outcome", "evaluated").counter().count());
+
+        metrics.onCatalogChanged(new CatalogChangedEvent(CatalogEntityType.OFFER, 1L, CatalogChangeType.DELETED));
+        assertNull(registry.find("order.pricing.offers").tag("offer", "1").counter());
+
+        metrics.offerMatched(offer(2L));
+        assertEquals(1, registry.get("order.pricing.offers").tag("offer", "2").tag("outcome", "matched").counter().count());
+    }
+
+    private static Offer offer(Long id) {
+        var offer = new Offer();
+        offer.setId(id);
+        return offer;
+    }
+}
@@ -0,0 +1,80 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.dtos.CatalogTombstoneDto;
+import com.iglusoft.api.dtos.IngredientDto;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.enums.CatalogEntityType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties")
+public class CatalogChangeLogServiceTests {
+
+    @Autowired
+    private CatalogChangeLogService catalogChangeLogService;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    // Sem uma sequencia conhecida, o cliente deve receber o catalogo inteiro
+    @Test
+    void assertMissingSequenceReturnsFullSnapshot() {
+        var changes = catalogChangeLogService.getChangesSince(null);
+
+        assertTrue(changes.fullSnapshot());
+        assertFalse(changes.ingredients().isEmpty());
+        assertFalse(changes.dishes().isEmpty());
+        assertFalse(changes.offers().isEmpty());
+    }
+
+    // Varias alteracoes da mesma entidade devem ser compactadas no seu estado mais recente
+    @Test
+    void assertChangesAreCompactedToLatestState() {
+        var since = catalogChangeLogService.getChangesSince(null).sequence();
+
+        var updated = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Changelog Ingredient", 10L));
+        ingredientService.saveIngredient(new NewEditIngredientDto(updated.getId(), "Changelog Ingredient Updated", 20L));
+        var deleted = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Changelog Ingredient Deleted", 10L));
+        ingredientService.deleteIngredient(deleted.getId());
+
+        var changes = catalogChangeLogService.getChangesSince(since);
+
+        assertFalse(changes.fullSnapshot());
+        assertEquals(since + 4, changes.sequence());
+        assertEquals(List.of("Changelog Ingredient Updated"), changes.ingredients().stream().map(IngredientDto::getName).toList());
+        assertEquals(List.of(new CatalogTombstoneDto(CatalogEntityType.INGREDIENT, deleted.getId())), changes.deleted());
+        assertTrue(changes.dishes().isEmpty());
+
+        // Sem novas alteracoes, a resposta deve ser vazia e manter a sequencia
+        var noChanges = catalogChangeLogService.getChangesSince(changes.sequence());
+        assertEquals(changes.sequence(), noChanges.sequence());
+        assertTrue(noChanges.ingredients().isEmpty());
+    }
+
+    // Uma sequencia anterior ao historico mantido deve receber o catalogo inteiro
+    @Test
+    void assertSequenceOlderThanRetentionReturnsFullSnapshot() {
+        var since = catalogChangeLogService.getChangesSince(null).sequence();
+
+        ingredientService.saveIngredient(new NewEditIngredientDto(null, "Pruned Ingredient A", 10L));
+        ingredientService.saveIngredient(new NewEditIngredientDto(null, "Pruned Ingredient B", 10L));
+        catalogChangeLogService.prune(1);
+
+        var changes = catalogChangeLogService.getChangesSince(since);
+        assertTrue(changes.fullSnapshot());
+        assertEquals(since + 2, changes.sequence());
+
+        // A ultima alteracao mantida ainda pode ser usada como ponto de partida
+        assertFalse(catalogChangeLogService.getChangesSince(since + 1).fullSnapshot());
+    }
+}
@@ -0,0 +1,106 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.repositories.OutboxEventRepository;
+import com.iglusoft.api.dtos.DishIngredientDto;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.exceptions.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+// A importacao substitui o catalogo inteiro, entao estes testes usam um banco de dados proprio
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogsnapshottest;DB_CLOSE_DELAY=-1",
+        "iglusoft.catalog-snapshot.path=target/catalog-snapshot-test.snapshot",
+        "iglusoft.outbox.poll-millis=3600000"
+})
+public class CatalogSnapshotFileServiceTests {
+
+    @Autowired
+    private CatalogSnapshotFileService catalogSnapshotFileService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private CatalogChangeLogService catalogChangeLogService;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    // Importar o arquivo exportado deve restaurar o catalogo exatamente como ele estava na exportacao
+    @Test
+    void assertImportRestoresExportedCatalog() {
+        var order = List.of(new DishOrderDto(1L, List.of(new DishIngredientDto(2L, 3))), new DishOrderDto(2L, List.of()));
+        var expectedPrice = orderService.getOrderResponse(order).totalPrice();
+        var exported = catalogSnapshotFileService.exportSnapshot();
+        var since = catalogChangeLogService.getChangesSince(null).sequence();
+
+        var added = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Snapshot Ingredient", 10L));
+        var head = catalogChangeLogService.getChangesSince(since).sequence();
+        var imported = catalogSnapshotFileService.importSnapshot();
+
+        assertEquals(exported, imported);
+        var snapshot = catalogSnapshotService.getSnapshot();
+        assertEquals(exported.ingredients(), snapshot.ingredients().size());
+        assertEquals(exported.dishes(), snapshot.dishes().size());
+        assertEquals(exported.offers(), snapshot.offers().size());
+        assertFalse(snapshot.containsIngredient(added.getId()));
+        assertEquals(expectedPrice, orderService.getOrderResponse(order).totalPrice());
+
+        // Um cliente sincronizado antes da importacao, mesmo com a ultima alteracao, deve receber o catalogo inteiro
+        assertTrue(catalogChangeLogService.getChangesSince(since).fullSnapshot());
+        assertTrue(catalogChangeLogService.getChangesSince(head).fullSnapshot());
+        assertTrue(catalogChangeLogService.getChangesSince(null).sequence() > head);
+
+        // A importacao deve gerar um unico evento no outbox para os sistemas externos
+        var imports = outboxEventRepository.findAll().stream()
+                .filter(it -> OutboxService.CATALOG_AGGREGATE.equals(it.getAggregateType()))
+                .toList();
+        assertEquals(1, imports.size());
+        assertEquals(OutboxService.CATALOG_IMPORTED, imports.get(0).getEventType());
+
+        // As sequencias de IDs continuam depois dos IDs importados e o nome removido volta a ficar livre
+        var created = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Snapshot Ingredient", 10L));
+        assertTrue(snapshot.ingredients().keySet().stream().allMatch(id -> id < created.getId()));
+        assertTrue(catalogChangeLogService.getChangesSince(since).fullSnapshot());
+    }
+
+    // Um arquivo corrompido deve ser rejeitado sem alterar o catalogo
+    @Test
+    void assertCorruptedSnapshotIsRejected() throws IOException {
+        var exported = catalogSnapshotFileService.exportSnapshot();
+        var path = Path.of(exported.path());
+        var bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(path, bytes);
+
+        var version = catalogSnapshotService.getVersion();
+        var exception = assertThrows(BusinessException.class, catalogSnapshotFileService::importSnapshot);
+
+        assertEquals("The catalog snapshot file is corrupted.", exception.getMessage());
+        assertEquals(version, catalogSnapshotService.getVersion());
+        assertNotEquals(0, catalogSnapshotService.getSnapshot().dishes().size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.iglusoft.api.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties")
+public class CatalogWarmUpServiceTests {
+
+    @Autowired
+    private CatalogWarmUpService catalogWarmUpService;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Depois da inicializacao, o aquecimento deve ter terminado e a aplicacao deve aceitar trafego
+    @Test
+    void assertApplicationIsReadyAfterWarmUp() {
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, applicationAvailability.getReadinessState());
+
+        var duration = meterRegistry.find("catalog.warmup.duration").timeGauge();
+        assertNotNull(duration);
+        assertTrue(duration.value(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    // O aquecimento deve calcular todos os pedidos configurados, sem passar do prazo
+    @Test
+    void assertWarmUpPricesConfiguredIterations() {
+        assertEquals(50, catalogWarmUpService.warmUp(Long.MAX_VALUE));
+        assertEquals(0, catalogWarmUpService.warmUp(System.nanoTime() - 1));
+    }
+
+    // Os pedidos sinteticos do aquecimento nao devem aparecer nas metricas de calculo de pedidos
+    @Test
+    void assertWarmUpDoesNotRecordPricingMetrics() {
+        var orders = meterRegistry.get("order.pricing").timer();
+        var offersEvaluated = offersEvaluated();
+        var pricedOrders = orders.count();
+
+        assertEquals(50, catalogWarmUpService.warmUp(Long.MAX_VALUE));
+        assertEquals(pricedOrders, orders.count());
+        assertEquals(offersEvaluated, offersEvaluated());
+    }
+
+    private double offersEvaluated() {
+        return meterRegistry.find("order.pricing.offers").tag("outcome", "evaluated").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
@@ -1,23 +1,34 @@
 package com.iglusoft.api.services;
 
+import com.iglusoft.api.commons.ConstraintViolations;
+import com.iglusoft.api.commons.ObjectValidationResponse;
+import com.iglusoft.api.database.entities.Dish;
 import com.iglusoft.api.database.entities.DishIngredientQuantity;
 import com.iglusoft.api.database.entities.Ingredient;
 import com.iglusoft.api.database.repositories.IngredientRepository;
 import com.iglusoft.api.dtos.NewEditDishDto;
 import com.iglusoft.api.dtos.NewEditDishIngredientQuantity;
+import com.iglusoft.api.exceptions.BusinessException;
 import com.iglusoft.api.exceptions.NotFoundException;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.Stream;
 
+import static com.iglusoft.api.support.SqlStatementRecorder.assertMaxStatements;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @SpringBootTest
@@ -72,14 +83,91 @@ public class DishServiceTests {
         // Calcula o preço total esperado do prato com base na lista de ingredientes
         var expectedResult = dishService.calculateTotalPrice(ingredientList);
 
-        // Salva o prato com os dados fornecidos em newEditDishDto e obtém o preço total do prato salvo
-        var actualResult = dishService.saveDish(newEditDishDto).getTotalPrice();
+        // Salva o prato com os dados fornecidos em newEditDishDto e obtém o preço total do prato salvo.
+        // Os ingredientes são buscados em uma única consulta, então o número de comandos só cresce com os inserts:
+        // a consulta dos ingredientes, o insert do lanche, um insert por ingrediente, o registro da alteração no
+        // histórico do catálogo e o evento no outbox.
+        var maxStatements = 4 + newEditDishDto.ingredientsIds().size();
+        var actualResult = assertMaxStatements(maxStatements, () -> dishService.saveDish(newEditDishDto)).getTotalPrice();
 
         // Verifica se o preço total esperado do prato é igual ao preço total do prato salvo
         assertEquals(expectedResult, actualResult);
     }
 
 
+    // A listagem em partes deve percorrer todos os lanches, em ordem de ID, com os ingredientes carregados
+    @Test
+    void assertForEachDishVisitsAllDishesInOrder() {
+        var expectedIds = dishService.findAllDishes().stream().map(Dish::getId).sorted().toList();
+
+        var actualIds = new ArrayList<Long>();
+        assertMaxStatements(2, () -> dishService.forEachDish(dish -> {
+            dish.getIngredients().forEach(it -> it.getIngredient().getName());
+            actualIds.add(dish.getId());
+        }));
+
+        assertEquals(expectedIds, actualIds);
+    }
+
+    // Um nome ja usado por outro lanche deve ser rejeitado pelo indice de nomes, sem consultar o banco de dados
+    @Test
+    void assertDuplicateDishNameIsRejected() {
+        var duplicate = new NewEditDishDto(null, "Test Dish A", List.of(new NewEditDishIngredientQuantity(1, 1L)));
+
+        // O unico comando executado e a busca dos ingredientes do lanche
+        assertMaxStatements(1, () -> {
+            assertThrows(BusinessException.class, () -> dishService.saveDish(duplicate));
+        });
+    }
+
+    // Um nome repetido que chega ao banco de dados deve ser reconhecido pela restricao unique do nome, e nao por outra
+    @Test
+    void assertDuplicateNameViolationIsRecognized() {
+        var duplicate = new Ingredient();
+        duplicate.setName("Ingredient A");
+        duplicate.setSalePrice(10L);
+
+        var exception = assertThrows(DataIntegrityViolationException.class,
+                () -> ingredientRepository.saveAndFlush(duplicate));
+
+        assertTrue(ConstraintViolations.isViolationOf(exception, Ingredient.NAME_CONSTRAINT));
+        assertFalse(ConstraintViolations.isViolationOf(exception, Dish.NAME_CONSTRAINT));
+    }
+
+    // A validacao em lote deve devolver um resultado por lanche, na mesma ordem, sem consultar o banco de dados
+    @Test
+    void assertValidateAllReturnsOneResponsePerDish() {
+        var existingIngredient = ingredientRepository.findById(1L).orElseThrow(NotFoundException::new);
+        var missingIngredient = new Ingredient();
+        missingIngredient.setId(Long.MAX_VALUE);
+
+        var valid = newDish("Batch Dish", existingIngredient);
+        var repeatedInBatch = newDish("Batch Dish", existingIngredient);
+        var existingName = newDish("Test Dish A", existingIngredient);
+        var missingReference = newDish("Batch Dish With Missing Ingredient", missingIngredient);
+
+        var responses = assertMaxStatements(0, () -> dishService.validateAll(List.of(valid, repeatedInBatch, existingName, missingReference)));
+
+        assertEquals(List.of(true, false, false, false), responses.stream().map(ObjectValidationResponse::isValid).toList());
+        assertEquals("Ingredient with id '" + Long.MAX_VALUE + "' does not exist.", responses.get(3).message());
+    }
+
+    private static Dish newDish(String name, Ingredient ingredient) {
+        var dish = new Dish();
+        dish.setName(name);
+        dish.setTotalPrice(10L);
+        dish.getIngredients().add(new DishIngredientQuantity(dish, ingredient, 1));
+        return dish;
+    }
+
+    // A listagem de lanches deve carregar os lanches e seus ingredientes em uma única consulta
+    @Test
+    void assertFindAllDishesExecutesSingleStatement() {
+        var dishes = assertMaxStatements(1, () -> dishService.findAllDishes());
+        dishes.forEach(dish -> dish.getIngredients().forEach(it -> it.getIngredient().getName()));
+    }
+
+
     // Testando regra para calculo de preco de um lanche baseado no preco dos ingredientes
     @ParameterizedTest()
     @MethodSource("provideListOfDishIngredientQuantities")
@@ -95,7 +183,7 @@ public class DishServiceTests {
         return Stream.of(
 
             Arguments.of(
-                new NewEditDishDto(null, "Test Dish A",
+                new NewEditDishDto(null, "Priced Dish A",
                     List.of(
                         new NewEditDishIngredientQuantity(5, 1L)
                     )
@@ -103,7 +191,7 @@ public class DishServiceTests {
             ),
 
             Arguments.of(
-                new NewEditDishDto(null, "Test Dish B",
+                new NewEditDishDto(null, "Priced Dish B",
                     List.of(
                         new NewEditDishIngredientQuantity(5, 1L),
                         new NewEditDishIngredientQuantity(2, 2L)
@@ -112,7 +200,7 @@ public class DishServiceTests {
             ),
 
             Arguments.of(
-                new NewEditDishDto(null, "Test Dish C",
+                new NewEditDishDto(null, "Priced Dish C",
                     List.of(
                         new NewEditDishIngredientQuantity(5, 1L),
                         new NewEditDishIngredientQuantity(2, 2L),
@@ -0,0 +1,145 @@
+package com.iglusoft.api.services;
+
+import com.iglusoft.api.database.repositories.IngredientStockRepository;
+import com.iglusoft.api.dtos.DishIngredientDto;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.exceptions.BusinessException;
+import com.iglusoft.api.exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventorytest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        "iglusoft.inventory.flush-interval-millis=3600000"
+})
+public class InventoryServiceTests {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IngredientStockRepository ingredientStockRepository;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    // Cada pedido deve reservar os ingredientes do lanche ate o estoque acabar, e o saldo deve ser gravado no banco
+    @Test
+    void assertOrdersReserveStockUntilItRunsOut() {
+        // O lanche 2 usa 5 unidades do ingrediente 1
+        inventoryService.restock(1L, 12);
+        var order = List.of(new DishOrderDto(2L, List.of()));
+
+        orderService.placeOrder(order);
+        orderService.placeOrder(order);
+        assertThrows(BusinessException.class, () -> orderService.placeOrder(order));
+        assertEquals(2, inventoryService.getAvailable(1L));
+
+        inventoryService.flush();
+        assertEquals(2, ingredientStockRepository.findById(1L).orElseThrow().getQuantity());
+    }
+
+    // Se um ingrediente do pedido nao tiver saldo, os ingredientes ja reservados devem ser devolvidos
+    @Test
+    void assertPartialReservationIsRolledBack() {
+        // O lanche 1 usa 4 unidades do ingrediente 5, 7 do ingrediente 3 e 5 do ingrediente 2
+        inventoryService.restock(5L, 100);
+        inventoryService.restock(3L, 6);
+        var order = List.of(new DishOrderDto(1L, List.of()));
+
+        assertThrows(BusinessException.class, () -> orderService.placeOrder(order));
+        assertEquals(100, inventoryService.getAvailable(5L));
+        assertEquals(6, inventoryService.getAvailable(3L));
+
+        // Os ingredientes sem estoque controlado podem ser pedidos sem limite
+        assertThrows(NotFoundException.class, () -> inventoryService.getAvailable(2L));
+        inventoryService.restock(3L, 1);
+        orderService.placeOrder(order);
+        assertEquals(96, inventoryService.getAvailable(5L));
+        assertEquals(0, inventoryService.getAvailable(3L));
+    }
+
+    // A cotacao do pedido nao deve reservar estoque
+    @Test
+    void assertPricingDoesNotReserveStock() {
+        inventoryService.restock(4L, 3);
+
+        orderService.getOrderResponse(List.of(new DishOrderDto(2L, List.of(new DishIngredientDto(4L, 3)))));
+        assertEquals(3, inventoryService.getAvailable(4L));
+    }
+
+    // Duas instancias compartilhando o banco de dados nao devem vender juntas mais do que o estoque
+    @Test
+    void assertInstancesDoNotOversellSharedStock() {
+        var ingredientId = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Inventory Lease Ingredient", 10L)).getId();
+        inventoryService.restock(ingredientId, 10);
+        var other = new InventoryService(ingredientStockRepository, ingredientService, new SimpleMeterRegistry(), 4, 4);
+
+        var accepted = 0;
+        for (var i = 0; i < 10; i++) {
+            for (var node : List.of(inventoryService, other)) {
+                try {
+                    node.reserve(Map.of(ingredientId, 1));
+                    accepted++;
+                } catch (BusinessException e) {
+                    // Sem saldo nesta instancia
+                }
+            }
+        }
+        assertEquals(10, accepted);
+
+        // O saldo devolvido por uma instancia volta a ficar disponivel para a outra
+        inventoryService.release(Map.of(ingredientId, 3));
+        assertThrows(BusinessException.class, () -> other.reserve(Map.of(ingredientId, 3)));
+        inventoryService.flush();
+        other.reserve(Map.of(ingredientId, 3));
+        assertEquals(0, ingredientStockRepository.findById(ingredientId).orElseThrow().getQuantity());
+    }
+
+    // Duas instancias que passam a controlar o mesmo ingrediente ao mesmo tempo devem somar as duas reposicoes
+    @Test
+    void assertConcurrentRestocksOnTwoInstancesAreSummed() throws Exception {
+        var other = new InventoryService(ingredientStockRepository, ingredientService, new SimpleMeterRegistry(), 4, 4);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            for (var i = 0; i < 20; i++) {
+                var ingredientId = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Inventory Restock Ingredient " + i, 10L)).getId();
+                var barrier = new CyclicBarrier(2);
+                var restocks = new ArrayList<Future<Long>>();
+                for (var node : List.of(inventoryService, other)) {
+                    restocks.add(executor.submit(() -> {
+                        barrier.await();
+                        return node.restock(ingredientId, 5);
+                    }));
+                }
+                for (var restock : restocks)
+                    restock.get(10, TimeUnit.SECONDS);
+
+                assertEquals(10, ingredientStockRepository.findById(ingredientId).orElseThrow().getQuantity());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.iglusoft.api.services;
 
 import com.iglusoft.api.dtos.DishIngredientDto;
 import com.iglusoft.api.dtos.DishOrderDto;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -12,6 +13,7 @@ import org.springframework.test.context.TestPropertySource;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static com.iglusoft.api.support.SqlStatementRecorder.assertMaxStatements;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 
@@ -22,6 +24,9 @@ public class OrderServiceTests {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
 
     // Teste para garantir que a promocao está sendo aplicada corretamente no pedido
     /**
@@ -57,6 +62,41 @@ public class OrderServiceTests {
     }
 
 
+    // Com a fotografia do catalogo carregada, o calculo do pedido nao deve executar nenhum comando SQL
+    @ParameterizedTest
+    @MethodSource("provideDishOrderDto")
+    void assertWarmOrderPricingExecutesNoStatements(DishOrderDto order, Long expectedTotalPrice) {
+        catalogSnapshotService.getSnapshot();
+
+        var actualResult = assertMaxStatements(0, () -> orderService.getOrderResponse(List.of(order)));
+        assertEquals(expectedTotalPrice, actualResult.totalPrice());
+    }
+
+
+    // A recarga da fotografia do catalogo deve executar um numero fixo de consultas, independente do tamanho do catalogo
+    @Test
+    void assertSnapshotLoadExecutesConstantStatements() {
+        catalogSnapshotService.invalidate();
+
+        var snapshot = assertMaxStatements(4, () -> catalogSnapshotService.getSnapshot());
+        assertEquals(2, snapshot.offers().size());
+    }
+
+
+    // Um lanche repetido em varios itens deve ser cobrado uma vez por item, como e reservado no estoque
+    @Test
+    void assertRepeatedDishLinesAreAllPriced() {
+        var plain = new DishOrderDto(2L, List.of());
+        var extra = new DishOrderDto(2L, List.of(new DishIngredientDto(4L, 1)));
+        var plainPrice = orderService.getOrderResponse(List.of(plain)).totalPrice();
+        var extraPrice = orderService.getOrderResponse(List.of(extra)).totalPrice();
+
+        var response = orderService.getOrderResponse(List.of(plain, extra, plain));
+        assertEquals(3, response.dishes().size());
+        assertEquals(2 * plainPrice + extraPrice, response.totalPrice());
+    }
+
+
     private static Stream<Arguments> provideDishOrderDto() {
         return Stream.of(
             Arguments.of(new DishOrderDto(1L, List.of()), 510L),
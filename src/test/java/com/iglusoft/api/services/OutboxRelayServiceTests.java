@@ -0,0 +1,129 @@
+package com.iglusoft.api.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iglusoft.api.database.repositories.OutboxEventRepository;
+import com.iglusoft.api.dtos.DishOrderDto;
+import com.iglusoft.api.dtos.NewEditIngredientDto;
+import com.iglusoft.api.interfaces.IOutboxSink;
+import com.iglusoft.api.outbox.NdjsonFileOutboxSink;
+import com.iglusoft.api.outbox.OutboxMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxtest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false",
+        "iglusoft.outbox.poll-millis=3600000",
+        "iglusoft.outbox.file-path=target/outbox-relay-test.ndjson"
+})
+public class OutboxRelayServiceTests {
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IOutboxSink outboxSink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelayService.relay();
+    }
+
+    // As alteracoes do catalogo e os pedidos devem chegar ao arquivo NDJSON em ordem, e sair do outbox
+    @Test
+    void assertCatalogChangesAndOrdersAreRelayedInOrder() throws Exception {
+        var path = ((NdjsonFileOutboxSink) outboxSink).getPath();
+        var linesBefore = Files.exists(path) ? Files.readAllLines(path).size() : 0;
+
+        var ingredient = ingredientService.saveIngredient(new NewEditIngredientDto(null, "Outbox Ingredient", 10L));
+        ingredientService.saveIngredient(new NewEditIngredientDto(ingredient.getId(), "Outbox Ingredient Updated", 20L));
+        orderService.placeOrder(List.of(new DishOrderDto(2L, List.of())));
+
+        assertEquals(3, outboxRelayService.relay());
+        assertEquals(0, outboxEventRepository.countInAllTenants());
+
+        var lines = Files.readAllLines(path);
+        var events = new ArrayList<JsonNode>();
+        for (var line : lines.subList(linesBefore, lines.size()))
+            events.add(objectMapper.readTree(line));
+
+        assertEquals(List.of("INGREDIENT", "INGREDIENT", "ORDER"), events.stream().map(it -> it.get("aggregateType").asText()).toList());
+        assertEquals(List.of("CREATED", "UPDATED", "PLACED"), events.stream().map(it -> it.get("eventType").asText()).toList());
+        assertEquals(String.valueOf(ingredient.getId()), events.get(1).get("aggregateId").asText());
+        assertEquals(ingredient.getId(), events.get(1).get("payload").get("entityId").asLong());
+        assertEquals(50, events.get(2).get("payload").get("totalPrice").asLong());
+        assertEquals(events.get(2).get("aggregateId").asText(), events.get(2).get("payload").get("orderId").asText());
+    }
+
+    // Um evento gravado em uma transacao desfeita nao deve ser enviado
+    @Test
+    void assertRolledBackEventIsNotRelayed() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            outboxService.append("DISH", "1", "UPDATED", Map.of("name", "Rolled back"));
+            throw new IllegalStateException("Rolled back");
+        }));
+
+        assertEquals(0, outboxEventRepository.countInAllTenants());
+        assertEquals(0, outboxRelayService.relay());
+    }
+
+    // Com o destino fora do ar, os eventos devem continuar no outbox e ser entregues depois, em lotes e em ordem
+    @Test
+    void assertFailedBatchIsDeliveredAgainInOrder() {
+        var received = new ArrayList<List<OutboxMessage>>();
+        var available = new boolean[]{false};
+        IOutboxSink sink = messages -> {
+            if (!available[0])
+                throw new IllegalStateException("Sink unavailable");
+            received.add(messages);
+        };
+        var relay = new OutboxRelayService(outboxEventRepository, sink, new SimpleMeterRegistry(), 2, 10, true);
+
+        for (var version = 1; version <= 3; version++)
+            outboxService.append("DISH", "42", "UPDATED", Map.of("version", version));
+
+        assertEquals(0, relay.relay());
+        assertEquals(3, outboxEventRepository.countInAllTenants());
+
+        available[0] = true;
+        assertEquals(3, relay.relay());
+        assertEquals(List.of(2, 1), received.stream().map(List::size).toList());
+        assertEquals(List.of("{\"version\":1}", "{\"version\":2}", "{\"version\":3}"),
+                received.stream().flatMap(List::stream).map(OutboxMessage::payload).toList());
+        assertEquals(0, outboxEventRepository.countInAllTenants());
+    }
+}
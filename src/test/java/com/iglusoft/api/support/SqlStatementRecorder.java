@@ -0,0 +1,77 @@
+package com.iglusoft.api.support;
+
+import com.iglusoft.api.metrics.JdbcStatementCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Registra os comandos SQL gerados pelo Hibernate durante os testes.
+ *
+ * <p>
+ * Substitui o {@link JdbcStatementCounter} como {@code statement_inspector} no {@code test.properties}, mantendo a
+ * contagem usada pelas métricas e guardando também o texto de cada comando executado pela thread atual. Com isso os
+ * testes podem impor um limite de consultas para cada operação e, quando ele é ultrapassado, exibir exatamente quais
+ * comandos foram executados, o que torna regressões do tipo N+1 visíveis no build.
+ * </p>
+ *
+ * <p><strong>Exemplo de uso:</strong></p>
+ * <pre>{@code
+ * var dishes = SqlStatementRecorder.assertMaxStatements(1, () -> dishService.findAllDishes());
+ * }</pre>
+ */
+public class SqlStatementRecorder extends JdbcStatementCounter {
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        var statements = STATEMENTS.get();
+        if (statements != null)
+            statements.add(sql);
+        return super.inspect(sql);
+    }
+
+    /**
+     * Executa a ação e retorna os comandos SQL executados por ela na thread atual.
+     */
+    public static List<String> record(Runnable action) {
+        var previous = STATEMENTS.get();
+        var statements = new ArrayList<String>();
+        STATEMENTS.set(statements);
+        try {
+            action.run();
+        } finally {
+            STATEMENTS.set(previous);
+            if (previous != null)
+                previous.addAll(statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Executa a ação e falha o teste se ela executar mais do que {@code maxStatements} comandos SQL.
+     *
+     * @return O resultado da ação.
+     */
+    public static <T> T assertMaxStatements(int maxStatements, Supplier<T> action) {
+        var result = new ArrayList<T>(1);
+        var statements = record(() -> result.add(action.get()));
+        assertTrue(statements.size() <= maxStatements, () -> String.format(
+                "Expected at most %d SQL statements but %d were executed:%n%s",
+                maxStatements, statements.size(), String.join(System.lineSeparator(), statements)));
+        return result.get(0);
+    }
+
+    /**
+     * Versão de {@link #assertMaxStatements(int, Supplier)} para ações sem retorno.
+     */
+    public static void assertMaxStatements(int maxStatements, Runnable action) {
+        assertMaxStatements(maxStatements, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.iglusoft.api.synthetic;
+
+import com.iglusoft.api.enums.DiscountType;
+import com.iglusoft.api.services.CatalogSnapshotFile;
+import com.iglusoft.api.services.CatalogSnapshotFileService;
+import com.iglusoft.api.services.CatalogSnapshotService;
+import com.iglusoft.api.services.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+// O catalogo sintetico substitui o catalogo inteiro, entao estes testes usam um banco de dados proprio
+@SpringBootTest
+@TestPropertySource(locations="classpath:test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:syntheticcatalogtest;DB_CLOSE_DELAY=-1",
+        "iglusoft.warm-up.enabled=false"
+})
+public class SyntheticCatalogGeneratorTests {
+    private static final SyntheticCatalogGenerator.Settings SETTINGS = new SyntheticCatalogGenerator.Settings(42L, 200, 2_000, 100);
+
+    @Autowired
+    private CatalogSnapshotFileService catalogSnapshotFileService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private OrderService orderService;
+
+    // A mesma semente deve gerar sempre o mesmo catalogo, e sementes diferentes, catalogos diferentes
+    @Test
+    void assertGenerationIsDeterministic() {
+        var contents = SyntheticCatalogGenerator.generate(SETTINGS);
+
+        assertEquals(contents, SyntheticCatalogGenerator.generate(SETTINGS));
+        assertNotEquals(contents, SyntheticCatalogGenerator.generate(new SyntheticCatalogGenerator.Settings(43L, 200, 2_000, 100)));
+        assertEquals(new SyntheticOrderWorkload(contents, 7L).nextOrder(), new SyntheticOrderWorkload(contents, 7L).nextOrder());
+    }
+
+    // O catalogo deve ter referencias validas, os dois tipos de desconto e ingredientes com popularidade assimetrica
+    @Test
+    void assertCatalogIsRealistic() {
+        var contents = SyntheticCatalogGenerator.generate(SETTINGS);
+        var ingredientIds = contents.ingredients().stream().map(CatalogSnapshotFile.IngredientRow::id).collect(Collectors.toSet());
+
+        var usage = new HashMap<Long, Integer>();
+        for (var dish : contents.dishes()) {
+            assertTrue(dish.ingredients().size() >= 1 && dish.ingredients().size() <= SyntheticCatalogGenerator.MAX_DISH_INGREDIENTS);
+            var distinct = new HashSet<Long>();
+            for (var quantity : dish.ingredients()) {
+                assertTrue(ingredientIds.contains(quantity.ingredientId()));
+                assertTrue(distinct.add(quantity.ingredientId()));
+                usage.merge(quantity.ingredientId(), 1, Integer::sum);
+            }
+        }
+        var mostUsed = usage.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+        assertTrue(mostUsed > 10 * contents.dishes().size() / contents.ingredients().size());
+
+        var discountTypes = contents.offers().stream().map(CatalogSnapshotFile.OfferRow::discountType).collect(Collectors.toSet());
+        assertEquals(EnumSet.allOf(DiscountType.class), discountTypes);
+        contents.offers().forEach(offer -> {
+            assertFalse(offer.requiredIngredients().isEmpty());
+            offer.excludedIngredients().forEach(it -> assertTrue(offer.requiredIngredients().stream()
+                    .noneMatch(required -> required.ingredientId() == it.ingredientId())));
+        });
+    }
+
+    // Os pedidos devem se concentrar nos lanches mais populares
+    @Test
+    void assertOrdersFollowZipfianPopularity() {
+        var contents = SyntheticCatalogGenerator.generate(SETTINGS);
+        var workload = new SyntheticOrderWorkload(contents, 7L);
+
+        var counts = new HashMap<Long, Integer>();
+        var lines = 0;
+        for (var i = 0; i < 10_000; i++) {
+            for (var line : workload.nextOrder()) {
+                counts.merge(line.dishId(), 1, Integer::sum);
+                lines++;
+            }
+        }
+
+        var mostOrdered = counts.getOrDefault(workload.dishIdAtRank(0), 0);
+        assertTrue(mostOrdered > 50 * lines / contents.dishes().size());
+    }
+
+    // O catalogo gerado deve ser carregado no banco de dados e os pedidos gerados devem ser calculados sem erros
+    @Test
+    void assertGeneratedCatalogLoadsAndPricesOrders() {
+        var contents = SyntheticCatalogGenerator.generate(SETTINGS);
+        catalogSnapshotFileService.replaceCatalog(contents);
+
+        var snapshot = catalogSnapshotService.getSnapshot();
+        assertEquals(SETTINGS.ingredients(), snapshot.ingredients().size());
+        assertEquals(SETTINGS.dishes(), snapshot.dishes().size());
+        assertEquals(SETTINGS.offers(), snapshot.offers().size());
+
+        var workload = new SyntheticOrderWorkload(contents, 7L);
+        for (var i = 0; i < 500; i++)
+            assertTrue(orderService.getOrderResponse(workload.nextOrder()).totalPrice() >= 0);
+    }
+}
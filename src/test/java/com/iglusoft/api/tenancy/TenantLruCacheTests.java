@@ -0,0 +1,55 @@
+package com.iglusoft.api.tenancy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TenantLruCacheTests {
+
+    // Ao passar do limite, o tenant acessado ha mais tempo deve ser descartado
+    @Test
+    void assertEvictsLeastRecentlyUsedTenant() throws InterruptedException {
+        var cache = new TenantLruCache<>(2, tenantId -> new Object());
+        var a = cache.get("a");
+        Thread.sleep(1);
+        cache.get("b");
+        Thread.sleep(1);
+        cache.get("a");
+        Thread.sleep(1);
+        cache.get("c");
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.peek("a").orElseThrow());
+        assertTrue(cache.peek("b").isEmpty());
+    }
+
+    // Um tenant descartado deve ser criado de novo no proximo acesso, e peek nunca deve criar valores
+    @Test
+    void assertRecreatesEvictedTenantOnNextAccess() {
+        var created = new AtomicInteger();
+        var cache = new TenantLruCache<>(1, tenantId -> created.incrementAndGet());
+
+        assertTrue(cache.peek("a").isEmpty());
+        var first = cache.get("a");
+        cache.get("b");
+        var second = cache.get("a");
+
+        assertEquals(3, created.get());
+        assertNotSame(first, second);
+    }
+
+    // O valor atual deve ser o do tenant definido na thread, ou o do tenant padrao
+    @Test
+    void assertCurrentUsesTenantContext() {
+        var cache = new TenantLruCache<>(4, tenantId -> tenantId);
+
+        assertEquals(TenantContext.DEFAULT_TENANT, cache.current());
+        assertEquals("restaurant-1", TenantContext.call("restaurant-1", cache::current));
+        assertEquals(TenantContext.DEFAULT_TENANT, TenantContext.current());
+    }
+}